@@ -0,0 +1,36 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.service.AgeCalculationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Step 2 age calculation with the mock API's simulated network latency turned off. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgeCalculationBenchmark {
+
+    @Param({"5", "100", "500"})
+    int batchSize;
+
+    private AgeCalculationService service;
+    private List<PersonRecord> batch;
+
+    @Setup
+    public void setUp() {
+        service = new AgeCalculationService();
+        service.setSimulateLatency(false);
+        batch = BenchmarkData.records("age", batchSize, false);
+    }
+
+    @Benchmark
+    public List<PersonRecord> calculateAgesForPersons() {
+        return service.calculateAgesForPersons(batch);
+    }
+}
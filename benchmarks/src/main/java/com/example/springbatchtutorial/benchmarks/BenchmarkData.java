@@ -0,0 +1,35 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Deterministic inputs shared by the suites. */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static String partialCsv(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 64);
+        sb.append("FirstName,LastName,Email,DateOfBirth\n");
+        for (int i = 1; i <= rows; i++) {
+            String email = (i % 7 == 0) ? ("invalid-" + i + ".example.com") : ("bench" + i + "@example.com");
+            sb.append("BENCH_").append(i).append(",Demo").append(i % 50).append(',').append(email).append(',')
+                    .append(LocalDate.of(1980 + (i % 30), (i % 12) + 1, (i % 28) + 1)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static List<PersonRecord> records(String emailPrefix, int count, boolean withAge) {
+        List<PersonRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate dob = LocalDate.of(1980 + (i % 30), (i % 12) + 1, (i % 28) + 1);
+            PersonRecord record = new PersonRecord("BENCH_" + i, "Demo", emailPrefix + i + "@example.com", dob);
+            records.add(withAge ? record.withAge(20 + i % 60) : record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Step 1 alone, row by row ({@code step1SaveToDatabase}), row by row behind the write-behind stage
+ * ({@code writebehind}) and bulk ({@code step1BulkLoad}), on the same generated file: an initial load into an empty
+ * table, then a re-ingest of the same file with every row unchanged. Each mode runs in a fresh application context.
+ * Prints rows/sec per run and the counts, which must be the same for every mode.
+ * Settings are system properties: {@code bulk.modes}, {@code bulk.rows}, {@code bulk.invalidRatio},
+ * {@code bulk.duplicateRatio}.
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.stream(System.getProperty("bulk.modes", "row,bulk").split(","))
+                .map(String::trim).toList();
+        long rows = Long.parseLong(System.getProperty("bulk.rows", "100000"));
+        double invalidRatio = Double.parseDouble(System.getProperty("bulk.invalidRatio", "0.02"));
+        double duplicateRatio = Double.parseDouble(System.getProperty("bulk.duplicateRatio", "0.02"));
+        System.out.printf("Bulk load: modes=%s rows=%d invalidRatio=%.2f duplicateRatio=%.2f%n",
+                modes, rows, invalidRatio, duplicateRatio);
+        for (String mode : modes) {
+            run(mode, rows, invalidRatio, duplicateRatio);
+        }
+    }
+
+    private static void run(String mode, long rows, double invalidRatio, double duplicateRatio) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--batch.age-api.simulate-latency=false",
+                        "--batch.write-behind.enabled=" + mode.equals("writebehind"),
+                        "--logging.level.com.example.springbatchtutorial=WARN",
+                        "--logging.level.org.springframework.batch=WARN");
+        try {
+            String stepName = mode.equals("bulk") ? "step1BulkLoad" : "step1SaveToDatabase";
+            Job job = new JobBuilder("bulkLoadBenchmarkJob", context.getBean(JobRepository.class))
+                    .start(context.getBean(stepName, Step.class))
+                    .build();
+            Path csv = context.getBean(SyntheticDataGenerator.class).generate(
+                    new DatasetSpec(rows, 42, invalidRatio, duplicateRatio), Path.of("target/bulk-load/persons_" + rows + ".csv"));
+            System.out.printf("%n%s (%s, %,d bytes):%n", mode, stepName, Files.size(csv));
+            for (String pass : List.of("initial", "re-ingest")) {
+                JobExecution execution = context.getBean(JobLauncher.class).run(job, new JobParametersBuilder()
+                        .addString("time", UUID.randomUUID().toString())
+                        .addString("scenario", "SUCCESS")
+                        .addString("csvPath", csv.toString())
+                        .toJobParameters());
+                if (execution.getStatus() != BatchStatus.COMPLETED) {
+                    throw new IllegalStateException(pass + " run ended " + execution.getStatus());
+                }
+                StepExecution step = execution.getStepExecutions().iterator().next();
+                long millis = Duration.between(step.getStartTime(), step.getEndTime()).toMillis();
+                var counts = step.getExecutionContext();
+                System.out.printf("  %-10s %,8d ms  %,10.0f rows/s  inserted=%d updated=%d unchanged=%d rejected=%d%n",
+                        pass, millis, rows * 1000.0 / Math.max(1, millis), counts.getInt("inserted.count"),
+                        counts.getInt("updated.count"), counts.getInt("unchanged.count"), counts.getInt("rejected.count", 0));
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
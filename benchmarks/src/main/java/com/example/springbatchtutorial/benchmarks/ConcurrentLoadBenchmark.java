@@ -0,0 +1,174 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.ExecutionSummaryService;
+import com.example.springbatchtutorial.service.JobMetricsAggregator;
+import com.example.springbatchtutorial.service.PersonExportService;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chunk commit latency with several jobs writing at once while dashboard readers poll, once per
+ * {@code batch.datasource.layout}: {@code shared} (one pool and one database for everything) and {@code separate}
+ * (write, read and batch metadata pools). Reports the p50/p95/p99 of the {@code batch.chunk.commit} timer per step.
+ *
+ * The jobs run steps 1 and 2 of {@code processPersonJob}, the two that write to the database; step 3 writes one
+ * shared output file and cannot run twice at the same time. Every job imports its own copy of the dataset, with
+ * its own e-mail domain, so concurrent upserts never meet on the same row. Settings are system properties:
+ * {@code load.layouts}, {@code load.rows}, {@code load.jobs} (concurrent jobs), {@code load.rounds},
+ * {@code load.readers} (dashboard threads).
+ */
+public class ConcurrentLoadBenchmark {
+
+    private static final String[] STEPS = {"step1SaveToDatabase", "step2CalculateAge"};
+
+    public static void main(String[] args) throws Exception {
+        List<String> layouts = Arrays.stream(System.getProperty("load.layouts", "shared,separate").split(","))
+                .map(String::trim).toList();
+        long rows = Long.parseLong(System.getProperty("load.rows", "2000"));
+        int jobs = Integer.parseInt(System.getProperty("load.jobs", "4"));
+        int rounds = Integer.parseInt(System.getProperty("load.rounds", "3"));
+        int readers = Integer.parseInt(System.getProperty("load.readers", "8"));
+        System.out.printf("Concurrent load: layouts=%s rows=%d jobs=%d rounds=%d readers=%d%n",
+                layouts, rows, jobs, rounds, readers);
+        for (String layout : layouts) {
+            run(layout, rows, jobs, rounds, readers);
+        }
+    }
+
+    private static void run(String layout, long rows, int jobs, int rounds, int readers) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--batch.datasource.layout=" + layout,
+                        "--batch.age-api.simulate-latency=false",
+                        "--logging.level.com.example.springbatchtutorial=WARN",
+                        "--logging.level.org.springframework.batch=WARN");
+        try {
+            JobLauncher jobLauncher = context.getBean(JobLauncher.class);
+            Job job = new JobBuilder("concurrentLoadJob", context.getBean(JobRepository.class))
+                    .start(context.getBean(STEPS[0], Step.class))
+                    .next(context.getBean(STEPS[1], Step.class))
+                    .build();
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            Path dir = Path.of("target/concurrent-load");
+            List<String> lines = Files.readAllLines(context.getBean(SyntheticDataGenerator.class)
+                    .generate(new DatasetSpec(rows, 42, 0, 0), dir.resolve("persons_" + rows + ".csv")));
+
+            // Warm-up run, then start the timers from zero
+            long warmupId = launch(jobLauncher, job, copyOf(lines, dir, "warmup-" + layout)).getId();
+            registry.find("batch.chunk.commit").timers().forEach(registry::remove);
+
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicLong queries = new AtomicLong();
+            ExecutorService readerPool = Executors.newFixedThreadPool(readers);
+            for (int i = 0; i < readers; i++) {
+                readerPool.submit(() -> dashboard(context, warmupId, stop, queries));
+            }
+            ExecutorService jobPool = Executors.newFixedThreadPool(jobs);
+            long started = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                List<Future<BatchStatus>> running = new ArrayList<>();
+                for (int j = 0; j < jobs; j++) {
+                    Path csv = copyOf(lines, dir, layout + "-r" + round + "j" + j);
+                    running.add(jobPool.submit(() -> launch(jobLauncher, job, csv).getStatus()));
+                }
+                for (Future<BatchStatus> result : running) {
+                    if (result.get() != BatchStatus.COMPLETED) {
+                        throw new IllegalStateException("Run ended " + result.get());
+                    }
+                }
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            stop.set(true);
+            jobPool.shutdown();
+            readerPool.shutdown();
+            readerPool.awaitTermination(1, TimeUnit.MINUTES);
+
+            System.out.printf("%n%s: %d jobs in %,d ms, %,d dashboard queries (%,.0f/s)%n", layout, jobs * rounds,
+                    elapsedMs, queries.get(), queries.get() * 1000.0 / Math.max(1, elapsedMs));
+            for (String step : STEPS) {
+                Timer commit = registry.find("batch.chunk.commit").tag("step", step).timer();
+                if (commit == null) {
+                    continue;
+                }
+                StringBuilder line = new StringBuilder(String.format("  %-20s commits=%-6d", step, commit.count()));
+                for (ValueAtPercentile p : commit.takeSnapshot().percentileValues()) {
+                    line.append(String.format(" p%-3.0f=%7.2f ms", p.percentile() * 100, p.value(TimeUnit.MILLISECONDS)));
+                }
+                line.append(String.format(" max=%7.2f ms", commit.max(TimeUnit.MILLISECONDS)));
+                System.out.println(line);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static JobExecution launch(JobLauncher jobLauncher, Job job, Path csv) throws Exception {
+        return jobLauncher.run(job, new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString())
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", csv.toString())
+                .toJobParameters());
+    }
+
+    /** What the dashboard polls: execution history, rollups, job status, a page of persons and one run's export. */
+    private static void dashboard(ConfigurableApplicationContext context, long exportedExecutionId,
+                                  AtomicBoolean stop, AtomicLong queries) {
+        ExecutionSummaryService summaries = context.getBean(ExecutionSummaryService.class);
+        JobMetricsAggregator aggregator = context.getBean(JobMetricsAggregator.class);
+        JobExplorer jobExplorer = context.getBean(JobExplorer.class);
+        PersonRepository persons = context.getBean(PersonRepository.class);
+        PersonExportService export = context.getBean(PersonExportService.class);
+        while (!stop.get()) {
+            try {
+                summaries.page(null, null, null, null, 20);
+                aggregator.rollup("all");
+                jobExplorer.findRunningJobExecutions("concurrentLoadJob");
+                persons.findPage(0, null, null, PageRequest.of(0, 100));
+                export.export(PersonExportService.Format.CSV, exportedExecutionId, null, OutputStream.nullOutputStream());
+                queries.addAndGet(5);
+            } catch (Exception e) {
+                System.err.println("Dashboard query failed: " + e);
+            }
+        }
+    }
+
+    /** The dataset with every e-mail moved to a domain of its own. */
+    private static Path copyOf(List<String> lines, Path dir, String name) throws Exception {
+        Path csv = dir.resolve("persons_" + name + ".csv");
+        Files.write(csv, lines.stream().map(line -> line.replace("@example.com", "@" + name + ".example.com")).toList());
+        return csv;
+    }
+}
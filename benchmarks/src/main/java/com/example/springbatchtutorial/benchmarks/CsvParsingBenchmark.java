@@ -0,0 +1,57 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.reader.PersonRowValidator;
+import com.example.springbatchtutorial.util.StringPool;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Step 1 parsing: opencsv tokenizing plus the {@link PersonRowValidator} rules used by {@code csvItemReader}.
+ * The input mirrors {@code /api/data/generate/partial10k}: every 7th row has an invalid email.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvParsingBenchmark {
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"true", "false"})
+    boolean internStrings;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        csv = BenchmarkData.partialCsv(rows);
+    }
+
+    @Benchmark
+    public int parseAndValidate(Blackhole bh) throws Exception {
+        PersonRowValidator validator = new PersonRowValidator(internStrings ? new StringPool(4096) : null);
+        PersonRowValidator.RejectionHandler rejections = (lineNumber, rule, message) -> bh.consume(rule);
+        int valid = 0;
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            reader.readNext();
+            String[] line;
+            int lineNumber = 1;
+            while ((line = reader.readNext()) != null) {
+                PersonRecord record = validator.validate(line, ++lineNumber, rejections);
+                if (record != null) {
+                    bh.consume(record);
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+}
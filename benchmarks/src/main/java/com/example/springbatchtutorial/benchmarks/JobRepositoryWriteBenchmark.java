@@ -0,0 +1,102 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.repository.DeferredJobRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The job repository writes of one chunk commit and nothing else: {@code update} of a running step execution and
+ * of its execution context, as {@code TaskletStep} does after every chunk. {@code jdbc} writes both rows every time,
+ * {@code deferred} keeps them in memory until the step ends, and {@code batched} is {@code deferred} with a
+ * {@code flush-interval-ms} of 100. Each iteration is one step execution, started and ended as a step would; the
+ * context holds the keys steps 1 and 2 store, so it serializes to a realistic size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobRepositoryWriteBenchmark {
+
+    @Param({"jdbc", "deferred", "batched"})
+    String repositoryMode;
+
+    private ConfigurableApplicationContext context;
+    private JobRepository jobRepository;
+    private JobExecution jobExecution;
+    private StepExecution stepExecution;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--batch.repository.flush-interval-ms=" + (repositoryMode.equals("batched") ? 100 : 0),
+                        "--logging.level.com.example.springbatchtutorial=WARN",
+                        "--logging.level.org.springframework.batch=WARN");
+        jobRepository = context.getBean(JobRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void startStep() throws Exception {
+        jobExecution = jobRepository.createJobExecution("jobRepositoryWriteBenchmark", new JobParametersBuilder()
+                .addLong("run", sequence++)
+                .addString(DeferredJobRepository.MODE_PARAMETER, repositoryMode.equals("jdbc") ? "jdbc" : "deferred", false)
+                .toJobParameters());
+        jobExecution.setStartTime(LocalDateTime.now());
+        jobExecution.setStatus(BatchStatus.STARTED);
+        jobRepository.update(jobExecution);
+        stepExecution = jobExecution.createStepExecution("chunkStep");
+        jobRepository.add(stepExecution);
+        stepExecution.setStartTime(LocalDateTime.now());
+        stepExecution.setStatus(BatchStatus.STARTED);
+        jobRepository.update(stepExecution);
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putLong("database.reader.position", 0);
+        executionContext.putLong("writebehind.durable.count", 0);
+        executionContext.putInt("inserted.count", 0);
+        executionContext.putInt("updated.count", 0);
+        executionContext.putInt("unchanged.count", 0);
+        executionContext.putInt("rejected.count", 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void endStep() {
+        stepExecution.upgradeStatus(BatchStatus.COMPLETED);
+        jobRepository.updateExecutionContext(stepExecution);
+        stepExecution.setEndTime(LocalDateTime.now());
+        jobRepository.update(stepExecution);
+        jobExecution.upgradeStatus(BatchStatus.COMPLETED);
+        jobExecution.setEndTime(LocalDateTime.now());
+        jobRepository.update(jobExecution);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public void chunkCommit() {
+        stepExecution.incrementCommitCount();
+        stepExecution.setReadCount(stepExecution.getReadCount() + 10);
+        stepExecution.setWriteCount(stepExecution.getWriteCount() + 10);
+        stepExecution.getExecutionContext().putLong("database.reader.position", stepExecution.getReadCount());
+        jobRepository.update(stepExecution);
+        jobRepository.updateExecutionContext(stepExecution);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.writer.PersonLineAggregator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Step 3 {@code firstName,age} line building for one 1000-row slice of output. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LineAggregationBenchmark {
+
+    private final PersonLineAggregator aggregator = new PersonLineAggregator();
+    private List<PersonRecord> records;
+
+    @Setup
+    public void setUp() {
+        records = BenchmarkData.records("line", 1000, true);
+    }
+
+    @Benchmark
+    public void aggregate(Blackhole bh) {
+        for (PersonRecord record : records) {
+            bh.consume(aggregator.aggregate(record));
+        }
+    }
+}
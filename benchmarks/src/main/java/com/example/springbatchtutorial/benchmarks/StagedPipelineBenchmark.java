@@ -0,0 +1,84 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The whole {@code processPersonJob} on one generated file, as steps 1 to 3 ({@code row}) and as the staged pipeline
+ * ({@code pipeline}), each in a fresh application context and with the age API latency simulated unless
+ * {@code pipeline.simulateLatency=false}. Prints the job duration and rows/sec, and for the pipeline how busy every
+ * stage was. Settings are system properties: {@code pipeline.modes}, {@code pipeline.rows},
+ * {@code pipeline.ageThreads}, {@code pipeline.simulateLatency}.
+ */
+public class StagedPipelineBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.stream(System.getProperty("pipeline.modes", "row,pipeline").split(","))
+                .map(String::trim).toList();
+        long rows = Long.parseLong(System.getProperty("pipeline.rows", "20000"));
+        int ageThreads = Integer.parseInt(System.getProperty("pipeline.ageThreads", "4"));
+        boolean simulateLatency = Boolean.parseBoolean(System.getProperty("pipeline.simulateLatency", "true"));
+        System.out.printf("Staged pipeline: modes=%s rows=%d ageThreads=%d simulateLatency=%s%n",
+                modes, rows, ageThreads, simulateLatency);
+        for (String mode : modes) {
+            run(mode, rows, ageThreads, simulateLatency);
+        }
+    }
+
+    private static void run(String mode, long rows, int ageThreads, boolean simulateLatency) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--batch.age-api.simulate-latency=" + simulateLatency,
+                        "--batch.staged-pipeline.age-threads=" + ageThreads,
+                        "--logging.level.com.example.springbatchtutorial=WARN",
+                        "--logging.level.org.springframework.batch=WARN");
+        try {
+            Path csv = context.getBean(SyntheticDataGenerator.class).generate(
+                    new DatasetSpec(rows, 42, 0.02, 0.0), Path.of("target/staged-pipeline/persons_" + rows + ".csv"));
+            JobExecution execution = context.getBean(JobLauncher.class).run(context.getBean("processPersonJob", Job.class),
+                    new JobParametersBuilder()
+                            .addString("time", UUID.randomUUID().toString())
+                            .addString("scenario", "SUCCESS")
+                            .addString("csvPath", csv.toString())
+                            .addString("loadMode", mode)
+                            .toJobParameters());
+            if (execution.getStatus() != BatchStatus.COMPLETED) {
+                throw new IllegalStateException(mode + " run ended " + execution.getStatus());
+            }
+            long millis = Duration.between(execution.getStartTime(), execution.getEndTime()).toMillis();
+            System.out.printf("%n%s (%,d bytes): %,d ms, %,.0f rows/s, %,d output lines%n", mode, Files.size(csv), millis,
+                    rows * 1000.0 / Math.max(1, millis), Files.readAllLines(Path.of(context.getEnvironment().getRequiredProperty("batch.output.file"))).size());
+            for (StepExecution step : execution.getStepExecutions()) {
+                var counts = step.getExecutionContext();
+                System.out.printf("  %-20s %,8d ms%n", step.getStepName(), Duration.between(step.getStartTime(), step.getEndTime()).toMillis());
+                for (String stage : List.of("parse", "validate", "age", "persist", "export")) {
+                    if (counts.containsKey("pipeline." + stage + ".utilization")) {
+                        System.out.printf("    %-9s %3.0f%% busy  idle %,6d ms  blocked %,6d ms%n", stage,
+                                counts.getDouble("pipeline." + stage + ".utilization") * 100,
+                                counts.getLong("pipeline." + stage + ".idle.ms"), counts.getLong("pipeline." + stage + ".blocked.ms"));
+                    }
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
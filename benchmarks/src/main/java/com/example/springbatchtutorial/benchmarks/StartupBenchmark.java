@@ -0,0 +1,135 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startup time and time-to-first-chunk of a fresh JVM, per launch mode, all measured from JVM start:
+ * <ul>
+ *   <li>{@code web}: the regular boot (Tomcat, actuator, H2 console), then {@code POST /api/jobs/start},</li>
+ *   <li>{@code cli}: the headless {@code cli} profile, job parameters on the command line,</li>
+ *   <li>{@code cli-cds}: the same with the AppCDS archive built by {@code mvn -Pcds package}.</li>
+ * </ul>
+ * Every mode starts from the {@code target/cli} layout of that build, so they load the same jars. Settings are
+ * system properties: {@code startup.appDir}, {@code startup.modes}, {@code startup.runs} (median reported),
+ * {@code startup.csv} and {@code startup.port}.
+ */
+public class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.example.springbatchtutorial.SpringBatchTutorialApplication";
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in [\\d.]+ seconds \\(process running for ([\\d.]+)\\)");
+    private static final Pattern FIRST_CHUNK = Pattern.compile("First chunk committed (\\d+) ms after JVM start");
+
+    public static void main(String[] args) throws Exception {
+        Path appDir = Path.of(System.getProperty("startup.appDir", "../target/cli")).toAbsolutePath().normalize();
+        List<String> modes = Arrays.stream(System.getProperty("startup.modes", "web,cli,cli-cds").split(","))
+                .map(String::trim).toList();
+        int runs = Integer.parseInt(System.getProperty("startup.runs", "3"));
+        Path csv = Path.of(System.getProperty("startup.csv", "../input/samples/persons_success.csv")).toAbsolutePath().normalize();
+        int port = Integer.parseInt(System.getProperty("startup.port", "18080"));
+        if (!Files.isDirectory(appDir.resolve("lib"))) {
+            throw new IllegalStateException(appDir + "/lib not found, build it first: mvn -Pcds package -DskipTests");
+        }
+        System.out.printf("Startup: appDir=%s modes=%s runs=%d csv=%s%n", appDir, modes, runs, csv);
+
+        for (String mode : modes) {
+            long[] startup = new long[runs];
+            long[] firstChunk = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long[] timings = mode.equals("web") ? runWeb(appDir, csv, port) : runCli(appDir, csv, mode.equals("cli-cds"));
+                startup[i] = timings[0];
+                firstChunk[i] = timings[1];
+            }
+            System.out.printf("  %-8s startup %,6d ms   first chunk %,6d ms   (median of %d; runs %s / %s)%n", mode,
+                    median(startup), median(firstChunk), runs, Arrays.toString(startup), Arrays.toString(firstChunk));
+        }
+    }
+
+    /** Boots the web application, starts the job over HTTP and stops the JVM after the first chunk. */
+    private static long[] runWeb(Path appDir, Path csv, int port) throws Exception {
+        Process process = start(appDir, List.of("--server.port=" + port));
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            long startup = Math.round(Double.parseDouble(await(out, STARTED).group(1)) * 1000);
+            HttpClient.newHttpClient().sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/jobs/start"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"csvPath\":\"" + csv.toString().replace("\\", "\\\\") + "\"}"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            long firstChunk = Long.parseLong(await(out, FIRST_CHUNK).group(1));
+            return new long[]{startup, firstChunk};
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Runs the job headless and reads the timings it logs; fails unless the JVM exits with 0. */
+    private static long[] runCli(Path appDir, Path csv, boolean cds) throws Exception {
+        List<String> jvm = new ArrayList<>();
+        if (cds) {
+            if (!Files.exists(appDir.resolve("app.jsa"))) {
+                throw new IllegalStateException(appDir + "/app.jsa not found, build it with: mvn -Pcds package -DskipTests");
+            }
+            jvm.add("-XX:SharedArchiveFile=app.jsa");
+            jvm.add("-Xlog:cds=off");
+        }
+        Process process = start(appDir, jvm, List.of("--spring.profiles.active=cli", "csvPath=" + csv));
+        long startup;
+        long firstChunk;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            startup = Math.round(Double.parseDouble(await(out, STARTED).group(1)) * 1000);
+            firstChunk = Long.parseLong(await(out, FIRST_CHUNK).group(1));
+            while (out.readLine() != null) {
+                // drain until exit
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("Headless run exited with " + exit);
+        }
+        return new long[]{startup, firstChunk};
+    }
+
+    private static Process start(Path appDir, List<String> appArgs) throws IOException {
+        return start(appDir, List.of(), appArgs);
+    }
+
+    private static Process start(Path appDir, List<String> jvmArgs, List<String> appArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", "lib/*", MAIN_CLASS, "--batch.age-api.simulate-latency=false"));
+        command.addAll(appArgs);
+        return new ProcessBuilder(command).directory(appDir.toFile()).redirectErrorStream(true).start();
+    }
+
+    private static Matcher await(BufferedReader out, Pattern pattern) throws IOException {
+        String line;
+        while ((line = out.readLine()) != null) {
+            Matcher matcher = pattern.matcher(line);
+            if (matcher.find()) {
+                return matcher;
+            }
+        }
+        throw new IllegalStateException("Process ended before logging: " + pattern.pattern());
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.writer.UpsertPersonItemWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.item.Chunk;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UpsertPersonItemWriter#write} against the in-memory H2 database, one chunk per operation and
+ * one transaction per chunk as in step 1. {@code insertChunk} always writes new emails;
+ * {@code rewriteUnchangedChunk} re-writes the same rows and exercises the content-hash skip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpsertWriterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private PersonRepository personRepository;
+    private TransactionTemplate transactionTemplate;
+    private UpsertPersonItemWriter writer;
+    private Chunk<PersonRecord> unchangedChunk;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--logging.level.com.example.springbatchtutorial=WARN",
+                        "--logging.level.org.springframework.batch=WARN");
+        personRepository = context.getBean(PersonRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        writer = new UpsertPersonItemWriter(personRepository);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTable() {
+        personRepository.deleteAllInBatch();
+        unchangedChunk = new Chunk<>(BenchmarkData.records("unchanged", chunkSize, true));
+        transactionTemplate.executeWithoutResult(status -> writer.write(unchangedChunk));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertChunk() {
+        List<PersonRecord> records = BenchmarkData.records("insert" + (sequence++) + "_", chunkSize, false);
+        transactionTemplate.executeWithoutResult(status -> writer.write(new Chunk<>(records)));
+    }
+
+    @Benchmark
+    public void rewriteUnchangedChunk() {
+        transactionTemplate.executeWithoutResult(status -> writer.write(unchangedChunk));
+    }
+}
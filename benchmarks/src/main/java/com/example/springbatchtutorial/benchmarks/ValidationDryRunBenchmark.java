@@ -0,0 +1,73 @@
+package com.example.springbatchtutorial.benchmarks;
+
+import com.example.springbatchtutorial.model.CsvValidationReport;
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.service.CsvValidationService;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import com.opencsv.CSVReader;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The dry run of {@code POST /api/jobs/validate} against a bare parse of the same generated file: one
+ * {@link CSVReader} pass that only counts rows, then the dry run in one segment and in one segment per
+ * {@code validate.threads}. Each is run {@code validate.runs} times after a warm-up and the best run is printed, with
+ * the heap in use after it. Settings are system properties: {@code validate.rows}, {@code validate.threads},
+ * {@code validate.runs}.
+ */
+public class ValidationDryRunBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long rows = Long.parseLong(System.getProperty("validate.rows", "2000000"));
+        int threads = Integer.parseInt(System.getProperty("validate.threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int runs = Integer.parseInt(System.getProperty("validate.runs", "3"));
+        System.out.printf("Validation dry run: rows=%d threads=%d runs=%d%n", rows, threads, runs);
+
+        Path csv = new SyntheticDataGenerator(0, "target/validate", 1, 1, 1).generate(
+                new DatasetSpec(rows, 42, 0.05, 0.0), Path.of("target/validate/persons_" + rows + ".csv"));
+        System.out.printf("%s: %,d bytes%n", csv, Files.size(csv));
+        CsvValidationService service = new CsvValidationService(threads, 10);
+        try {
+            measure("parse only", rows, runs, () -> {
+                long parsed = 0;
+                try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8); CSVReader lines = new CSVReader(reader)) {
+                    lines.readNext();
+                    while (lines.readNext() != null) {
+                        parsed++;
+                    }
+                }
+                return parsed + " rows";
+            });
+            measure("dry run, 1 segment", rows, runs, () -> summary(service.validate(csv, 1)));
+            measure("dry run, " + threads + " segments", rows, runs, () -> summary(service.validate(csv, threads)));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private interface Run {
+        String call() throws Exception;
+    }
+
+    private static void measure(String name, long rows, int runs, Run run) throws Exception {
+        run.call();
+        long best = Long.MAX_VALUE;
+        String result = null;
+        for (int i = 0; i < runs; i++) {
+            long started = System.nanoTime();
+            result = run.call();
+            best = Math.min(best, (System.nanoTime() - started) / 1_000_000);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("  %-22s %,8d ms  %,12.0f rows/s  heap %,5d MB  %s%n", name, best, rows * 1000.0 / Math.max(1, best),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), result);
+    }
+
+    private static String summary(CsvValidationReport report) {
+        return String.format("%d valid, %d rejected %s", report.valid(), report.rejected(), report.rejectedByRule());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springbatchtutorial.benchmarks.scale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a scale report with a baseline report run by run, matched on (rows, scenario).
+ * Steps shorter than {@code minStepMillis} in the baseline are ignored as too noisy to gate on.
+ */
+class BaselineComparator {
+
+    private final double threshold;
+    private final long minStepMillis;
+
+    BaselineComparator(double threshold, long minStepMillis) {
+        this.threshold = threshold;
+        this.minStepMillis = minStepMillis;
+    }
+
+    List<String> compare(JsonNode current, JsonNode baseline) {
+        List<String> regressions = new ArrayList<>();
+        if (baseline == null) {
+            return regressions;
+        }
+        Map<String, JsonNode> baselineRuns = new HashMap<>();
+        baseline.path("runs").forEach(run -> baselineRuns.put(key(run), run));
+
+        for (JsonNode run : current.path("runs")) {
+            JsonNode expected = baselineRuns.get(key(run));
+            if (expected == null) {
+                continue;
+            }
+            if (!expected.path("status").asText().equals(run.path("status").asText())) {
+                regressions.add(key(run) + ": status " + run.path("status").asText() + " (baseline " + expected.path("status").asText() + ")");
+            }
+            Iterator<Map.Entry<String, JsonNode>> steps = expected.path("steps").fields();
+            while (steps.hasNext()) {
+                Map.Entry<String, JsonNode> step = steps.next();
+                JsonNode actual = run.path("steps").path(step.getKey());
+                long baselineRate = step.getValue().path("rowsPerSec").asLong();
+                if (actual.isMissingNode() || step.getValue().path("durationMs").asLong() < minStepMillis || baselineRate == 0) {
+                    continue;
+                }
+                long rate = actual.path("rowsPerSec").asLong();
+                if (rate < baselineRate * (1 - threshold)) {
+                    regressions.add(String.format("%s %s: %,d rows/s vs baseline %,d rows/s (-%.0f%%)",
+                            key(run), step.getKey(), rate, baselineRate, 100.0 * (baselineRate - rate) / baselineRate));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static String key(JsonNode run) {
+        return run.path("rows").asLong() + "/" + run.path("scenario").asText();
+    }
+}
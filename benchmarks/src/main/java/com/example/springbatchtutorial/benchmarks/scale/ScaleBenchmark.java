@@ -0,0 +1,198 @@
+package com.example.springbatchtutorial.benchmarks.scale;
+
+import com.example.springbatchtutorial.SpringBatchTutorialApplication;
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.ScenarioMode;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * End-to-end scale run of {@code processPersonJob}: generates deterministic datasets, runs every
+ * {@link ScenarioMode} against each, writes a JSON report and compares it with a checked-in baseline.
+ *
+ * Exits with status 1 when a step's rows/sec drops more than {@code scale.threshold} below the baseline
+ * or a run ends in a different status, so the {@code scale} Maven profile fails the build.
+ * All settings are system properties, see {@link ScaleSettings}.
+ */
+public class ScaleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        ScaleSettings settings = ScaleSettings.fromSystemProperties();
+        System.out.println("Scale benchmark: " + settings);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBatchTutorialApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--batch.age-api.simulate-latency=false",
+                        "--batch.step2.skip-limit=" + Integer.MAX_VALUE,
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--logging.level.com.example.springbatchtutorial=ERROR",
+                        "--logging.level.org.springframework.batch=ERROR",
+                        "--logging.level.org.hibernate=ERROR");
+        List<Map<String, Object>> runs = new ArrayList<>();
+        try {
+            JobLauncher jobLauncher = context.getBean(JobLauncher.class);
+            Job job = context.getBean("processPersonJob", Job.class);
+            PersonRepository personRepository = context.getBean(PersonRepository.class);
+            SyntheticDataGenerator generator = context.getBean(SyntheticDataGenerator.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+            for (long rows : settings.sizes()) {
+                DatasetSpec spec = new DatasetSpec(rows, settings.seed(), settings.invalidRatio(), settings.duplicateRatio());
+                Path csv = generator.generate(spec, settings.dataDir().resolve("persons_" + rows + ".csv"));
+                for (ScenarioMode scenario : settings.scenarios()) {
+                    personRepository.deleteAllInBatch();
+                    runs.add(runOnce(jobLauncher, job, statistics, csv, rows, scenario, settings));
+                }
+            }
+        } finally {
+            context.close();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", Instant.now().toString());
+        report.put("settings", settings.describe());
+        report.put("runs", runs);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        mapper.writeValue(settings.report().toFile(), report);
+        System.out.println("Report written to " + settings.report().toAbsolutePath());
+
+        if (settings.updateBaseline()) {
+            mapper.writeValue(settings.baseline().toFile(), report);
+            System.out.println("Baseline updated: " + settings.baseline().toAbsolutePath());
+            return;
+        }
+        List<String> regressions = new BaselineComparator(settings.threshold(), settings.minStepMillis())
+                .compare(mapper.readTree(settings.report().toFile()), Files.exists(settings.baseline())
+                        ? mapper.readTree(settings.baseline().toFile()) : null);
+        if (!regressions.isEmpty()) {
+            System.err.println("Scale regressions against " + settings.baseline() + ":");
+            regressions.forEach(r -> System.err.println("  - " + r));
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + settings.baseline());
+    }
+
+    private static Map<String, Object> runOnce(JobLauncher jobLauncher, Job job, Statistics statistics, Path csv,
+                                               long rows, ScenarioMode scenario, ScaleSettings settings) throws Exception {
+        JobParametersBuilder params = new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString())
+                .addString("scenario", scenario.name())
+                .addString("csvPath", csv.toString());
+        if (scenario == ScenarioMode.PARTIAL) {
+            params.addString("skipEvery", String.valueOf(settings.skipEvery()));
+        }
+        if (scenario == ScenarioMode.RETRYABLE) {
+            params.addString("retryAttempts", "2");
+        }
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcBefore = gcMillis();
+        statistics.clear();
+        long started = System.nanoTime();
+
+        JobExecution execution = jobLauncher.run(job, params.toJobParameters());
+
+        long totalMs = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("rows", rows);
+        run.put("scenario", scenario.name());
+        run.put("status", execution.getStatus().name());
+        run.put("totalMs", totalMs);
+        run.put("peakHeapBytes", heapPools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum());
+        run.put("gcTimeMs", gcMillis() - gcBefore);
+        run.put("dbStatements", statistics.getPrepareStatementCount());
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (StepExecution step : execution.getStepExecutions()) {
+            long stepMs = step.getStartTime() != null && step.getEndTime() != null
+                    ? Duration.between(step.getStartTime(), step.getEndTime()).toMillis() : 0;
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("status", step.getStatus().name());
+            s.put("read", step.getReadCount());
+            s.put("write", step.getWriteCount());
+            s.put("skip", step.getSkipCount());
+            s.put("durationMs", stepMs);
+            s.put("rowsPerSec", stepMs > 0 ? Math.round(step.getReadCount() * 1000.0 / stepMs) : 0);
+            steps.put(step.getStepName(), s);
+        }
+        run.put("steps", steps);
+        System.out.printf("  %,d rows %-9s %-9s %,d ms  steps=%s%n", rows, scenario, execution.getStatus(), totalMs, steps);
+        return run;
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(t -> t > 0).sum();
+    }
+
+    record ScaleSettings(long[] sizes, List<ScenarioMode> scenarios, long seed, double invalidRatio,
+                         double duplicateRatio, int skipEvery, Path dataDir, Path report, Path baseline,
+                         double threshold, long minStepMillis, boolean updateBaseline) {
+
+        static ScaleSettings fromSystemProperties() {
+            double skippableRatio = Double.parseDouble(System.getProperty("scale.skippableRatio", "0.02"));
+            return new ScaleSettings(
+                    Arrays.stream(System.getProperty("scale.sizes", "100000").split(",")).map(String::trim).mapToLong(Long::parseLong).toArray(),
+                    Arrays.stream(System.getProperty("scale.scenarios", "SUCCESS,PARTIAL,FAIL,RETRYABLE").split(",")).map(String::trim).map(ScenarioMode::valueOf).toList(),
+                    Long.parseLong(System.getProperty("scale.seed", "42")),
+                    Double.parseDouble(System.getProperty("scale.invalidRatio", "0.05")),
+                    Double.parseDouble(System.getProperty("scale.duplicateRatio", "0.02")),
+                    skippableRatio > 0 ? (int) Math.max(1, Math.round(1 / skippableRatio)) : 0,
+                    Path.of(System.getProperty("scale.dataDir", "target/scale")),
+                    Path.of(System.getProperty("scale.report", "target/scale/scale-report.json")),
+                    Path.of(System.getProperty("scale.baseline", "scale-baseline.json")),
+                    Double.parseDouble(System.getProperty("scale.threshold", "0.30")),
+                    Long.parseLong(System.getProperty("scale.minStepMillis", "500")),
+                    Boolean.parseBoolean(System.getProperty("scale.updateBaseline", "false")));
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> d = new LinkedHashMap<>();
+            d.put("sizes", Arrays.stream(sizes).boxed().toList());
+            d.put("scenarios", scenarios);
+            d.put("seed", seed);
+            d.put("invalidRatio", invalidRatio);
+            d.put("duplicateRatio", duplicateRatio);
+            d.put("skipEvery", skipEvery);
+            d.put("threshold", threshold);
+            return d;
+        }
+
+        @Override
+        public String toString() {
+            return describe().toString();
+        }
+    }
+}
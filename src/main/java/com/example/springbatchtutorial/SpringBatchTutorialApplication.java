@@ -2,6 +2,7 @@ package com.example.springbatchtutorial;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
@@ -9,6 +10,10 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class SpringBatchTutorialApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SpringBatchTutorialApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(SpringBatchTutorialApplication.class, args);
+        // Headless runs (HeadlessJobRunner) end with the job, and exit with its exit code
+        if (context.getEnvironment().matchesProfiles("cli")) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 } 
\ No newline at end of file
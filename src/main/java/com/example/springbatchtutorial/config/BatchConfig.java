@@ -1,24 +1,56 @@
 package com.example.springbatchtutorial.config;
 
+import com.example.springbatchtutorial.jfr.DbStatementEvent;
+import com.example.springbatchtutorial.listener.BatchMetricsListener;
+import com.example.springbatchtutorial.listener.FileFlushEventListener;
+import com.example.springbatchtutorial.listener.ExecutionSummaryListener;
 import com.example.springbatchtutorial.listener.JobCompletionNotificationListener;
+import com.example.springbatchtutorial.listener.FirstChunkTimer;
+import com.example.springbatchtutorial.listener.OutputPublishListener;
+import com.example.springbatchtutorial.listener.PipelineEventsListener;
+import com.example.springbatchtutorial.listener.ProgressEventsListener;
+import com.example.springbatchtutorial.listener.SlowItemTracer;
 import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.PersonRecord;
 import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.writer.PersonLineAggregator;
+import com.example.springbatchtutorial.writer.BulkLoadTasklet;
 import com.example.springbatchtutorial.writer.UpsertPersonItemWriter;
+import com.example.springbatchtutorial.writer.WriteBehindItemWriter;
+import com.example.springbatchtutorial.pipeline.PersonPipelineTasklet;
+import com.example.springbatchtutorial.pipeline.StagedPipeline;
+import com.example.springbatchtutorial.repository.BulkLoadDialect;
 import com.example.springbatchtutorial.service.AgeCalculationService;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import com.example.springbatchtutorial.service.EmailLockStripes;
 import com.example.springbatchtutorial.service.ScenarioMode;
+import com.example.springbatchtutorial.service.DedupMode;
+import com.example.springbatchtutorial.service.LoadMode;
+import com.example.springbatchtutorial.service.EmailDeduplicationService;
+import com.example.springbatchtutorial.service.UploadIngestService;
 import com.example.springbatchtutorial.exception.AgeCalculationSkippableException;
 import com.example.springbatchtutorial.exception.AgeCalculationRetryableException;
+import com.example.springbatchtutorial.reader.PersonRowValidator;
+import com.example.springbatchtutorial.reader.StreamingCsvPersonReader;
+import com.example.springbatchtutorial.util.StringPool;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 // removed unused imports
 import org.springframework.batch.item.file.FlatFileItemWriter;
@@ -28,6 +60,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,15 +69,18 @@ import org.springframework.context.annotation.Lazy;
 // removed unused imports
 
 import org.springframework.lang.NonNull;
+import javax.sql.DataSource;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.File;
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -52,6 +88,11 @@ import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import io.micrometer.core.instrument.Counter;
 import com.example.springbatchtutorial.model.ProcessingStatus;
 
 @Configuration
@@ -62,45 +103,147 @@ public class BatchConfig {
     @Value("${batch.csv.file.path:input/persons.csv}")
     private String csvFilePath;
 
+    // Step 3 output, also what the staged pipeline exports to and what /api/output publishes
+    @Value("${batch.output.file:output/persons_with_age.txt}")
+    private String outputFile;
+
+    // Step 2 skip limit; large scale runs with PARTIAL skip far more than the demo default
+    @Value("${batch.step2.skip-limit:100}")
+    private int step2SkipLimit;
+
+    // Share identical first/last name strings between in-flight records (bounded per reader)
+    @Value("${batch.pipeline.intern-strings:true}")
+    private boolean internStrings;
+
+    // Slow-item tracing: fraction of items sampled (0 = tracer not registered) and how many of the slowest are kept per step
+    @Value("${batch.tracing.sample-rate:0}")
+    private double traceSampleRate;
+    @Value("${batch.tracing.top-n:10}")
+    private int traceTopN;
+
+    // Write-behind for steps 1 and 2: upserts leave the chunk on writer threads (lanes), batched per transaction
+    @Value("${batch.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+    @Value("${batch.write-behind.lanes:2}")
+    private int writeBehindLanes;
+    @Value("${batch.write-behind.queue-capacity:1000}")
+    private int writeBehindQueueCapacity;
+    @Value("${batch.write-behind.batch-size:500}")
+    private int writeBehindBatchSize;
+
+    // loadMode=PIPELINE: threads of the stages that may run in parallel, batch sizes and the queue in front of each stage
+    @Value("${batch.staged-pipeline.validate-threads:1}")
+    private int pipelineValidateThreads;
+    @Value("${batch.staged-pipeline.age-threads:4}")
+    private int pipelineAgeThreads;
+    @Value("${batch.staged-pipeline.batch-size:500}")
+    private int pipelineBatchSize;
+    @Value("${batch.staged-pipeline.age-batch-size:100}")
+    private int pipelineAgeBatchSize;
+    @Value("${batch.staged-pipeline.queue-capacity:2000}")
+    private int pipelineQueueCapacity;
+
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
     private final PersonRepository personRepository;
     private final AgeCalculationService ageCalculationService;
+    private final EmailDeduplicationService emailDeduplicationService;
     private final JobCompletionNotificationListener jobCompletionNotificationListener;
+    private final BatchMetrics batchMetrics;
+    private final EmailLockStripes emailLockStripes;
+    private final PipelineEventsListener pipelineEventsListener;
+    private final FirstChunkTimer firstChunkTimer;
+    private final FileFlushEventListener fileFlushEventListener;
+    private final ProgressEventsListener progressEventsListener;
+    private final ExecutionSummaryListener executionSummaryListener;
+    private final OutputPublishListener outputPublishListener;
 
-    // Step-scoped bean proxies injected by name
-    @Autowired @Lazy @Qualifier("csvItemReader")
-    private ItemReader<Person> csvItemReader;
-    @Autowired @Lazy @Qualifier("databaseItemReader")
-    private ItemReader<Person> databaseItemReader;
-    @Autowired @Lazy @Qualifier("fileOutputDatabaseReader")
-    private ItemReader<Person> fileOutputDatabaseReader;
-    @Autowired @Lazy @Qualifier("ageCalculationProcessor")
-    private ItemProcessor<Person, Person> ageCalculationProcessor;
+    // Step-scoped bean proxies injected by name. Not lazy: they are called for every item (step 2 once per retry
+    // pass), and a lazy proxy resolves its target from the bean factory on each call
+    @Autowired @Qualifier("csvItemReader")
+    private ItemReader<PersonRecord> csvItemReader;
+    @Autowired @Qualifier("databaseItemReader")
+    private ItemStreamReader<PersonRecord> databaseItemReader;
+    @Autowired @Qualifier("fileOutputDatabaseReader")
+    private ItemReader<PersonRecord> fileOutputDatabaseReader;
+    @Autowired @Qualifier("ageCalculationProcessor")
+    private ItemProcessor<PersonRecord, PersonRecord> ageCalculationProcessor;
     @Autowired @Lazy @Qualifier("jpaItemWriter")
     private ItemWriter<Person> jpaItemWriter;
     @Autowired @Lazy @Qualifier("fileItemWriter")
-    private FlatFileItemWriter<Person> flatFileItemWriter;
+    private FlatFileItemWriter<PersonRecord> flatFileItemWriter;
+    @Autowired @Lazy @Qualifier("bulkLoadTasklet")
+    private BulkLoadTasklet bulkLoadTasklet;
+    @Autowired @Lazy @Qualifier("personPipelineTasklet")
+    private PersonPipelineTasklet personPipelineTasklet;
+    // Lazy: the upload service launches processPersonJob
+    @Autowired @Lazy
+    private UploadIngestService uploadIngestService;
 
     @Bean
     public Job processPersonJob() {
         log.info("🔧 Creating Spring Batch job: processPersonJob");
         return new JobBuilder("processPersonJob", jobRepository)
                 .listener(jobCompletionNotificationListener)
-                .start(step1SaveToDatabase())
-                .next(step2CalculateAge())
-                .next(step3WriteToFile())
+                .listener(progressEventsListener)
+                .listener(executionSummaryListener)
+                .listener(outputPublishListener)
+                .start(loadModeDecider())
+                    .on(LoadMode.BULK.name()).to(step1BulkLoad()).next(step2CalculateAge())
+                .from(loadModeDecider())
+                    .on(LoadMode.PIPELINE.name()).to(stagedPipelineStep())
+                .from(loadModeDecider())
+                    .on("*").to(step1SaveToDatabase()).next(step2CalculateAge())
+                .from(step2CalculateAge()).next(step3WriteToFile())
+                .end()
+                .build();
+    }
+
+    /** Routes by the {@code loadMode} job parameter: {@code ROW} (default), {@code BULK} or {@code PIPELINE}. */
+    @Bean
+    public JobExecutionDecider loadModeDecider() {
+        return (jobExecution, stepExecution) -> {
+            String loadMode = jobExecution.getJobParameters().getString(LoadMode.PARAMETER);
+            return new FlowExecutionStatus(loadMode != null ? LoadMode.valueOf(loadMode.trim().toUpperCase()).name()
+                    : LoadMode.ROW.name());
+        };
+    }
+
+    @Bean
+    public Step step1BulkLoad() {
+        log.info("📦 Configuring Step 1 (bulk): native CSV import, set-based validation and merge");
+        return new StepBuilder("step1BulkLoad", jobRepository)
+                .tasklet(bulkLoadTasklet, transactionManager)
+                .listener((StepExecutionListener) bulkLoadTasklet)
+                .listener(pipelineEventsListener)
+                .listener(firstChunkTimer)
+                .listener((StepExecutionListener) executionSummaryListener)
+                .listener((StepExecutionListener) progressEventsListener)
+                .listener((ChunkListener) progressEventsListener)
+                .build();
+    }
+
+    @Bean
+    public Step stagedPipelineStep() {
+        log.info("🧵 Configuring the staged pipeline step: parse, validate, age, persist and export on their own threads");
+        return new StepBuilder("stagedPipelineStep", jobRepository)
+                .tasklet(personPipelineTasklet, transactionManager)
+                .listener((StepExecutionListener) personPipelineTasklet)
+                .listener(pipelineEventsListener)
+                .listener(firstChunkTimer)
+                .listener((StepExecutionListener) executionSummaryListener)
+                .listener((StepExecutionListener) progressEventsListener)
+                .listener((ChunkListener) progressEventsListener)
                 .build();
     }
 
     @Bean
     public Step step1SaveToDatabase() {
         log.info("📝 Configuring Step 1: Save CSV data to database");
-        return new StepBuilder("step1SaveToDatabase", jobRepository)
-                .<Person, Person>chunk(100, transactionManager)
+        return withPersonWriter(instrumentedPerItem(new StepBuilder("step1SaveToDatabase", jobRepository)
+                .<PersonRecord, PersonRecord>chunk(100, transactionManager)
                 .reader(csvItemReader)
-                .writer(upsertPersonItemWriter())
-                .listener((StepExecutionListener) upsertPersonItemWriter())
+                .writer(personWriter())))
                 .listener(new StepExecutionListener() {
                     @Override
                     public void beforeStep(@NonNull StepExecution stepExecution) {
@@ -115,6 +258,9 @@ public class BatchConfig {
                         log.info("   - Read count: {}", stepExecution.getReadCount());
                         log.info("   - Write count: {}", stepExecution.getWriteCount());
                         log.info("   - Skip count: {}", stepExecution.getSkipCount());
+                        if (stepExecution.getExecutionContext().containsKey("dedup.collapsed.count")) {
+                            log.info("   - Duplicate emails collapsed: {}", stepExecution.getExecutionContext().getInt("dedup.collapsed.count"));
+                        }
                         if (stepExecution.getEndTime() != null && stepExecution.getStartTime() != null) {
                             long duration = Duration.between(stepExecution.getStartTime(), stepExecution.getEndTime()).toMillis();
                             log.info("   - Duration: {}ms", duration);
@@ -135,15 +281,15 @@ public class BatchConfig {
     @Bean
     public Step step2CalculateAge() {
         log.info("🧮 Configuring Step 2: Calculate age for all persons");
-        return new StepBuilder("step2CalculateAge", jobRepository)
-                .<Person, Person>chunk(500, transactionManager)
+        return withPersonWriter(instrumentedPerItem(new StepBuilder("step2CalculateAge", jobRepository)
+                .<PersonRecord, PersonRecord>chunk(500, transactionManager)
                 .reader(databaseItemReader)
                 .processor(ageCalculationProcessor)
-                .writer(batchThenUpsertWriter())
-                .listener((StepExecutionListener) upsertPersonItemWriter())
+                .writer(batchThenUpsertWriter())))
                 .faultTolerant()
+                .listener((SkipListener<PersonRecord, PersonRecord>) batchMetricsListener())
                 .skip(AgeCalculationSkippableException.class)
-                .skipLimit(100)
+                .skipLimit(step2SkipLimit)
                 .retry(AgeCalculationRetryableException.class)
                 .retryLimit(3)
                 .listener(new StepExecutionListener() {
@@ -172,17 +318,23 @@ public class BatchConfig {
                         return ExitStatus.COMPLETED;
                     }
                 })
-                .listener(new SkipListener<Person, Person>() {
+                .listener(new SkipListener<PersonRecord, PersonRecord>() {
                     @Override
-                    public void onSkipInProcess(@NonNull Person item, @NonNull Throwable t) {
+                    public void onSkipInProcess(@NonNull PersonRecord item, @NonNull Throwable t) {
                         String reason = t != null ? t.getMessage() : "Unknown";
-                        log.warn("⚠️ Skipped during processing: {} {} ({}). Reason: {}", item.getFirstName(), item.getLastName(), item.getEmail(), reason);
+                        log.warn("⚠️ Skipped during processing: {} {} ({}). Reason: {}", item.firstName(), item.lastName(), item.email(), reason);
                         // Mark the item as REJECTED so future processes can avoid it
                         try {
-                            var existing = personRepository.findByEmail(item.getEmail());
+                            DbStatementEvent lookup = DbStatementEvent.start("findByEmail");
+                            var existing = personRepository.findByEmail(item.email());
+                            lookup.finish(existing.isPresent() ? 1 : 0);
                             existing.ifPresent(p -> {
                                 p.setProcessingStatus(ProcessingStatus.REJECTED);
+                                DbStatementEvent save = DbStatementEvent.start("save");
                                 personRepository.save(p);
+                                save.finish(1);
+                                batchMetrics.counter("batch.items.rejected", "Items rejected by validation or marked REJECTED",
+                                        batchMetrics.currentTags()).increment();
                             });
                         } catch (Exception ignore) { }
                     }
@@ -193,44 +345,90 @@ public class BatchConfig {
                     }
 
                     @Override
-                    public void onSkipInWrite(@NonNull Person item, @NonNull Throwable t) {
+                    public void onSkipInWrite(@NonNull PersonRecord item, @NonNull Throwable t) {
                         String reason = t != null ? t.getMessage() : "Unknown";
-                        log.warn("⚠️ Skipped during write: {} {} ({}). Reason: {}", item.getFirstName(), item.getLastName(), item.getEmail(), reason);
+                        log.warn("⚠️ Skipped during write: {} {} ({}). Reason: {}", item.firstName(), item.lastName(), item.email(), reason);
                     }
                 })
+                // Registered last: faultTolerant() starts a new builder that drops streams registered before it
+                .stream(personWriter())
                 .build();
     }
 
+    /**
+     * Registers the lag gauges of {@link BatchMetricsListener}, the JFR chunk events of {@link PipelineEventsListener},
+     * the dashboard push of {@link ProgressEventsListener} and the summary table updates of
+     * {@link ExecutionSummaryListener} on a step. None of them has item callbacks.
+     */
+    private SimpleStepBuilder<PersonRecord, PersonRecord> instrumented(SimpleStepBuilder<PersonRecord, PersonRecord> step) {
+        return step
+                .listener(pipelineEventsListener)
+                .listener(firstChunkTimer)
+                .listener((StepExecutionListener) executionSummaryListener)
+                .listener((StepExecutionListener) progressEventsListener)
+                .listener((ChunkListener) progressEventsListener)
+                .listener((StepExecutionListener) batchMetricsListener())
+                .listener((ChunkListener) batchMetricsListener());
+    }
+
+    /**
+     * {@link #instrumented} plus the per-chunk phase timers of {@link BatchMetricsListener} and, when
+     * {@code batch.tracing.sample-rate} is above 0, the {@link SlowItemTracer}. Only steps 1 and 2 pay for item
+     * callbacks; step 3 only copies rows to the file.
+     */
+    private SimpleStepBuilder<PersonRecord, PersonRecord> instrumentedPerItem(SimpleStepBuilder<PersonRecord, PersonRecord> step) {
+        instrumented(step)
+                .listener((ItemReadListener<PersonRecord>) batchMetricsListener())
+                .listener((ItemProcessListener<PersonRecord, PersonRecord>) batchMetricsListener())
+                .listener((ItemWriteListener<PersonRecord>) batchMetricsListener());
+        if (traceSampleRate <= 0) {
+            return step;
+        }
+        return step
+                .listener((StepExecutionListener) slowItemTracer())
+                .listener((ChunkListener) slowItemTracer())
+                .listener((ItemReadListener<PersonRecord>) slowItemTracer())
+                .listener((ItemProcessListener<PersonRecord, PersonRecord>) slowItemTracer())
+                .listener((ItemWriteListener<PersonRecord>) slowItemTracer());
+    }
+
+    /**
+     * Registers {@link #personWriter()} for its step callbacks, and with write-behind also for the reads, which it
+     * checkpoints by.
+     */
+    private SimpleStepBuilder<PersonRecord, PersonRecord> withPersonWriter(SimpleStepBuilder<PersonRecord, PersonRecord> step) {
+        step.listener((StepExecutionListener) personWriter());
+        return writeBehindEnabled ? step.listener((ItemReadListener<Object>) personWriter()) : step;
+    }
+
     @Bean
-    public ItemWriter<Person> batchThenUpsertWriter() {
+    public ItemWriter<PersonRecord> batchThenUpsertWriter() {
         return items -> {
             if (items == null || items.isEmpty()) {
                 return;
             }
-            java.util.List<Person> batch = new java.util.ArrayList<>(items.size());
-            for (Person p : items) {
-                batch.add(p);
-            }
-            // One API call per chunk (size 5) to calculate ages for all persons in the chunk
-            ageCalculationService.calculateAgesForPersons(batch);
-            // Then upsert to DB using the same chunk
-            upsertPersonItemWriter().write(items);
+            // One API call per chunk to calculate ages for all persons in the chunk (records are immutable,
+            // so the service hands back aged copies)
+            List<PersonRecord> withAges = ageCalculationService.calculateAgesForPersons(new ArrayList<>(items.getItems()));
+            // Then upsert to DB
+            personWriter().write(new Chunk<>(withAges));
         };
     }
 
     @Bean
     public Step step3WriteToFile() {
         log.info("📄 Configuring Step 3: Write results to output file");
-        return new StepBuilder("step3WriteToFile", jobRepository)
-                .<Person, Person>chunk(10, transactionManager)
+        return instrumented(new StepBuilder("step3WriteToFile", jobRepository)
+                .<PersonRecord, PersonRecord>chunk(10, transactionManager)
                 .reader(fileOutputDatabaseReader)
-                .writer(flatFileItemWriter)
+                .writer(flatFileItemWriter))
+                .listener(fileFlushEventListener)
                 .listener(new StepExecutionListener() {
                     @Override
                     public void beforeStep(@NonNull StepExecution stepExecution) {
                         log.info("🚀 Starting Step 3: Writing results to file");
                         log.info("   - Chunk size: 10");
-                        log.info("   - Output file: output/persons_with_age.txt");
+                        log.info("   - Output file: {}", outputFile);
                         log.info("   - Step name: {}", stepExecution.getStepName());
                     }
 
@@ -252,42 +450,102 @@ public class BatchConfig {
 
     @Bean
     @StepScope
-    public ItemReader<Person> csvItemReader(@Value("#{jobParameters['csvPath']}") String csvPathParam) {
+    public ItemReader<PersonRecord> csvItemReader(@Value("#{jobParameters['csvPath']}") String csvPathParam,
+                                            @Value("#{jobParameters['csvPaths']}") String csvPathsParam,
+                                            @Value("#{jobParameters['dedupMode']}") String dedupModeParam,
+                                            @Value("#{jobParameters['uploadId']}") String uploadIdParam,
+                                            @Value("#{stepExecution}") StepExecution stepExecution) {
         log.info("📖 Creating CSV item reader");
-        return new ItemReader<Person>() {
-            private List<Person> persons;
+        final DedupMode dedupMode = dedupModeParam != null ? DedupMode.valueOf(dedupModeParam) : DedupMode.NONE;
+        // A live upload is read as it arrives; a restart finds no live body and reads the spool at csvPath
+        InputStream upload = uploadIdParam != null ? uploadIngestService.attach(uploadIdParam) : null;
+        StreamingCsvPersonReader streaming = null;
+        if (upload != null) {
+            log.info("📥 Reading upload {} while it is received", uploadIdParam);
+            Counter rejected = batchMetrics.counter("batch.items.rejected", "Items rejected by validation or marked REJECTED",
+                    batchMetrics.tags(stepExecution));
+            streaming = new StreamingCsvPersonReader(new InputStreamReader(upload, StandardCharsets.UTF_8),
+                    new PersonRowValidator(internStrings ? new StringPool(4096) : null),
+                    (lineNo, rule, error) -> {
+                        rejected.increment();
+                        countRejected(stepExecution);
+                        log.warn("⚠️ {}", error);
+                    });
+            if (dedupMode == DedupMode.NONE) {
+                return streaming;
+            }
+        }
+        final StreamingCsvPersonReader uploadReader = streaming;
+        return new ItemReader<PersonRecord>() {
+            private List<PersonRecord> persons;
             private int currentIndex = 0;
 
             @Override
-            public Person read() {
+            public PersonRecord read() {
                 if (persons == null) {
                     log.info("🔄 Initializing CSV reader - loading data from file");
-                    persons = readCsvFile();
+                    persons = uploadReader != null ? readUpload() : csvPathsParam != null ? readCsvFiles() : readCsvFile();
                     log.info("📊 Loaded {} persons from CSV file", persons.size());
+                    if (dedupMode != DedupMode.NONE) {
+                        int before = persons.size();
+                        persons = emailDeduplicationService.collapse(persons, dedupMode);
+                        stepExecution.getExecutionContext().putInt("dedup.collapsed.count", before - persons.size());
+                    }
                 }
                 
                 if (currentIndex < persons.size()) {
-                    Person person = persons.get(currentIndex++);
-                    log.debug("📖 Reading person {}: {} {} ({})", currentIndex, person.getFirstName(), person.getLastName(), person.getEmail());
+                    PersonRecord person = persons.get(currentIndex++);
+                    log.debug("📖 Reading person {}: {} {} ({})", currentIndex, person.firstName(), person.lastName(), person.email());
                     return person;
                 }
                 log.info("🏁 Finished reading CSV data - processed {} persons", persons.size());
                 return null;
             }
 
-            private List<Person> readCsvFile() {
-                List<Person> personList = new ArrayList<>();
+            // Deduplication needs every row first, so an upload is read to the end before the first write
+            private List<PersonRecord> readUpload() {
+                List<PersonRecord> personList = new ArrayList<>();
+                PersonRecord person;
+                while ((person = uploadReader.read()) != null) {
+                    personList.add(person);
+                }
+                return personList;
+            }
+
+            // A coalesced run (IngestDirectoryWatcher): one path per line, all read in order; no fallback locations
+            private List<PersonRecord> readCsvFiles() {
+                List<PersonRecord> personList = new ArrayList<>();
+                List<String> files = csvPathsParam.lines().filter(path -> !path.isBlank()).toList();
+                for (String path : files) {
+                    if (!new File(path).isFile()) {
+                        throw new RuntimeException("CSV file not found: " + path);
+                    }
+                    parseCsvFile(path, personList);
+                }
+                if (personList.isEmpty()) {
+                    log.error("❌ No valid records found in {} CSV files. Job will fail.", files.size());
+                    throw new RuntimeException("No valid records found in CSV file. Please check the input data.");
+                }
+                log.info("📊 Successfully parsed {} persons from {} CSV files", personList.size(), files.size());
+                return personList;
+            }
+
+            private List<PersonRecord> readCsvFile() {
+                List<PersonRecord> personList = new ArrayList<>();
                 
                 // Try the configured path first, then fallback to common locations
                 List<String> paths = new ArrayList<>();
                 if (csvPathParam != null && !csvPathParam.isBlank()) {
                     paths.add(csvPathParam);
                 }
-                paths.add(csvFilePath);  // configured default
-                paths.add("input/persons.csv");
-                paths.add("persons.csv");
-                paths.add("data/persons.csv");
-                paths.add("csv/persons.csv");
+                // An upload is only ever its own spool; never fall back to some other file
+                if (uploadIdParam == null) {
+                    paths.add(csvFilePath);  // configured default
+                    paths.add("input/persons.csv");
+                    paths.add("persons.csv");
+                    paths.add("data/persons.csv");
+                    paths.add("csv/persons.csv");
+                }
                 
                 String actualFilePath = null;
                 File file = null;
@@ -309,8 +567,20 @@ public class BatchConfig {
                     throw new RuntimeException("CSV file not found. Please ensure persons.csv exists in one of the expected locations.");
                 }
                 
+                int validLines = parseCsvFile(actualFilePath, personList);
+                if (validLines == 0) {
+                    log.error("❌ No valid records found in CSV file. Job will fail.");
+                    throw new RuntimeException("No valid records found in CSV file. Please check the input data.");
+                }
+                
+                log.info("📊 Successfully parsed {} persons from CSV file", personList.size());
+                return personList;
+            }
+
+            /** Appends the valid rows of one file to {@code personList} and returns how many there were. */
+            private int parseCsvFile(String actualFilePath, List<PersonRecord> personList) {
                 log.info("📂 Reading CSV file: {}", actualFilePath);
-                log.info("📄 File exists, size: {} bytes", (file != null ? file.length() : 0));
+                log.info("📄 File exists, size: {} bytes", new File(actualFilePath).length());
                 
                 int totalLines = 0;
                 int validLines = 0;
@@ -323,86 +593,29 @@ public class BatchConfig {
                     log.info("📋 CSV Header: {}", String.join(", ", header));
                     
                     String[] line;
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+                    PersonRowValidator validator = new PersonRowValidator(internStrings ? new StringPool(4096) : null);
+                    Counter rejected = batchMetrics.counter("batch.items.rejected", "Items rejected by validation or marked REJECTED",
+                            batchMetrics.tags(stepExecution));
+                    PersonRowValidator.RejectionHandler rejections = (lineNo, rule, error) -> {
+                        rejected.increment();
+                        countRejected(stepExecution);
+                        validationErrors.add(error);
+                        log.warn("⚠️ {}", error);
+                    };
                     int lineNumber = 1;
                     
                     while ((line = reader.readNext()) != null) {
                         lineNumber++;
                         totalLines++;
                         
-                        // Validate line structure
-                        if (line.length < 4) {
-                            String error = String.format("Line %d: Insufficient columns (expected 4, got %d)", lineNumber, line.length);
-                            validationErrors.add(error);
-                            log.warn("⚠️ {}", error);
+                        PersonRecord person = validator.validate(line, lineNumber, rejections);
+                        if (person == null) {
                             invalidLines++;
                             continue;
                         }
-                        
-                        // Validate individual fields
-                        String firstName = line[0] != null ? line[0].trim() : "";
-                        String lastName = line[1] != null ? line[1].trim() : "";
-                        String email = line[2] != null ? line[2].trim() : "";
-                        String dateOfBirthStr = line[3] != null ? line[3].trim() : "";
-                        
-                        // Check for empty required fields
-                        if (firstName.isEmpty() || lastName.isEmpty() || email.isEmpty() || dateOfBirthStr.isEmpty()) {
-                            String error = String.format("Line %d: Empty required field - FirstName: '%s', LastName: '%s', Email: '%s', DateOfBirth: '%s'", 
-                                lineNumber, firstName, lastName, email, dateOfBirthStr);
-                            validationErrors.add(error);
-                            log.warn("⚠️ {}", error);
-                            invalidLines++;
-                            continue;
-                        }
-                        
-                        // Validate email format (basic validation)
-                        if (!email.contains("@")) {
-                            String error = String.format("Line %d: Invalid email format: %s", lineNumber, email);
-                            validationErrors.add(error);
-                            log.warn("⚠️ {}", error);
-                            invalidLines++;
-                            continue;
-                        }
-                        
-                        // Validate and parse date
-                        try {
-                            LocalDate dateOfBirth = LocalDate.parse(dateOfBirthStr, formatter);
-                            
-                            // Validate date is not in the future
-                            if (dateOfBirth.isAfter(LocalDate.now())) {
-                                String error = String.format("Line %d: Date of birth is in the future: %s", lineNumber, dateOfBirthStr);
-                                validationErrors.add(error);
-                                log.warn("⚠️ {}", error);
-                                invalidLines++;
-                                continue;
-                            }
-                            
-                            // Validate reasonable age (not older than 150 years)
-                            if (dateOfBirth.isBefore(LocalDate.now().minusYears(150))) {
-                                String error = String.format("Line %d: Date of birth seems unrealistic: %s", lineNumber, dateOfBirthStr);
-                                validationErrors.add(error);
-                                log.warn("⚠️ {}", error);
-                                invalidLines++;
-                                continue;
-                            }
-                            
-                            // Create person object
-                            Person person = new Person(firstName, lastName, email, dateOfBirth);
-                            personList.add(person);
-                            validLines++;
-                            log.debug("✅ Parsed line {}: {} {} ({})", lineNumber, person.getFirstName(), person.getLastName(), person.getEmail());
-                            
-                        } catch (DateTimeParseException e) {
-                            String error = String.format("Line %d: Invalid date format '%s'. Expected format: yyyy-MM-dd", lineNumber, dateOfBirthStr);
-                            validationErrors.add(error);
-                            log.warn("⚠️ {} - Error: {}", error, e.getMessage());
-                            invalidLines++;
-                        } catch (Exception e) {
-                            String error = String.format("Line %d: Unexpected error parsing line: %s", lineNumber, String.join(",", line));
-                            validationErrors.add(error);
-                            log.warn("⚠️ {} - Error: {}", error, e.getMessage());
-                            invalidLines++;
-                        }
+                        personList.add(person);
+                        validLines++;
+                        log.debug("✅ Parsed line {}: {} {} ({})", lineNumber, person.firstName(), person.lastName(), person.email());
                     }
                 } catch (IOException | CsvValidationException e) {
                     String error = String.format("❌ Error reading CSV file: %s", e.getMessage());
@@ -421,42 +634,65 @@ public class BatchConfig {
                     log.warn("⚠️ Validation Errors Summary:");
                     validationErrors.forEach(error -> log.warn("   - {}", error));
                 }
-                
-                if (validLines == 0) {
-                    log.error("❌ No valid records found in CSV file. Job will fail.");
-                    throw new RuntimeException("No valid records found in CSV file. Please check the input data.");
-                }
-                
-                log.info("📊 Successfully parsed {} persons from CSV file", personList.size());
-                return personList;
+                return validLines;
             }
         };
     }
 
+    /** Rejected rows per step execution, the {@code rejected.count} the bulk load path reports as well. */
+    private static void countRejected(StepExecution stepExecution) {
+        var context = stepExecution.getExecutionContext();
+        context.putInt("rejected.count", context.getInt("rejected.count", 0) + 1);
+    }
+
+    /**
+     * Step 2 reader: the persons step 1 stored for this execution, in id order. A restart first takes over the rows
+     * of the instance's earlier executions, then skips what the failed run committed: the write-behind durable count,
+     * or the read position without write-behind.
+     */
     @Bean
     @StepScope
-    public ItemReader<Person> databaseItemReader(@Value("#{stepExecution.jobExecution.id}") Long jobExecutionId) {
+    public ItemStreamReader<PersonRecord> databaseItemReader(@Value("#{stepExecution}") StepExecution stepExecution) {
         log.info("🗄️ Creating database item reader");
-        return new ItemReader<Person>() {
-            private List<Person> persons;
+        Long jobExecutionId = stepExecution.getJobExecutionId();
+        return new ItemStreamReader<PersonRecord>() {
+            private static final String POSITION_KEY = "database.reader.position";
+            private List<PersonRecord> persons;
             private int currentIndex = 0;
 
             @Override
-            public Person read() {
+            public void open(@NonNull ExecutionContext executionContext) {
+                if (!executionContext.containsKey(POSITION_KEY)) {
+                    return;
+                }
+                List<Long> previousIds = jobRepository.findJobExecutions(stepExecution.getJobExecution().getJobInstance()).stream()
+                        .map(JobExecution::getId)
+                        .filter(id -> !id.equals(jobExecutionId))
+                        .toList();
+                int taken = previousIds.isEmpty() ? 0 : personRepository.takeOverJobExecutions(jobExecutionId, previousIds);
+                currentIndex = (int) executionContext.getLong(WriteBehindItemWriter.DURABLE_COUNT_KEY, executionContext.getLong(POSITION_KEY));
+                log.info("🔁 Restarting the database reader at item {} ({} persons taken over from executions {})",
+                        currentIndex, taken, previousIds);
+            }
+
+            @Override
+            public void update(@NonNull ExecutionContext executionContext) {
+                executionContext.putLong(POSITION_KEY, currentIndex);
+            }
+
+            @Override
+            public PersonRecord read() {
                 if (persons == null) {
                     log.info("🔄 Initializing database reader - loading all persons");
-                    if (jobExecutionId != null) {
-                        persons = personRepository.findAllByJobExecutionId(jobExecutionId);
-                        log.info("📊 Loaded {} persons from database for execution {}", persons.size(), jobExecutionId);
-                    } else {
-                        persons = personRepository.findAll();
-                        log.info("📊 Loaded {} persons from database (no execution filter)", persons.size());
-                    }
+                    DbStatementEvent load = DbStatementEvent.start("findRecordsByJobExecutionId");
+                    persons = personRepository.findRecordsByJobExecutionId(jobExecutionId);
+                    log.info("📊 Loaded {} persons from database for execution {}", persons.size(), jobExecutionId);
+                    load.finish(persons.size());
                 }
                 
                 if (currentIndex < persons.size()) {
-                    Person person = persons.get(currentIndex++);
-                    log.debug("🗄️ Reading person {} from DB: {} {} (Age: {})", currentIndex, person.getFirstName(), person.getLastName(), person.getAge());
+                    PersonRecord person = persons.get(currentIndex++);
+                    log.debug("🗄️ Reading person {} from DB: {} {} (Age: {})", currentIndex, person.firstName(), person.lastName(), person.age());
                     return person;
                 }
                 log.info("🏁 Finished reading from database - processed {} persons", persons.size());
@@ -467,26 +703,27 @@ public class BatchConfig {
 
     @Bean
     @StepScope
-    public ItemReader<Person> fileOutputDatabaseReader(@Value("#{stepExecution.jobExecution.id}") Long jobExecutionId) {
+    public ItemReader<PersonRecord> fileOutputDatabaseReader(@Value("#{stepExecution.jobExecution.id}") Long jobExecutionId) {
         log.info("📄 Creating database item reader for file output");
-        return new ItemReader<Person>() {
-            private List<Person> persons;
+        return new ItemReader<PersonRecord>() {
+            private List<PersonRecord> persons;
             private int currentIndex = 0;
 
             @Override
-            public Person read() {
+            public PersonRecord read() {
                 if (persons == null) {
                     log.info("🔄 Initializing file output database reader - loading all persons");
-                    List<Person> base = (jobExecutionId != null)
-                            ? personRepository.findAllByJobExecutionId(jobExecutionId)
-                            : personRepository.findAll();
-                    persons = base.stream().filter(p -> p.getAge() != null).collect(Collectors.toList());
+                    DbStatementEvent load = DbStatementEvent.start(jobExecutionId != null ? "findRecordsWithAgeByJobExecutionId" : "findAllRecords");
+                    persons = (jobExecutionId != null)
+                            ? personRepository.findRecordsWithAgeByJobExecutionId(jobExecutionId)
+                            : personRepository.findAllRecords().stream().filter(PersonRecord::hasAge).collect(Collectors.toList());
+                    load.finish(persons.size());
                     log.info("📊 Loaded {} persons from database for file output (exec={}, age != null)", persons.size(), jobExecutionId);
                 }
                 
                 if (currentIndex < persons.size()) {
-                    Person person = persons.get(currentIndex++);
-                    log.debug("📄 Reading person {} for file output: {} {} (Age: {})", currentIndex, person.getFirstName(), person.getLastName(), person.getAge());
+                    PersonRecord person = persons.get(currentIndex++);
+                    log.debug("📄 Reading person {} for file output: {} {} (Age: {})", currentIndex, person.firstName(), person.lastName(), person.age());
                     return person;
                 }
                 log.info("🏁 Finished reading from database for file output - processed {} persons", persons.size());
@@ -497,7 +734,7 @@ public class BatchConfig {
 
     @Bean
     @StepScope
-    public ItemProcessor<Person, Person> ageCalculationProcessor(
+    public ItemProcessor<PersonRecord, PersonRecord> ageCalculationProcessor(
             @Value("#{jobParameters['scenario']}") String scenarioParam,
             @Value("#{jobParameters['skipEvery']}") String skipEveryParam,
             @Value("#{jobParameters['retryAttempts']}") String retryAttemptsParam
@@ -513,7 +750,7 @@ public class BatchConfig {
         final AtomicInteger apiItemCounter = new AtomicInteger(0); // counts actual API calls to log batches of 5
 
         return person -> {
-            log.debug("🧮 Processing age for: {} {} ({})", person.getFirstName(), person.getLastName(), person.getEmail());
+            log.debug("🧮 Processing age for: {} {} ({})", person.firstName(), person.lastName(), person.email());
 
             switch (scenario) {
                 case FAIL -> {
@@ -526,7 +763,7 @@ public class BatchConfig {
                     }
                 }
                 case RETRYABLE -> {
-                    String key = person.getEmail();
+                    String key = person.email();
                     int attempts = emailToAttempts.merge(key, 1, Integer::sum);
                     if (attempts <= retryAttempts) {
                         throw new AgeCalculationRetryableException("Simulated transient error attempt " + attempts + " for " + key);
@@ -538,10 +775,9 @@ public class BatchConfig {
             }
 
             // No per-item API call anymore; processor only handles scenario logic and returns person as-is.
-            Person updatedPerson = person;
             // Age is calculated in the batch writer (one API call per chunk). Keep processor logs minimal.
-            log.debug("⏭️ Age will be calculated in batch writer for {} {}", updatedPerson.getFirstName(), updatedPerson.getLastName());
-            return updatedPerson;
+            log.debug("⏭️ Age will be calculated in batch writer for {} {}", person.firstName(), person.lastName());
+            return person;
         };
     }
 
@@ -580,21 +816,17 @@ public class BatchConfig {
     }
 
     @Bean
-    public FlatFileItemWriter<Person> fileItemWriter() {
+    public FlatFileItemWriter<PersonRecord> fileItemWriter() {
         log.info("📄 Creating flat file item writer");
         // Ensure output directory exists for demo friendliness
-        File outDir = new File("output");
+        File outDir = new File(outputFile).getAbsoluteFile().getParentFile();
         if (!outDir.exists() && outDir.mkdirs()) {
             log.info("📁 Created output directory at {}", outDir.getAbsolutePath());
         }
-        return new FlatFileItemWriterBuilder<Person>()
+        return new FlatFileItemWriterBuilder<PersonRecord>()
                 .name("personFileWriter")
-                .resource(new FileSystemResource("output/persons_with_age.txt"))
-                .lineAggregator(item -> {
-                    String line = item.getFirstName() + "," + item.getAge();
-                    log.debug("📝 Writing line to file: {}", line);
-                    return line;
-                })
+                .resource(new FileSystemResource(outputFile))
+                .lineAggregator(new PersonLineAggregator())
                 .shouldDeleteIfExists(true)
                 .build();
     }
@@ -602,6 +834,63 @@ public class BatchConfig {
     @Bean
     @StepScope
     public UpsertPersonItemWriter upsertPersonItemWriter() {
-        return new UpsertPersonItemWriter(personRepository);
+        UpsertPersonItemWriter writer = new UpsertPersonItemWriter(personRepository, batchMetrics);
+        writer.setTracer(slowItemTracer());
+        writer.setLocks(emailLockStripes);
+        return writer;
+    }
+
+    /**
+     * The writer steps 1 and 2 hand their chunks to: the upsert writer itself, or with {@code batch.write-behind.enabled}
+     * a write-behind stage in front of a private one. That one has no slow-item tracer, which is not thread-safe.
+     */
+    @Bean
+    @StepScope
+    public WriteBehindItemWriter<PersonRecord> personWriter() {
+        if (!writeBehindEnabled) {
+            return new WriteBehindItemWriter<>(upsertPersonItemWriter());
+        }
+        UpsertPersonItemWriter writer = new UpsertPersonItemWriter(personRepository, batchMetrics);
+        writer.setLocks(emailLockStripes);
+        // Lanes by lock stripe: the inserts of one lane never wait for the stripes another lane holds
+        return new WriteBehindItemWriter<>(writer, record -> emailLockStripes.stripeOf(record.email()),
+                transactionManager, batchMetrics, writeBehindLanes, writeBehindQueueCapacity, writeBehindBatchSize);
+    }
+
+    @Bean
+    @StepScope
+    public BulkLoadTasklet bulkLoadTasklet(@Value("#{jobParameters['csvPath']}") String csvPathParam,
+                                           DataSource dataSource, BulkLoadDialect bulkLoadDialect) {
+        return new BulkLoadTasklet(new JdbcTemplate(dataSource), bulkLoadDialect, batchMetrics,
+                csvPathParam != null && !csvPathParam.isBlank() ? csvPathParam : csvFilePath);
+    }
+
+    /**
+     * Parse, export and persist run on one thread each: the first two own a file, and persist must see the rows of an
+     * email in file order.
+     */
+    @Bean
+    @StepScope
+    public PersonPipelineTasklet personPipelineTasklet(@Value("#{jobParameters['csvPath']}") String csvPathParam) {
+        Map<String, StagedPipeline.StageSpec> stages = new LinkedHashMap<>();
+        stages.put("parse", new StagedPipeline.StageSpec(1, pipelineBatchSize, pipelineQueueCapacity, true));
+        stages.put("validate", new StagedPipeline.StageSpec(pipelineValidateThreads, pipelineBatchSize, pipelineQueueCapacity, true));
+        stages.put("age", new StagedPipeline.StageSpec(pipelineAgeThreads, pipelineAgeBatchSize, pipelineQueueCapacity, true));
+        stages.put("persist", new StagedPipeline.StageSpec(1, pipelineBatchSize, pipelineQueueCapacity, true));
+        stages.put("export", new StagedPipeline.StageSpec(1, pipelineBatchSize, pipelineQueueCapacity, true));
+        return new PersonPipelineTasklet(csvPathParam != null && !csvPathParam.isBlank() ? csvPathParam : csvFilePath,
+                outputFile, stages, internStrings, ageCalculationService, personRepository, emailLockStripes, transactionManager, batchMetrics);
+    }
+
+    /** Not step scoped: binds each step execution's meters to its thread, see {@link BatchMetricsListener}. */
+    @Bean
+    public BatchMetricsListener batchMetricsListener() {
+        return new BatchMetricsListener(batchMetrics);
+    }
+
+    /** Not step scoped: one instance decides per step execution whether to trace it, see {@link SlowItemTracer}. */
+    @Bean
+    public SlowItemTracer slowItemTracer() {
+        return new SlowItemTracer(traceSampleRate, traceTopN);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.springbatchtutorial.config;
+
+import org.springframework.batch.core.configuration.support.DefaultBatchConfiguration;
+import org.springframework.boot.autoconfigure.batch.BatchDataSource;
+import org.springframework.boot.autoconfigure.batch.BatchDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Job repository, explorer, launcher and operator on the batch metadata data source and its own transaction
+ * manager. Spring Boot's batch auto-configuration always uses the primary transaction manager, and backs off once
+ * this configuration exists, so the {@code BATCH_} schema initialization it did is declared here too.
+ */
+@Configuration
+public class BatchInfrastructureConfig extends DefaultBatchConfiguration {
+
+    // Looked up when the job repository is built rather than injected: Spring Batch declares a bean post-processor
+    // on this class, and constructor arguments would open the pools before metrics are bound to them
+    @Override
+    protected DataSource getDataSource() {
+        return applicationContext.getBean("batchDataSource", DataSource.class);
+    }
+
+    @Override
+    protected PlatformTransactionManager getTransactionManager() {
+        return applicationContext.getBean("batchTransactionManager", PlatformTransactionManager.class);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.batch.jdbc")
+    public BatchProperties.Jdbc batchJdbcProperties() {
+        return new BatchProperties.Jdbc();
+    }
+
+    // Eager even with lazy initialization (cli profile): nothing depends on it, but the job repository needs the schema
+    @Bean
+    @Lazy(false)
+    public BatchDataSourceScriptDatabaseInitializer batchDataSourceInitializer(@BatchDataSource DataSource batchDataSource,
+                                                                               BatchProperties.Jdbc batchJdbcProperties) {
+        return new BatchDataSourceScriptDatabaseInitializer(batchDataSource, batchJdbcProperties);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.springbatchtutorial.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Connection pools and transaction managers, one per kind of work, each sized on its own:
+ * <ul>
+ *   <li>{@code write}: the business tables written by the job steps ({@code spring.datasource.*}),</li>
+ *   <li>{@code read}: read-only API and dashboard queries on the same tables ({@code batch.datasource.read.*}),</li>
+ *   <li>{@code batch-metadata}: the {@code BATCH_} job repository tables, in their own database
+ *       ({@code batch.datasource.metadata.*}).</li>
+ * </ul>
+ * The primary {@code dataSource} that JPA and plain {@code DataSource} injections see hands out write connections,
+ * and read connections inside read-only transactions. {@code batch.datasource.layout=shared} puts everything back
+ * on one pool and one database, for comparisons.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${batch.datasource.layout:separate}")
+    private String layout;
+
+    private boolean shared() {
+        return layout.trim().equalsIgnoreCase("shared");
+    }
+
+    @Bean
+    public HikariDataSource writeDataSource(DataSourceProperties properties,
+                                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPoolSize) {
+        return pool(shared() ? "shared" : "write", properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword(), maxPoolSize, false);
+    }
+
+    @Bean
+    public DataSource readDataSource(@Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                                     DataSourceProperties properties,
+                                     @Value("${batch.datasource.read.url:}") String url,
+                                     @Value("${batch.datasource.read.maximum-pool-size:10}") int maxPoolSize) {
+        if (shared()) {
+            return writeDataSource;
+        }
+        return pool("read", url.isBlank() ? properties.determineUrl() : url, properties.determineUsername(),
+                properties.determinePassword(), maxPoolSize, true);
+    }
+
+    @Bean
+    @BatchDataSource
+    public DataSource batchDataSource(@Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                                      @Value("${batch.datasource.metadata.url:jdbc:h2:mem:batchmeta;DB_CLOSE_DELAY=-1}") String url,
+                                      @Value("${batch.datasource.metadata.username:sa}") String username,
+                                      @Value("${batch.datasource.metadata.password:}") String password,
+                                      @Value("${batch.datasource.metadata.maximum-pool-size:5}") int maxPoolSize) {
+        if (shared()) {
+            return writeDataSource;
+        }
+        return pool("batch-metadata", url, username, password, maxPoolSize, false);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        if (shared()) {
+            return writeDataSource;
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(false, writeDataSource, true, readDataSource));
+        routing.setDefaultTargetDataSource(writeDataSource);
+        routing.afterPropertiesSet();
+        // Transaction managers ask for a connection before they mark the transaction read-only; the proxy only
+        // fetches one at the first statement, once the routing key is known
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /** Business transactions (JPA and JDBC on the primary data source); Boot backs off once other managers exist. */
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    /** Job repository transactions, committed independently of the chunk transactions of the steps. */
+    @Bean
+    public PlatformTransactionManager batchTransactionManager(@BatchDataSource DataSource batchDataSource) {
+        return new DataSourceTransactionManager(batchDataSource);
+    }
+
+    /** Read-only queries that go straight to the read pool (exports). */
+    @Bean
+    public PlatformTransactionManager readTransactionManager(@Qualifier("readDataSource") DataSource readDataSource) {
+        return new DataSourceTransactionManager(readDataSource);
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password,
+                                         int maxPoolSize, boolean readOnly) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(maxPoolSize);
+        pool.setReadOnly(readOnly);
+        return pool;
+    }
+
+    private static final class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.springbatchtutorial.config;
+
+import com.example.springbatchtutorial.repository.DeferredJobRepository;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.batch.BatchDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link DeferredJobRepository} in front of the JDBC job repository of {@link BatchInfrastructureConfig}, so
+ * every step, job and launcher that injects {@link JobRepository} can run in deferred mode.
+ */
+@Configuration
+public class JobRepositoryConfig {
+
+    // Static: post-processors are created before the rest of the configuration
+    @Bean
+    public static BeanPostProcessor deferredJobRepositoryPostProcessor(@BatchDataSource ObjectProvider<DataSource> dataSource,
+                                                                       Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (!(bean instanceof JobRepository repository) || bean instanceof DeferredJobRepository) {
+                    return bean;
+                }
+                DeferredJobRepository.Mode mode = DeferredJobRepository.Mode.valueOf(
+                        environment.getProperty("batch.repository.mode", "jdbc").trim().toUpperCase());
+                return new DeferredJobRepository(repository, dataSource, mode,
+                        environment.getProperty("batch.repository.flush-interval-ms", Long.class, 0L),
+                        environment.getProperty("batch.repository.stop-check-ms", Long.class, 1000L),
+                        environment.getProperty("spring.batch.jdbc.table-prefix", "BATCH_"));
+            }
+        };
+    }
+}
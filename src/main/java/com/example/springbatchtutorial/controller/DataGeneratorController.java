@@ -0,0 +1,108 @@
+package com.example.springbatchtutorial.controller;
+
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.model.DobDistribution;
+import com.example.springbatchtutorial.model.GenerationProgress;
+import com.example.springbatchtutorial.reader.ValidationRule;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/data")
+@RequiredArgsConstructor
+@Slf4j
+public class DataGeneratorController {
+
+    private final SyntheticDataGenerator generator;
+
+    @PostMapping("/generate")
+    public ResponseEntity<?> generate(@RequestBody(required = false) Map<String, Object> body) {
+        log.info("🧪 Received request to generate a synthetic dataset");
+        try {
+            DatasetSpec spec = new DatasetSpec();
+            String fileName = null;
+            if (body != null) {
+                if (body.get("rows") != null) {
+                    spec.setRows(Long.parseLong(body.get("rows").toString()));
+                }
+                if (body.get("seed") != null) {
+                    spec.setSeed(Long.parseLong(body.get("seed").toString()));
+                }
+                if (body.get("invalidRatio") != null) {
+                    spec.setInvalidRatio(Double.parseDouble(body.get("invalidRatio").toString()));
+                }
+                if (body.get("errorRatios") instanceof Map<?, ?> ratios) {
+                    ratios.forEach((rule, ratio) -> spec.getErrorRatios()
+                            .put(ValidationRule.valueOf(rule.toString().toUpperCase()), Double.parseDouble(ratio.toString())));
+                }
+                if (body.get("duplicateRatio") != null) {
+                    spec.setDuplicateRatio(Double.parseDouble(body.get("duplicateRatio").toString()));
+                }
+                if (body.get("dobDistribution") != null) {
+                    spec.setDobDistribution(DobDistribution.valueOf(body.get("dobDistribution").toString().toUpperCase()));
+                }
+                if (body.get("dobFromYear") != null) {
+                    spec.setDobFromYear(Integer.parseInt(body.get("dobFromYear").toString()));
+                }
+                if (body.get("dobToYear") != null) {
+                    spec.setDobToYear(Integer.parseInt(body.get("dobToYear").toString()));
+                }
+                if (body.get("gzip") != null) {
+                    spec.setGzip(Boolean.parseBoolean(body.get("gzip").toString()));
+                }
+                if (body.get("fileName") != null) {
+                    fileName = body.get("fileName").toString();
+                }
+            }
+            String invalid = validate(spec);
+            if (invalid != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", invalid));
+            }
+            return ResponseEntity.accepted().body(generator.start(spec, fileName));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Too many generations running or waiting; retry later"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } catch (Exception e) {
+            log.error("❌ Error starting data generation: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/generations")
+    public ResponseEntity<Collection<GenerationProgress>> getGenerations() {
+        return ResponseEntity.ok(generator.generations());
+    }
+
+    @GetMapping("/generations/{id}")
+    public ResponseEntity<GenerationProgress> getGeneration(@PathVariable String id) {
+        return generator.progress(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private String validate(DatasetSpec spec) {
+        if (spec.getRows() <= 0) {
+            return "rows must be positive";
+        }
+        double errors = spec.getErrorRatios().isEmpty()
+                ? spec.getInvalidRatio()
+                : spec.getErrorRatios().values().stream().mapToDouble(Double::doubleValue).sum();
+        if (errors < 0 || errors > 1 || spec.getDuplicateRatio() < 0 || spec.getDuplicateRatio() > 1) {
+            return "ratios must be between 0 and 1 (error ratios summed)";
+        }
+        if (spec.getDobFromYear() > spec.getDobToYear()) {
+            return "dobFromYear must not be after dobToYear";
+        }
+        return null;
+    }
+}
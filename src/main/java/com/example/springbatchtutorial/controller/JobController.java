@@ -1,7 +1,20 @@
 package com.example.springbatchtutorial.controller;
 
 import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.ProcessingStatus;
+import com.example.springbatchtutorial.repository.DeferredJobRepository;
 import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.CsvValidationService;
+import com.example.springbatchtutorial.service.DedupMode;
+import com.example.springbatchtutorial.service.LoadMode;
+import com.example.springbatchtutorial.service.ExecutionSummaryService;
+import com.example.springbatchtutorial.service.IngestDirectoryWatcher;
+import com.example.springbatchtutorial.service.JobEventBroadcaster;
+import com.example.springbatchtutorial.service.JobMetricsAggregator;
+import com.example.springbatchtutorial.service.PersonExportService;
+import com.example.springbatchtutorial.service.UploadIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.*;
@@ -11,13 +24,24 @@ import org.springframework.batch.core.launch.JobOperator;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
 import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
@@ -35,6 +59,22 @@ public class JobController {
     private final JobExplorer jobExplorer;
     private final JobOperator jobOperator;
     private final PersonRepository personRepository;
+    private final JobEventBroadcaster jobEventBroadcaster;
+    private final ExecutionSummaryService executionSummaryService;
+    private final JobMetricsAggregator jobMetricsAggregator;
+    private final PersonExportService personExportService;
+    private final UploadIngestService uploadIngestService;
+    private final IngestDirectoryWatcher ingestDirectoryWatcher;
+    private final CsvValidationService csvValidationService;
+
+    @Value("${batch.csv.file.path:input/persons.csv}")
+    private String defaultCsvPath;
+
+    // With a configured rate of 0 the tracer is not registered on the steps, so a run cannot turn it on
+    @Value("${batch.tracing.sample-rate:0}")
+    private double configuredTraceSampleRate;
+
+    private static final int MAX_PERSONS_PAGE_SIZE = 5000;
     
     @GetMapping("/data/generate/partial10k")
     public ResponseEntity<String> generateLargePartialCsv() {
@@ -70,6 +110,10 @@ public class JobController {
             String skipEvery = body != null && body.get("skipEvery") != null ? body.get("skipEvery").toString() : null;
             String retryAttempts = body != null && body.get("retryAttempts") != null ? body.get("retryAttempts").toString() : null;
             String csvPath = body != null && body.get("csvPath") != null ? body.get("csvPath").toString() : null;
+            String dedupMode = body != null && body.get("dedupMode") != null ? body.get("dedupMode").toString() : null;
+            String traceSampleRate = body != null && body.get("traceSampleRate") != null ? body.get("traceSampleRate").toString() : null;
+            String repositoryMode = body != null && body.get("repositoryMode") != null ? body.get("repositoryMode").toString() : null;
+            String loadMode = body != null && body.get(LoadMode.PARAMETER) != null ? body.get(LoadMode.PARAMETER).toString() : null;
 
             JobParametersBuilder paramsBuilder = new JobParametersBuilder()
                     .addString("time", LocalDateTime.now().toString())
@@ -84,6 +128,50 @@ public class JobController {
             if (csvPath != null && !csvPath.isBlank()) {
                 paramsBuilder.addString("csvPath", csvPath, true);
             }
+            if (dedupMode != null && !dedupMode.isBlank()) {
+                try {
+                    DedupMode.valueOf(dedupMode);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body("Unknown dedupMode: " + dedupMode);
+                }
+                paramsBuilder.addString("dedupMode", dedupMode, true);
+            }
+            if (traceSampleRate != null && !traceSampleRate.isBlank()) {
+                double rate;
+                try {
+                    rate = Double.parseDouble(traceSampleRate);
+                } catch (NumberFormatException e) {
+                    return ResponseEntity.badRequest().body("Invalid traceSampleRate: " + traceSampleRate);
+                }
+                if (rate > 0 && configuredTraceSampleRate <= 0) {
+                    return ResponseEntity.badRequest().body("Tracing is off: set batch.tracing.sample-rate above 0 to trace runs");
+                }
+                paramsBuilder.addString("traceSampleRate", traceSampleRate, false);
+            }
+            if (repositoryMode != null && !repositoryMode.isBlank()) {
+                try {
+                    DeferredJobRepository.Mode.valueOf(repositoryMode.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body("Unknown repositoryMode: " + repositoryMode + " (use jdbc or deferred)");
+                }
+                paramsBuilder.addString(DeferredJobRepository.MODE_PARAMETER, repositoryMode, false);
+            }
+            if (loadMode != null && !loadMode.isBlank()) {
+                LoadMode mode;
+                try {
+                    mode = LoadMode.valueOf(loadMode.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body("Unknown loadMode: " + loadMode + " (use row, bulk or pipeline)");
+                }
+                if (mode != LoadMode.ROW && dedupMode != null && !dedupMode.isBlank()) {
+                    return ResponseEntity.badRequest().body("dedupMode is not supported with loadMode " + loadMode);
+                }
+                // The staged pipeline computes ages without the scenario processor
+                if (mode == LoadMode.PIPELINE && !scenario.equalsIgnoreCase("SUCCESS")) {
+                    return ResponseEntity.badRequest().body("loadMode pipeline only runs the SUCCESS scenario");
+                }
+                paramsBuilder.addString(LoadMode.PARAMETER, loadMode, true);
+            }
 
             JobParameters jobParameters = paramsBuilder.toJobParameters();
             
@@ -160,6 +248,125 @@ public class JobController {
         }
     }
 
+    /**
+     * Ingests the raw request body (a CSV, {@code Content-Type: text/csv} or {@code application/octet-stream},
+     * chunked or not) while it is still being received; responds once the whole body is spooled, with the id of the
+     * execution that is importing it.
+     */
+    @PostMapping(path = "/jobs/upload", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> uploadCsv(HttpServletRequest request,
+                                                         @RequestParam(required = false) String scenario,
+                                                         @RequestParam(required = false) String dedupMode) {
+        log.info("📥 Received streaming CSV upload ({} bytes announced)", request.getContentLengthLong());
+        try {
+            return ingestUpload(request.getInputStream(), scenario, dedupMode);
+        } catch (IOException e) {
+            log.error("❌ Error reading upload: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Multipart variant of {@link #uploadCsv} for browser forms (field {@code file}). The container may buffer the
+     * part before this runs, so the raw body endpoint is the one that overlaps the transfer with the import.
+     */
+    @PostMapping(path = "/jobs/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadCsvPart(@RequestParam("file") MultipartFile file,
+                                                             @RequestParam(required = false) String scenario,
+                                                             @RequestParam(required = false) String dedupMode) {
+        log.info("📥 Received multipart CSV upload: {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        try {
+            return ingestUpload(file.getInputStream(), scenario, dedupMode);
+        } catch (IOException e) {
+            log.error("❌ Error reading upload: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload failed: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> ingestUpload(InputStream body, String scenario, String dedupMode) {
+        if (dedupMode != null && !dedupMode.isBlank()) {
+            try {
+                DedupMode.valueOf(dedupMode);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown dedupMode: " + dedupMode));
+            }
+        }
+        try {
+            Map<String, Object> result = uploadIngestService.ingest(body, scenario, dedupMode);
+            log.info("✅ Upload {} handed to job execution {}", result.get("uploadId"), result.get("jobExecutionId"));
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            log.error("❌ Error reading upload: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload failed: " + e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error starting upload job: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error starting job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Dry run of step 1 over a CSV ({@code csvPath}, default {@code batch.csv.file.path}): the validation report and
+     * row counts, without writing a row or calling the age API. {@code segments} overrides how many parts of the file
+     * are validated in parallel.
+     */
+    @PostMapping("/jobs/validate")
+    public ResponseEntity<?> validateCsv(@RequestBody(required = false) Map<String, Object> body) {
+        String csvPath = body != null && body.get("csvPath") != null ? body.get("csvPath").toString() : defaultCsvPath;
+        Object segments = body != null ? body.get("segments") : null;
+        log.info("🔎 Received dry-run request for {}", csvPath);
+        try {
+            Path csv = Path.of(csvPath);
+            if (!Files.isRegularFile(csv)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "CSV file not found: " + csvPath));
+            }
+            if (segments == null) {
+                return ResponseEntity.ok(csvValidationService.validate(csv));
+            }
+            int count = Integer.parseInt(segments.toString());
+            if (count < 1) {
+                return ResponseEntity.badRequest().body(Map.of("error", "segments must be positive"));
+            }
+            return ResponseEntity.ok(csvValidationService.validate(csv, count));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid segments: " + segments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } catch (IOException e) {
+            log.error("❌ Error validating {}: {}", csvPath, e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Validation failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Restarts a failed or stopped execution with its own parameters, so completed steps are skipped and an
+     * upload is read again from its spool file.
+     */
+    @PostMapping("/jobs/executions/{id}/restart")
+    public ResponseEntity<Map<String, Object>> restartExecution(@PathVariable Long id) {
+        log.info("🔄 Received request to restart job execution {}", id);
+        JobExecution previous = jobExplorer.getJobExecution(id);
+        if (previous == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            JobExecution restarted = jobLauncher.run(processPersonJob, previous.getJobParameters());
+            log.info("✅ Job execution {} restarted as {} - status: {}", id, restarted.getId(), restarted.getStatus());
+            return ResponseEntity.ok(Map.of("restartedFrom", id, "jobExecutionId", restarted.getId(),
+                    "status", restarted.getStatus().toString()));
+        } catch (JobInstanceAlreadyCompleteException | JobExecutionAlreadyRunningException | JobRestartException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("❌ Error restarting job execution {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error restarting job: " + e.getMessage()));
+        }
+    }
+
+    /** Directory watcher state: running ingest jobs, files in the ledger and the most recent coalesced runs. */
+    @GetMapping("/jobs/watch")
+    public ResponseEntity<Map<String, Object>> getWatchStatus() {
+        return ResponseEntity.ok(ingestDirectoryWatcher.status());
+    }
+
     @GetMapping("/jobs/status")
     public ResponseEntity<String> getJobStatus() {
         log.debug("📊 Received request for job status");
@@ -189,11 +396,27 @@ public class JobController {
         }
     }
 
+    /** Live job/step transitions and chunk progress, pushed instead of polling {@code /jobs/executions}. */
+    @GetMapping(path = "/jobs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobEvents() {
+        log.debug("📡 Received job event subscription");
+        return jobEventBroadcaster.subscribe();
+    }
+
+    /**
+     * One page of persons ordered by id, optionally of one job execution and/or status. Keyset paging: pass the
+     * last {@code id} of a page as {@code afterId} to get the next one.
+     */
     @GetMapping("/persons")
-    public ResponseEntity<List<Person>> getAllPersons() {
-        log.info("👥 Received request to get all persons");
+    public ResponseEntity<List<Person>> getPersons(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) Long jobExecutionId,
+            @RequestParam(required = false) ProcessingStatus status) {
+        log.info("👥 Received request for persons after id {}", afterId);
         try {
-            List<Person> persons = personRepository.findAll();
+            int size = Math.max(1, Math.min(limit, MAX_PERSONS_PAGE_SIZE));
+            List<Person> persons = personRepository.findPage(afterId, jobExecutionId, status, PageRequest.of(0, size));
             log.info("📊 Retrieved {} persons from database", persons.size());
             
             if (log.isDebugEnabled()) {
@@ -208,6 +431,33 @@ public class JobController {
         }
     }
 
+    /**
+     * Streams every matching person as NDJSON ({@code format=ndjson}, default) or CSV, in constant memory.
+     * Written directly to the response, so the status cannot change once rows have been sent.
+     */
+    @GetMapping("/persons/export")
+    public void exportPersons(@RequestParam(defaultValue = "ndjson") String format,
+                              @RequestParam(required = false) Long jobExecutionId,
+                              @RequestParam(required = false) ProcessingStatus status,
+                              HttpServletResponse response) throws IOException {
+        PersonExportService.Format exportFormat;
+        try {
+            exportFormat = PersonExportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown format '" + format + "' (use ndjson or csv)");
+            return;
+        }
+        log.info("📤 Received request to export persons as {}", exportFormat);
+        response.setContentType(exportFormat == PersonExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"persons." + exportFormat.name().toLowerCase() + "\"");
+        try {
+            personExportService.export(exportFormat, jobExecutionId, status, response.getOutputStream());
+        } catch (IOException e) {
+            log.warn("⚠️ Person export aborted: {}", e.getMessage());
+        }
+    }
+
     @GetMapping("/persons/count")
     public ResponseEntity<Long> getPersonCount() {
         log.debug("🔢 Received request for person count");
@@ -221,68 +471,20 @@ public class JobController {
         }
     }
 
+    /**
+     * Executions newest first, served from the summary table. Keyset paging: pass the last {@code id} of a page
+     * as {@code beforeId} to get the next one.
+     */
     @GetMapping("/jobs/executions")
-    public ResponseEntity<List<Map<String, Object>>> getJobExecutions() {
+    public ResponseEntity<List<Map<String, Object>>> getJobExecutions(
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
         log.debug("📋 Received request for job executions");
         try {
-            List<Map<String, Object>> executions = new ArrayList<>();
-            
-            // Get all job instances
-            List<JobInstance> jobInstances = jobExplorer.getJobInstances("processPersonJob", 0, 100);
-            
-            for (JobInstance jobInstance : jobInstances) {
-                List<JobExecution> jobExecutions = jobExplorer.getJobExecutions(jobInstance);
-                
-                for (JobExecution jobExecution : jobExecutions) {
-                    Map<String, Object> execution = new HashMap<>();
-                    execution.put("id", jobExecution.getId());
-                    execution.put("status", jobExecution.getStatus().toString());
-                    execution.put("startTime", jobExecution.getStartTime());
-                    execution.put("endTime", jobExecution.getEndTime());
-                    execution.put("duration", jobExecution.getEndTime() != null && jobExecution.getStartTime() != null ? 
-                        java.time.Duration.between(jobExecution.getStartTime(), jobExecution.getEndTime()).toMillis() : null);
-                    execution.put("exitCode", jobExecution.getExitStatus() != null ? jobExecution.getExitStatus().getExitCode() : null);
-                    
-                    // Add step executions with skip info
-                    List<Map<String, Object>> stepExecutions = new ArrayList<>();
-                    for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
-                        Map<String, Object> step = new HashMap<>();
-                        step.put("stepName", stepExecution.getStepName());
-                        step.put("status", stepExecution.getStatus().toString());
-                        step.put("readCount", stepExecution.getReadCount());
-                        step.put("writeCount", stepExecution.getWriteCount());
-                        step.put("skipCount", stepExecution.getSkipCount());
-                        step.put("startTime", stepExecution.getStartTime());
-                        step.put("endTime", stepExecution.getEndTime());
-                        // Upsert summary counts from writer
-                        step.put("inserted", stepExecution.getExecutionContext().getInt("inserted.count", 0));
-                        step.put("updated", stepExecution.getExecutionContext().getInt("updated.count", 0));
-                        int written = stepExecution.getExecutionContext().containsKey("written.count")
-                                ? stepExecution.getExecutionContext().getInt("written.count")
-                                : (int) stepExecution.getWriteCount();
-                        step.put("written", written);
-                        // Extract a concise skip summary from execution context if present
-                        String skipSummary = stepExecution.getExecutionContext().containsKey("skip.summary")
-                                ? stepExecution.getExecutionContext().getString("skip.summary")
-                                : null;
-                        if (skipSummary != null) {
-                            step.put("skipSummary", skipSummary);
-                        }
-                        stepExecutions.add(step);
-                    }
-                    execution.put("stepExecutions", stepExecutions);
-                    
-                    executions.add(execution);
-                }
-            }
-            
-            // Sort by start time (newest first)
-            executions.sort((a, b) -> {
-                LocalDateTime aTime = (LocalDateTime) a.get("startTime");
-                LocalDateTime bTime = (LocalDateTime) b.get("startTime");
-                return bTime.compareTo(aTime);
-            });
-            
+            List<Map<String, Object>> executions = executionSummaryService.page(beforeId, status, from, to, limit);
             log.info("📊 Retrieved {} job executions", executions.size());
             return ResponseEntity.ok(executions);
         } catch (Exception e) {
@@ -291,44 +493,64 @@ public class JobController {
         }
     }
 
+    /** Full view of one execution from the job repository, including the sampled slowest items per step. */
+    @GetMapping("/jobs/executions/{id}")
+    public ResponseEntity<Map<String, Object>> getJobExecution(@PathVariable Long id) {
+        log.debug("📋 Received request for job execution {}", id);
+        try {
+            JobExecution jobExecution = jobExplorer.getJobExecution(id);
+            if (jobExecution == null) {
+                return ResponseEntity.notFound().build();
+            }
+            Map<String, Object> execution = new HashMap<>();
+            execution.put("id", jobExecution.getId());
+            execution.put("status", jobExecution.getStatus().toString());
+            execution.put("startTime", jobExecution.getStartTime());
+            execution.put("endTime", jobExecution.getEndTime());
+            execution.put("duration", jobExecution.getEndTime() != null && jobExecution.getStartTime() != null ?
+                Duration.between(jobExecution.getStartTime(), jobExecution.getEndTime()).toMillis() : null);
+            execution.put("exitCode", jobExecution.getExitStatus() != null ? jobExecution.getExitStatus().getExitCode() : null);
+            Map<String, Object> jobParameters = new HashMap<>();
+            jobExecution.getJobParameters().getParameters().forEach((name, parameter) -> jobParameters.put(name, parameter.getValue()));
+            execution.put("jobParameters", jobParameters);
+
+            List<Map<String, Object>> stepExecutions = new ArrayList<>();
+            for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                Map<String, Object> step = new HashMap<>();
+                step.put("stepName", stepExecution.getStepName());
+                step.put("status", stepExecution.getStatus().toString());
+                step.put("readCount", stepExecution.getReadCount());
+                step.put("writeCount", stepExecution.getWriteCount());
+                step.put("skipCount", stepExecution.getSkipCount());
+                step.put("startTime", stepExecution.getStartTime());
+                step.put("endTime", stepExecution.getEndTime());
+                // Sampled slowest items with their read/process/write breakdown (SlowItemTracer)
+                if (stepExecution.getExecutionContext().containsKey("trace.slowest")) {
+                    step.put("slowestItems", stepExecution.getExecutionContext().get("trace.slowest"));
+                }
+                stepExecutions.add(step);
+            }
+            execution.put("stepExecutions", stepExecutions);
+            return ResponseEntity.ok(execution);
+        } catch (Exception e) {
+            log.error("❌ Error getting job execution {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Counts, mean and p50/p95/p99 durations and rows/sec per job and step, from the running aggregates. The
+     * optional {@code window} (e.g. {@code 1h}, {@code 7d}) limits them to recent hours; the default is all time.
+     */
     @GetMapping("/jobs/metrics")
-    public ResponseEntity<Map<String, Object>> getJobMetrics() {
+    public ResponseEntity<Map<String, Object>> getJobMetrics(@RequestParam(required = false) String window) {
         log.debug("📈 Received request for job metrics");
         try {
-            Map<String, Object> metrics = new HashMap<>();
-            
-            // Get all job executions
-            List<JobInstance> jobInstances = jobExplorer.getJobInstances("processPersonJob", 0, 100);
-            List<JobExecution> allExecutions = new ArrayList<>();
-            
-            for (JobInstance jobInstance : jobInstances) {
-                allExecutions.addAll(jobExplorer.getJobExecutions(jobInstance));
-            }
-            
-            // Calculate metrics
-            long totalExecutions = allExecutions.size();
-            long successfulExecutions = allExecutions.stream()
-                .filter(e -> e.getStatus() == BatchStatus.COMPLETED)
-                .count();
-            long failedExecutions = allExecutions.stream()
-                .filter(e -> e.getStatus() == BatchStatus.FAILED)
-                .count();
-            
-            // Calculate average duration
-            double avgDuration = allExecutions.stream()
-                .filter(e -> e.getEndTime() != null && e.getStartTime() != null)
-                    .mapToLong(e -> Duration.between(e.getStartTime(), e.getEndTime()).toMillis())
-                .average()
-                .orElse(0.0);
-            
-            metrics.put("totalExecutions", totalExecutions);
-            metrics.put("successfulExecutions", successfulExecutions);
-            metrics.put("failedExecutions", failedExecutions);
-            metrics.put("avgDuration", Math.round(avgDuration));
-            metrics.put("successRate", totalExecutions > 0 ? (double) successfulExecutions / totalExecutions * 100 : 0);
-            
-            log.info("📊 Retrieved job metrics: {}", metrics);
+            Map<String, Object> metrics = jobMetricsAggregator.rollup(window);
+            log.info("📊 Retrieved job metrics: {} executions (window: {})", metrics.get("totalExecutions"), metrics.get("window"));
             return ResponseEntity.ok(metrics);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
         } catch (Exception e) {
             log.error("❌ Error getting job metrics: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -0,0 +1,166 @@
+package com.example.springbatchtutorial.controller;
+
+import com.example.springbatchtutorial.service.OutputFileService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Downloads of the step 3 output file: the latest one, or the one of a given job execution.
+ *
+ * The body never goes through the heap: on Tomcat (NIO connector) the file is handed to the connector's sendfile
+ * support, elsewhere it is copied with {@link FileChannel#transferTo}. A single {@code Range} is honored for
+ * resumable downloads (with {@code If-Range}); the ETag is strong, built from the content hash taken at publish
+ * time and the encoding (from the modification time and length for snapshots without a hash). Clients that accept
+ * gzip get the precomputed variant.
+ */
+@RestController
+@RequestMapping("/api/output")
+@RequiredArgsConstructor
+@Slf4j
+public class OutputFileController {
+
+    // Tomcat request attributes for sendfile (see org.apache.coyote.Constants / Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final OutputFileService outputFileService;
+
+    @GetMapping
+    public void downloadLatest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(outputFileService.latest(), request, response);
+    }
+
+    @GetMapping("/{jobExecutionId}")
+    public void download(@PathVariable long jobExecutionId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(outputFileService.find(jobExecutionId), request, response);
+    }
+
+    private void serve(Optional<OutputFileService.Snapshot> found, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No output file published for this execution");
+            return;
+        }
+        OutputFileService.Snapshot snapshot = found.get();
+        boolean gzip = snapshot.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        Path file = gzip ? snapshot.gzip() : snapshot.file();
+        long length = Files.size(file);
+        String version = snapshot.sha256() != null ? snapshot.sha256()
+                : snapshot.jobExecutionId() + "-" + Files.getLastModifiedTime(file).toMillis() + "-" + length;
+        String etag = "\"" + version + (gzip ? "-gz" : "") + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] requested = parseRange(range, length);
+            if (requested == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (requested.length == 2) {
+                start = requested[0];
+                end = requested[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType("text/plain;charset=UTF-8");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"persons_with_age_" + snapshot.jobExecutionId() + ".txt\"");
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        log.debug("📤 Serving {} bytes {}-{} of {}", count, start, end, file);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+
+    /**
+     * Parses a {@code bytes=} range header: {@code {start, end}} for one satisfiable range, an empty array to
+     * serve the whole file (no range, several ranges or a malformed header, which the spec lets servers ignore)
+     * and {@code null} when the range is not satisfiable.
+     */
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.contains(",")) {
+            return new long[0];
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                return suffix > 0 && length > 0 ? new long[]{Math.max(0, length - suffix), length - 1} : null;
+            }
+            long start = Long.parseLong(first);
+            if (start >= length) {
+                return null;
+            }
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            return end >= start ? new long[]{start, Math.min(end, length - 1)} : new long[0];
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springbatchtutorial.controller;
+
+import com.example.springbatchtutorial.service.FlightRecorderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/profiling/jfr")
+@RequiredArgsConstructor
+@Slf4j
+public class ProfilingController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start(@RequestBody(required = false) Map<String, Object> body) {
+        log.info("🎥 Received request to start a JFR recording");
+        try {
+            String settings = body != null && body.get("settings") != null ? body.get("settings").toString() : null;
+            Long maxAgeMinutes = body != null && body.get("maxAgeMinutes") != null
+                    ? Long.parseLong(body.get("maxAgeMinutes").toString()) : null;
+            Long dbThresholdMs = body != null && body.get("dbThresholdMs") != null
+                    ? Long.parseLong(body.get("dbThresholdMs").toString()) : null;
+            return ResponseEntity.ok(flightRecorderService.start(settings, maxAgeMinutes, dbThresholdMs));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } catch (Exception e) {
+            log.error("❌ Error starting JFR recording: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping("/dump")
+    public ResponseEntity<Map<String, Object>> dump() {
+        log.info("🎥 Received request to dump the JFR recording");
+        try {
+            Path file = flightRecorderService.dump();
+            return ResponseEntity.ok(Map.of("file", file.toString(), "bytes", Files.size(file)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        } catch (Exception e) {
+            log.error("❌ Error dumping JFR recording: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Map<String, Object>> stop() {
+        log.info("🎥 Received request to stop the JFR recording");
+        return ResponseEntity.ok(flightRecorderService.stop());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springbatchtutorial.controller;
+
+import com.example.springbatchtutorial.model.RetentionPolicy;
+import com.example.springbatchtutorial.service.RetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/retention")
+@RequiredArgsConstructor
+@Slf4j
+public class RetentionController {
+
+    private final RetentionService retentionService;
+
+    @GetMapping("/policy")
+    public ResponseEntity<RetentionPolicy> getPolicy() {
+        return ResponseEntity.ok(retentionService.defaultPolicy());
+    }
+
+    @PostMapping("/purge")
+    public ResponseEntity<Map<String, Object>> purge(@RequestBody(required = false) Map<String, Object> body) {
+        log.info("🧹 Received request to purge persons outside retention");
+        try {
+            RetentionPolicy policy = retentionService.defaultPolicy();
+            if (body != null && body.get("keepLastExecutions") != null) {
+                policy.setKeepLastExecutions(Integer.parseInt(body.get("keepLastExecutions").toString()));
+            }
+            if (body != null && body.get("keepDays") != null) {
+                policy.setKeepDays(Integer.parseInt(body.get("keepDays").toString()));
+            }
+            if (body != null && body.get("archive") != null) {
+                policy.setArchive(Boolean.parseBoolean(body.get("archive").toString()));
+            }
+            return ResponseEntity.ok(retentionService.purge(policy));
+        } catch (Exception e) {
+            log.error("❌ Error purging persons: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
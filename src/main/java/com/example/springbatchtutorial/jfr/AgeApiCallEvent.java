@@ -0,0 +1,29 @@
+package com.example.springbatchtutorial.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.springbatchtutorial.AgeApiCall")
+@Label("Age API Call")
+@Description("One batched call to the (mock) age API")
+public class AgeApiCallEvent extends PipelineEvent {
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public static AgeApiCallEvent start(int batchSize) {
+        AgeApiCallEvent event = new AgeApiCallEvent();
+        event.batchSize = batchSize;
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean succeeded) {
+        this.succeeded = succeeded;
+        commitInStep();
+    }
+}
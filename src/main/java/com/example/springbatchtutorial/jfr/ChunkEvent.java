@@ -0,0 +1,29 @@
+package com.example.springbatchtutorial.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.springbatchtutorial.Chunk")
+@Label("Chunk")
+@Description("One chunk from its start to its commit (or rollback)")
+public class ChunkEvent extends PipelineEvent {
+
+    @Label("Items Written")
+    long itemsWritten;
+
+    @Label("Committed")
+    boolean committed;
+
+    public static ChunkEvent start() {
+        ChunkEvent event = new ChunkEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(long itemsWritten, boolean committed) {
+        this.itemsWritten = itemsWritten;
+        this.committed = committed;
+        commitInStep();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.springbatchtutorial.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.springbatchtutorial.DbStatement")
+@Label("DB Statement")
+@Description("A repository call of the pipeline: single-row lookups and saves or bulk statements")
+public class DbStatementEvent extends PipelineEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    int rows;
+
+    public static DbStatementEvent start(String operation) {
+        DbStatementEvent event = new DbStatementEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int rows) {
+        this.rows = rows;
+        commitInStep();
+    }
+}
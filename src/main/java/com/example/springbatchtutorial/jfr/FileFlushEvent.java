@@ -0,0 +1,21 @@
+package com.example.springbatchtutorial.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.springbatchtutorial.FileFlush")
+@Label("File Flush")
+@Description("Buffered output lines of a chunk written to the output file on commit")
+public class FileFlushEvent extends PipelineEvent {
+
+    @Label("Items")
+    int items;
+
+    public static FileFlushEvent start(int items) {
+        FileFlushEvent event = new FileFlushEvent();
+        event.items = items;
+        event.begin();
+        return event;
+    }
+}
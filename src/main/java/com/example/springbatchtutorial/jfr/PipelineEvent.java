@@ -0,0 +1,42 @@
+package com.example.springbatchtutorial.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+/**
+ * Base of the pipeline's Flight Recorder events: every event carries the job execution id and step name of the
+ * step running on the emitting thread. Stack traces are off, so an event costs little more than a timestamp pair
+ * and nothing at all when no recording has it enabled.
+ */
+@Category({"Spring Batch Tutorial", "Pipeline"})
+@StackTrace(false)
+public abstract class PipelineEvent extends Event {
+
+    @Label("Job Execution Id")
+    long jobExecutionId;
+
+    @Label("Step Name")
+    String stepName;
+
+    /** Ends the event and commits it with the current step context, if a recording wants it. */
+    public void commitInStep() {
+        end();
+        if (shouldCommit()) {
+            StepContext context = StepSynchronizationManager.getContext();
+            if (context != null) {
+                withStep(context.getStepExecution());
+            }
+            commit();
+        }
+    }
+
+    void withStep(StepExecution stepExecution) {
+        this.jobExecutionId = stepExecution.getJobExecutionId() != null ? stepExecution.getJobExecutionId() : 0;
+        this.stepName = stepExecution.getStepName();
+    }
+}
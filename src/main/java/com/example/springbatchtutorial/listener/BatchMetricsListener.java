@@ -0,0 +1,201 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-chunk phase timing for each step execution.
+ *
+ * Read, process and write times are summed over the items of a chunk and recorded once per chunk. Commit time is
+ * the gap between the end of the write and {@code afterChunk}, which Spring Batch calls after the chunk transaction
+ * has committed. While the step runs two lag gauges are registered: items read but not yet written, filtered or
+ * skipped, and seconds since the last committed chunk. They also carry the job execution id, so concurrent runs of
+ * the same step each get their own gauges instead of sharing, and removing, one.
+ *
+ * Not step scoped, like {@link SlowItemTracer}: {@link #beforeStep} binds the meters of the step execution to the
+ * step thread, so the item callbacks, which a retrying step 2 calls for every item of every pass over a chunk, are
+ * plain calls rather than step scope lookups. Steps that do not register the item callbacks only get the lag gauges.
+ */
+public class BatchMetricsListener implements StepExecutionListener, ChunkListener, ItemReadListener<PersonRecord>,
+        ItemProcessListener<PersonRecord, PersonRecord>, ItemWriteListener<PersonRecord>, SkipListener<PersonRecord, PersonRecord> {
+
+    private final BatchMetrics metrics;
+
+    // A chunk-oriented step runs its callbacks on the thread that runs the step
+    private final ThreadLocal<StepMetrics> current = new ThreadLocal<>();
+
+    public BatchMetricsListener(BatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        Tags tags = metrics.tags(stepExecution);
+        StepMetrics step = new StepMetrics(
+                metrics.timer("batch.chunk.read", "Time spent reading the items of a chunk", tags),
+                metrics.timer("batch.chunk.process", "Time spent processing the items of a chunk", tags),
+                metrics.timer("batch.chunk.write", "Time spent writing a chunk", tags),
+                metrics.histogramTimer("batch.chunk.commit", "Time spent committing a chunk transaction", tags),
+                metrics.counter("batch.items.skipped", "Items skipped by the fault tolerant step", tags));
+        Tags lagTags = tags.and("jobExecutionId", String.valueOf(stepExecution.getJobExecutionId()));
+        step.gauges.add(Gauge.builder("batch.step.lag.items", stepExecution,
+                        s -> s.getReadCount() - s.getWriteCount() - s.getFilterCount() - s.getProcessSkipCount() - s.getWriteSkipCount())
+                .description("Items read but not yet written, filtered or skipped")
+                .tags(lagTags).register(metrics.registry()));
+        step.gauges.add(Gauge.builder("batch.step.lag.seconds", step,
+                        s -> (System.nanoTime() - s.lastCommitNanos) / 1e9)
+                .description("Seconds since the last committed chunk")
+                .tags(lagTags).register(metrics.registry()));
+        current.set(step);
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        StepMetrics step = current.get();
+        current.remove();
+        if (step != null) {
+            // Lag only means something while the step runs
+            step.gauges.forEach(metrics.registry()::remove);
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void beforeChunk(@NonNull ChunkContext context) {
+        StepMetrics step = current.get();
+        step.readNanos = 0;
+        step.processNanos = 0;
+        step.writeNanos = 0;
+        step.writeEnd = 0;
+    }
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext context) {
+        StepMetrics step = current.get();
+        long now = System.nanoTime();
+        if (step.readNanos > 0) {
+            step.readTimer.record(step.readNanos, TimeUnit.NANOSECONDS);
+        }
+        if (step.processNanos > 0) {
+            step.processTimer.record(step.processNanos, TimeUnit.NANOSECONDS);
+        }
+        if (step.writeEnd > 0) {
+            step.writeTimer.record(step.writeNanos, TimeUnit.NANOSECONDS);
+            step.commitTimer.record(now - step.writeEnd, TimeUnit.NANOSECONDS);
+        }
+        step.lastCommitNanos = now;
+    }
+
+    @Override
+    public void beforeRead() {
+        current.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(@NonNull PersonRecord item) {
+        StepMetrics step = current.get();
+        step.readNanos += System.nanoTime() - step.phaseStart;
+    }
+
+    @Override
+    public void onReadError(@NonNull Exception ex) {
+        StepMetrics step = current.get();
+        step.readNanos += System.nanoTime() - step.phaseStart;
+    }
+
+    @Override
+    public void beforeProcess(@NonNull PersonRecord item) {
+        current.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(@NonNull PersonRecord item, PersonRecord result) {
+        StepMetrics step = current.get();
+        step.processNanos += System.nanoTime() - step.phaseStart;
+    }
+
+    @Override
+    public void onProcessError(@NonNull PersonRecord item, @NonNull Exception e) {
+        StepMetrics step = current.get();
+        step.processNanos += System.nanoTime() - step.phaseStart;
+    }
+
+    @Override
+    public void beforeWrite(@NonNull Chunk<? extends PersonRecord> items) {
+        current.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(@NonNull Chunk<? extends PersonRecord> items) {
+        StepMetrics step = current.get();
+        step.writeEnd = System.nanoTime();
+        step.writeNanos += step.writeEnd - step.phaseStart;
+    }
+
+    @Override
+    public void onWriteError(@NonNull Exception exception, @NonNull Chunk<? extends PersonRecord> items) {
+        StepMetrics step = current.get();
+        step.writeNanos += System.nanoTime() - step.phaseStart;
+    }
+
+    @Override
+    public void onSkipInRead(@NonNull Throwable t) {
+        current.get().skippedCounter.increment();
+    }
+
+    @Override
+    public void onSkipInProcess(@NonNull PersonRecord item, @NonNull Throwable t) {
+        current.get().skippedCounter.increment();
+    }
+
+    @Override
+    public void onSkipInWrite(@NonNull PersonRecord item, @NonNull Throwable t) {
+        current.get().skippedCounter.increment();
+    }
+
+    /** Meters and running phase times of one step execution. */
+    private static final class StepMetrics {
+
+        private final Timer readTimer;
+        private final Timer processTimer;
+        private final Timer writeTimer;
+        private final Timer commitTimer;
+        private final Counter skippedCounter;
+        private final List<Meter> gauges = new ArrayList<>();
+        private volatile long lastCommitNanos = System.nanoTime();
+
+        private long readNanos;
+        private long processNanos;
+        private long writeNanos;
+        private long phaseStart;
+        private long writeEnd;
+
+        private StepMetrics(Timer readTimer, Timer processTimer, Timer writeTimer, Timer commitTimer, Counter skippedCounter) {
+            this.readTimer = readTimer;
+            this.processTimer = processTimer;
+            this.writeTimer = writeTimer;
+            this.commitTimer = commitTimer;
+            this.skippedCounter = skippedCounter;
+        }
+    }
+}
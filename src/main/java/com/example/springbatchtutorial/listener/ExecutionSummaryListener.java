@@ -0,0 +1,61 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.service.ExecutionSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the execution summary table current as steps and jobs finish.
+ *
+ * Highest precedence: Spring Batch calls {@code afterStep} in reverse order, so this one runs after the writer and
+ * the step listeners have put their counts and skip summary into the execution context. A failed update is logged
+ * and never fails the job; the row is rewritten when the job finishes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionSummaryListener implements JobExecutionListener, StepExecutionListener, Ordered {
+
+    private final ExecutionSummaryService summaries;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void beforeJob(@NonNull JobExecution jobExecution) {
+        try {
+            summaries.jobStarted(jobExecution);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not record start of job execution {} in the summary table: {}", jobExecution.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        try {
+            summaries.stepFinished(stepExecution);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not record step {} in the summary table: {}", stepExecution.getStepName(), e.getMessage());
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void afterJob(@NonNull JobExecution jobExecution) {
+        try {
+            summaries.jobFinished(jobExecution);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not record job execution {} in the summary table: {}", jobExecution.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.jfr.FileFlushEvent;
+import com.example.springbatchtutorial.model.PersonRecord;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Emits a {@link FileFlushEvent} for the step 3 file writer. {@code FlatFileItemWriter} buffers lines until the
+ * chunk transaction commits and writes them in its own {@code beforeCommit} callback; registering this
+ * synchronization before the writer runs places its {@code beforeCommit} first, so the event spans the file write
+ * and the commit.
+ */
+@Component
+public class FileFlushEventListener implements ItemWriteListener<PersonRecord> {
+
+    @Override
+    public void beforeWrite(@NonNull Chunk<? extends PersonRecord> items) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || !new FileFlushEvent().isEnabled()) {
+            return;
+        }
+        int size = items.size();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private FileFlushEvent event;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                event = FileFlushEvent.start(size);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (event != null) {
+                    event.commitInStep();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.springbatchtutorial.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long after JVM start the first chunk of this process was committed: the time-to-first-chunk of a
+ * freshly started run, whatever the startup path (web app or headless {@code cli} profile).
+ */
+@Component
+@Slf4j
+public class FirstChunkTimer implements ChunkListener {
+
+    private final AtomicLong firstChunkMillis = new AtomicLong(-1);
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext context) {
+        if (firstChunkMillis.get() < 0) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            if (firstChunkMillis.compareAndSet(-1, uptime)) {
+                log.info("⏱️ First chunk committed {} ms after JVM start ({})", uptime,
+                        context.getStepContext().getStepName());
+            }
+        }
+    }
+
+    /** Milliseconds from JVM start to the first committed chunk, or -1 before it. */
+    public long firstChunkMillis() {
+        return firstChunkMillis.get();
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.springbatchtutorial.listener;
 
+import com.example.springbatchtutorial.service.JobMetricsAggregator;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
@@ -13,9 +15,12 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JobCompletionNotificationListener implements JobExecutionListener {
 
+    private final JobMetricsAggregator jobMetricsAggregator;
+
     @Override
     public void beforeJob(@NonNull JobExecution jobExecution) {
         log.info("\n\n🎬 ========================================");
@@ -79,6 +84,12 @@ public class JobCompletionNotificationListener implements JobExecutionListener {
         } else if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
             log.info("🎉 JOB SUCCESSFULLY COMPLETED!");
         }
+
+        try {
+            jobMetricsAggregator.record(jobExecution);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not update job metrics aggregates: {}", e.getMessage());
+        }
         
         log.info("========================================\n\n");
     }
@@ -0,0 +1,39 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.service.OutputFileService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Publishes the step 3 (or staged pipeline) output file for download once the job is over. Not a step listener: the file writer is
+ * only closed after the step listeners have run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutputPublishListener implements JobExecutionListener {
+
+    private final OutputFileService outputFileService;
+
+    @Override
+    public void afterJob(@NonNull JobExecution jobExecution) {
+        boolean wroteFile = jobExecution.getStepExecutions().stream()
+                .anyMatch(s -> (s.getStepName().equals("step3WriteToFile") || s.getStepName().equals("stagedPipelineStep"))
+                        && s.getStatus() == BatchStatus.COMPLETED);
+        if (!wroteFile) {
+            return;
+        }
+        try {
+            outputFileService.publish(jobExecution.getId());
+        } catch (IOException e) {
+            log.warn("⚠️ Could not publish the output of execution {}: {}", jobExecution.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.jfr.ChunkEvent;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a {@link ChunkEvent} per chunk, from {@code beforeChunk} to the commit ({@code afterChunk}) or rollback
+ * ({@code afterChunkError}). The open event travels in the {@link ChunkContext}, so one instance serves all steps.
+ */
+@Component
+public class PipelineEventsListener implements ChunkListener {
+
+    private static final String EVENT_KEY = "jfr.chunk.event";
+    private static final String WRITE_COUNT_KEY = "jfr.chunk.writeCount";
+
+    @Override
+    public void beforeChunk(@NonNull ChunkContext context) {
+        context.setAttribute(EVENT_KEY, ChunkEvent.start());
+        context.setAttribute(WRITE_COUNT_KEY, context.getStepContext().getStepExecution().getWriteCount());
+    }
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext context) {
+        finish(context, true);
+    }
+
+    @Override
+    public void afterChunkError(@NonNull ChunkContext context) {
+        finish(context, false);
+    }
+
+    private void finish(ChunkContext context, boolean committed) {
+        Object event = context.removeAttribute(EVENT_KEY);
+        Object writeCountBefore = context.removeAttribute(WRITE_COUNT_KEY);
+        if (event instanceof ChunkEvent chunkEvent) {
+            long before = writeCountBefore instanceof Long count ? count : 0;
+            chunkEvent.finish(context.getStepContext().getStepExecution().getWriteCount() - before, committed);
+        }
+    }
+}
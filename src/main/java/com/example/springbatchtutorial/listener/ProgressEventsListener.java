@@ -0,0 +1,73 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.model.JobProgressEvent;
+import com.example.springbatchtutorial.service.JobEventBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/** Publishes job and step transitions and per-chunk progress to {@link JobEventBroadcaster} subscribers. */
+@Component
+@RequiredArgsConstructor
+public class ProgressEventsListener implements JobExecutionListener, StepExecutionListener, ChunkListener {
+
+    private final JobEventBroadcaster broadcaster;
+
+    @Override
+    public void beforeJob(@NonNull JobExecution jobExecution) {
+        if (broadcaster.hasSubscribers()) {
+            broadcaster.publish(new JobProgressEvent(JobProgressEvent.Type.JOB_STARTED, jobExecution.getId(), null,
+                    jobExecution.getStatus().toString(), 0, 0, 0, LocalDateTime.now()));
+        }
+    }
+
+    @Override
+    public void afterJob(@NonNull JobExecution jobExecution) {
+        if (broadcaster.hasSubscribers()) {
+            long read = 0, written = 0, skipped = 0;
+            for (StepExecution step : jobExecution.getStepExecutions()) {
+                read += step.getReadCount();
+                written += step.getWriteCount();
+                skipped += step.getSkipCount();
+            }
+            broadcaster.publish(new JobProgressEvent(JobProgressEvent.Type.JOB_COMPLETED, jobExecution.getId(), null,
+                    jobExecution.getStatus().toString(), read, written, skipped, LocalDateTime.now()));
+        }
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        publish(JobProgressEvent.Type.STEP_STARTED, stepExecution, stepExecution.getStatus().toString());
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        // Still STARTED here; the exit status already says how the step ended
+        ExitStatus exitStatus = stepExecution.getExitStatus();
+        publish(JobProgressEvent.Type.STEP_COMPLETED, stepExecution, exitStatus.getExitCode());
+        return exitStatus;
+    }
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        publish(JobProgressEvent.Type.CHUNK_COMMITTED, stepExecution, stepExecution.getStatus().toString());
+    }
+
+    private void publish(JobProgressEvent.Type type, StepExecution stepExecution, String status) {
+        if (broadcaster.hasSubscribers()) {
+            broadcaster.publish(new JobProgressEvent(type, stepExecution.getJobExecutionId(), stepExecution.getStepName(),
+                    status, stepExecution.getReadCount(), stepExecution.getWriteCount(), stepExecution.getSkipCount(),
+                    LocalDateTime.now()));
+        }
+    }
+}
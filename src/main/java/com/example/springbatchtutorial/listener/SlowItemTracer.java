@@ -0,0 +1,235 @@
+package com.example.springbatchtutorial.listener;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the N slowest of a random sample of items of each step execution, with the time each spent being read,
+ * processed (all retry attempts) and written.
+ *
+ * One instance serves every step. {@link #beforeStep} decides from the {@code traceSampleRate} job parameter (or the
+ * configured default) whether the step execution is traced, and if so binds a {@link StepTrace} to the step thread.
+ * When it is not, every item callback returns after one thread-local read.
+ *
+ * Items are sampled when read and followed by email through the chunk, since the processor and the age API hand back
+ * new record instances. Writers that report per-item times ({@code UpsertPersonItemWriter}) give each item its own
+ * write time; otherwise an item gets its share of the chunk write. The list ends up in the step execution context
+ * under {@link #CONTEXT_KEY}, slowest first.
+ */
+public class SlowItemTracer implements StepExecutionListener, ChunkListener, ItemReadListener<PersonRecord>,
+        ItemProcessListener<PersonRecord, PersonRecord>, ItemWriteListener<PersonRecord> {
+
+    public static final String CONTEXT_KEY = "trace.slowest";
+    public static final String SAMPLE_RATE_PARAMETER = "traceSampleRate";
+
+    private final double defaultSampleRate;
+    private final int topN;
+
+    // A chunk-oriented step runs its callbacks on the thread that runs the step
+    private final ThreadLocal<StepTrace> current = new ThreadLocal<>();
+
+    public SlowItemTracer(double defaultSampleRate, int topN) {
+        this.defaultSampleRate = defaultSampleRate;
+        this.topN = topN;
+    }
+
+    /** Whether the step running on this thread is traced. */
+    public boolean isEnabled() {
+        return current.get() != null;
+    }
+
+    /** Whether the item with this email is being traced in the current chunk; writers check before timing. */
+    public boolean isSampled(String email) {
+        StepTrace trace = current.get();
+        return trace != null && trace.inChunk.containsKey(email);
+    }
+
+    public void itemWritten(String email, long nanos) {
+        StepTrace step = current.get();
+        ItemTrace trace = step != null ? step.inChunk.get(email) : null;
+        if (trace != null) {
+            trace.writeNanos += nanos;
+            trace.writeMeasured = true;
+        }
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        String rateParam = stepExecution.getJobParameters().getString(SAMPLE_RATE_PARAMETER);
+        double sampleRate = rateParam != null ? Double.parseDouble(rateParam) : defaultSampleRate;
+        if (sampleRate > 0 && topN > 0) {
+            current.set(new StepTrace(sampleRate));
+        } else {
+            current.remove();
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        StepTrace step = current.get();
+        current.remove();
+        if (step == null) {
+            return stepExecution.getExitStatus();
+        }
+        List<ItemTrace> ordered = new ArrayList<>(step.slowest);
+        ordered.sort(Comparator.comparingLong(ItemTrace::totalNanos).reversed());
+        List<Map<String, Object>> report = new ArrayList<>(ordered.size());
+        for (ItemTrace trace : ordered) {
+            report.add(trace.toMap());
+        }
+        stepExecution.getExecutionContext().put(CONTEXT_KEY, report);
+        stepExecution.getExecutionContext().putLong("trace.sampled.count", step.sampled);
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext context) {
+        StepTrace step = current.get();
+        if (step == null) {
+            return;
+        }
+        for (ItemTrace trace : step.inChunk.values()) {
+            if (step.slowest.size() < topN) {
+                step.slowest.add(trace);
+            } else if (trace.totalNanos() > step.slowest.peek().totalNanos()) {
+                step.slowest.poll();
+                step.slowest.add(trace);
+            }
+        }
+        step.inChunk.clear();
+    }
+
+    // No afterChunkError: the fault tolerant step retries a rolled back chunk from its buffered items without
+    // reading them again, so the traces stay and keep adding process time and attempts
+
+    @Override
+    public void beforeRead() {
+        StepTrace step = current.get();
+        if (step != null) {
+            step.phaseStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterRead(@NonNull PersonRecord item) {
+        StepTrace step = current.get();
+        if (step == null || ThreadLocalRandom.current().nextDouble() >= step.sampleRate) {
+            return;
+        }
+        ItemTrace trace = new ItemTrace(item.email());
+        trace.readNanos = System.nanoTime() - step.phaseStart;
+        step.inChunk.put(item.email(), trace);
+        step.sampled++;
+    }
+
+    @Override
+    public void beforeProcess(@NonNull PersonRecord item) {
+        StepTrace step = current.get();
+        if (step != null) {
+            step.phaseStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterProcess(@NonNull PersonRecord item, PersonRecord result) {
+        processed(item);
+    }
+
+    @Override
+    public void onProcessError(@NonNull PersonRecord item, @NonNull Exception e) {
+        processed(item);
+    }
+
+    private void processed(PersonRecord item) {
+        StepTrace step = current.get();
+        ItemTrace trace = step != null ? step.inChunk.get(item.email()) : null;
+        if (trace != null) {
+            trace.processNanos += System.nanoTime() - step.phaseStart;
+            trace.processAttempts++;
+        }
+    }
+
+    @Override
+    public void beforeWrite(@NonNull Chunk<? extends PersonRecord> items) {
+        StepTrace step = current.get();
+        if (step != null) {
+            step.phaseStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterWrite(@NonNull Chunk<? extends PersonRecord> items) {
+        StepTrace step = current.get();
+        if (step == null || step.inChunk.isEmpty() || items.isEmpty()) {
+            return;
+        }
+        long share = (System.nanoTime() - step.phaseStart) / items.size();
+        for (ItemTrace trace : step.inChunk.values()) {
+            if (!trace.writeMeasured) {
+                trace.writeNanos += share;
+            }
+        }
+    }
+
+    /** Tracing state of one step execution. */
+    private static final class StepTrace {
+
+        private final double sampleRate;
+        // Min-heap on total time: the root is the fastest of the current top N and the first to be evicted
+        private final PriorityQueue<ItemTrace> slowest = new PriorityQueue<>(Comparator.comparingLong(ItemTrace::totalNanos));
+        private final Map<String, ItemTrace> inChunk = new HashMap<>();
+        private long phaseStart;
+        private long sampled;
+
+        StepTrace(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    static final class ItemTrace {
+
+        private final String email;
+        private long readNanos;
+        private long processNanos;
+        private long writeNanos;
+        private int processAttempts;
+        private boolean writeMeasured;
+
+        ItemTrace(String email) {
+            this.email = email;
+        }
+
+        long totalNanos() {
+            return readNanos + processNanos + writeNanos;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("email", email);
+            map.put("totalMicros", totalNanos() / 1_000);
+            map.put("readMicros", readNanos / 1_000);
+            map.put("processMicros", processNanos / 1_000);
+            map.put("writeMicros", writeNanos / 1_000);
+            map.put("processAttempts", processAttempts);
+            return map;
+        }
+    }
+}
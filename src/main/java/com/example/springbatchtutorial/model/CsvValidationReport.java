@@ -0,0 +1,16 @@
+package com.example.springbatchtutorial.model;
+
+import com.example.springbatchtutorial.reader.ValidationRule;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a dry run of step 1 validation over a CSV ({@code POST /api/jobs/validate}). {@code rejectedByRule}
+ * lists every rule, also those no row broke; a row counts under the first rule it breaks, as in step 1.
+ * {@code samples} holds the first messages of each broken rule, in file order.
+ */
+public record CsvValidationReport(String csvPath, long bytes, int segments, long rows, long valid, long rejected,
+                                  Map<ValidationRule, Long> rejectedByRule, Map<ValidationRule, List<String>> samples,
+                                  long durationMs, double rowsPerSecond) {
+}
@@ -0,0 +1,29 @@
+package com.example.springbatchtutorial.model;
+
+import com.example.springbatchtutorial.reader.ValidationRule;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class DatasetSpec {
+    private long rows;
+    private long seed = 42L;
+    private double invalidRatio;   // rows failing step 1 validation, spread evenly over the common rules
+    private Map<ValidationRule, Double> errorRatios = new EnumMap<>(ValidationRule.class); // per-rule ratios, override invalidRatio
+    private double duplicateRatio; // rows reusing the email of an earlier row
+    private DobDistribution dobDistribution = DobDistribution.UNIFORM;
+    private int dobFromYear = 1940;
+    private int dobToYear = 2005;
+    private boolean gzip;
+
+    public DatasetSpec(long rows, long seed, double invalidRatio, double duplicateRatio) {
+        this.rows = rows;
+        this.seed = seed;
+        this.invalidRatio = invalidRatio;
+        this.duplicateRatio = duplicateRatio;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.springbatchtutorial.model;
+
+public enum DobDistribution {
+    UNIFORM, // every day between dobFromYear and dobToYear equally likely
+    NORMAL   // bell curve centred between the bounds (sigma = range / 6), clamped to the bounds
+}
@@ -0,0 +1,49 @@
+package com.example.springbatchtutorial.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Live state of an asynchronous dataset generation, served by {@code /api/data/generations}. */
+@Getter
+public class GenerationProgress {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final DatasetSpec spec;
+    private final String path;
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime endTime;
+    private volatile String error;
+
+    public GenerationProgress(String id, DatasetSpec spec, String path) {
+        this.id = id;
+        this.spec = spec;
+        this.path = path;
+    }
+
+    public double getPercent() {
+        return spec.getRows() > 0 ? Math.round(rowsWritten.get() * 1000.0 / spec.getRows()) / 10.0 : 100.0;
+    }
+
+    public void shardWritten(long rows, long bytes) {
+        rowsWritten.addAndGet(rows);
+        bytesWritten.addAndGet(bytes);
+    }
+
+    public void completed() {
+        status = Status.COMPLETED;
+        endTime = LocalDateTime.now();
+    }
+
+    public void failed(String message) {
+        error = message;
+        status = Status.FAILED;
+        endTime = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.springbatchtutorial.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** One row per job execution, kept up to date by {@code ExecutionSummaryListener}; ids are the Spring Batch ones. */
+@Entity
+@Table(name = "job_execution_summary", indexes = {
+        @Index(name = "idx_job_summary_status", columnList = "status, id"),
+        @Index(name = "idx_job_summary_start", columnList = "start_time")
+})
+@Data
+@NoArgsConstructor
+public class JobExecutionSummary {
+
+    @Id
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "scenario")
+    private String scenario;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "exit_code")
+    private String exitCode;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    // Totals over all steps
+    @Column(name = "read_count")
+    private long readCount;
+
+    @Column(name = "write_count")
+    private long writeCount;
+
+    @Column(name = "skip_count")
+    private long skipCount;
+}
@@ -0,0 +1,59 @@
+package com.example.springbatchtutorial.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals and duration histogram of one scope ({@code job:<name>} or {@code step:<name>}) over one hour,
+ * or over all time when {@code bucketStart} is {@link #ALL_TIME}.
+ */
+@Entity
+@Table(name = "job_metrics_aggregate", uniqueConstraints = @UniqueConstraint(
+        name = "uk_job_metrics_scope_bucket", columnNames = {"scope", "bucket_start"}))
+@Data
+@NoArgsConstructor
+public class JobMetricsAggregate {
+
+    public static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scope", nullable = false)
+    private String scope;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "executions")
+    private long executions;
+
+    @Column(name = "completed")
+    private long completed;
+
+    @Column(name = "failed")
+    private long failed;
+
+    @Column(name = "duration_total_ms")
+    private long durationTotalMs;
+
+    @Column(name = "rows_read")
+    private long rowsRead;
+
+    @Column(name = "rows_written")
+    private long rowsWritten;
+
+    // DurationHistogram.encode()
+    @Lob
+    @Column(name = "duration_histogram")
+    private String durationHistogram;
+
+    public JobMetricsAggregate(String scope, LocalDateTime bucketStart) {
+        this.scope = scope;
+        this.bucketStart = bucketStart;
+    }
+}
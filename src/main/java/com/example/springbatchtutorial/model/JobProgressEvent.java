@@ -0,0 +1,21 @@
+package com.example.springbatchtutorial.model;
+
+import java.time.LocalDateTime;
+
+/** One update pushed to dashboard subscribers of {@code /api/jobs/events}. */
+public record JobProgressEvent(Type type, long jobExecutionId, String stepName, String status,
+                               long readCount, long writeCount, long skipCount, LocalDateTime timestamp) {
+
+    public enum Type {
+        JOB_STARTED,
+        STEP_STARTED,
+        CHUNK_COMMITTED, // progress snapshot; a newer one for the same step supersedes it
+        STEP_COMPLETED,
+        JOB_COMPLETED
+    }
+
+    public boolean supersedes(JobProgressEvent older) {
+        return type == Type.CHUNK_COMMITTED && older.type == Type.CHUNK_COMMITTED
+                && jobExecutionId == older.jobExecutionId && stepName.equals(older.stepName);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.springbatchtutorial.model;
 
 import jakarta.persistence.*;
 import com.example.springbatchtutorial.model.ProcessingStatus;
+import com.example.springbatchtutorial.util.Fingerprints;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -41,10 +42,20 @@ public class Person {
     @Column(name = "processing_status", nullable = false)
     private ProcessingStatus processingStatus = ProcessingStatus.IMPORTED;
     
+    // 64-bit hash of firstName, lastName, dateOfBirth and age; refreshed on every insert/update
+    @Column(name = "content_hash")
+    private Long contentHash;
+    
     public Person(String firstName, String lastName, String email, LocalDate dateOfBirth) {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
         this.dateOfBirth = dateOfBirth;
     }
-} 
\ No newline at end of file
+    
+    @PrePersist
+    @PreUpdate
+    public void refreshContentHash() {
+        this.contentHash = Fingerprints.content(firstName, lastName, dateOfBirth, age);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springbatchtutorial.model;
+
+import com.example.springbatchtutorial.util.Fingerprints;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable in-flight representation of a person used between reader, processor and writer.
+ *
+ * Holds the date of birth as an epoch day and the age as a primitive ({@link #NO_AGE} when not calculated yet),
+ * so a row costs one small object plus its strings. JPA {@link Person} entities are only created by the writer.
+ */
+public record PersonRecord(long id, String firstName, String lastName, String email, int dateOfBirthEpochDay, int age) {
+
+    public static final int NO_AGE = -1;
+
+    /** Row parsed from input, not persisted yet. */
+    public PersonRecord(String firstName, String lastName, String email, LocalDate dateOfBirth) {
+        this(0L, firstName, lastName, email, (int) dateOfBirth.toEpochDay(), NO_AGE);
+    }
+
+    /** Projection constructor used by repository queries. */
+    public PersonRecord(Long id, String firstName, String lastName, String email, LocalDate dateOfBirth, Integer age) {
+        this(id != null ? id : 0L, firstName, lastName, email, (int) dateOfBirth.toEpochDay(), age != null ? age : NO_AGE);
+    }
+
+    public boolean hasAge() {
+        return age != NO_AGE;
+    }
+
+    public LocalDate dateOfBirth() {
+        return LocalDate.ofEpochDay(dateOfBirthEpochDay);
+    }
+
+    public PersonRecord withAge(int newAge) {
+        return new PersonRecord(id, firstName, lastName, email, dateOfBirthEpochDay, newAge);
+    }
+
+    /** Same value as {@link Person#getContentHash()} for an entity holding these fields. */
+    public long contentHash(int ageForHash) {
+        return Fingerprints.content(firstName, lastName, dateOfBirthEpochDay, ageForHash);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springbatchtutorial.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RetentionPolicy {
+    private Integer keepLastExecutions; // keep persons of the N most recent executions (null = rule off)
+    private Integer keepDays;           // keep persons of executions started within X days (null = rule off)
+    private boolean archive;            // write purged rows to a gzip CSV before deleting them
+
+    public boolean isEnabled() {
+        return (keepLastExecutions != null && keepLastExecutions > 0) || (keepDays != null && keepDays > 0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.springbatchtutorial.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** Counts, duration and skip summary of one step execution, copied out of the step and its execution context. */
+@Entity
+@Table(name = "step_execution_summary", indexes = {
+        @Index(name = "idx_step_summary_job", columnList = "job_execution_id")
+})
+@Data
+@NoArgsConstructor
+public class StepExecutionSummary {
+
+    @Id
+    private Long id;
+
+    @Column(name = "job_execution_id", nullable = false)
+    private Long jobExecutionId;
+
+    @Column(name = "step_name", nullable = false)
+    private String stepName;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "read_count")
+    private long readCount;
+
+    @Column(name = "write_count")
+    private long writeCount;
+
+    @Column(name = "skip_count")
+    private long skipCount;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    // Upsert writer counts (0 for steps without one)
+    @Column(name = "inserted")
+    private int inserted;
+
+    @Column(name = "updated")
+    private int updated;
+
+    @Column(name = "unchanged")
+    private int unchanged;
+
+    @Column(name = "written")
+    private int written;
+
+    @Column(name = "collapsed")
+    private Integer collapsed;
+
+    @Column(name = "skip_summary", length = 1000)
+    private String skipSummary;
+}
@@ -0,0 +1,246 @@
+package com.example.springbatchtutorial.pipeline;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.pipeline.StagedPipeline.StageSpec;
+import com.example.springbatchtutorial.pipeline.StagedPipeline.StageStats;
+import com.example.springbatchtutorial.reader.PersonRowValidator;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.AgeCalculationService;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import com.example.springbatchtutorial.service.EmailLockStripes;
+import com.example.springbatchtutorial.util.EmailFingerprintSet;
+import com.example.springbatchtutorial.util.StringPool;
+import com.example.springbatchtutorial.writer.PersonLineAggregator;
+import com.example.springbatchtutorial.writer.UpsertPersonItemWriter;
+import com.opencsv.CSVReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Steps 1 to 3 of {@code processPersonJob} as one {@link StagedPipeline}, for {@code loadMode=PIPELINE}:
+ * <ol>
+ *   <li>{@code parse}: CSV lines into fields, one thread,</li>
+ *   <li>{@code validate}: the {@link PersonRowValidator} rules,</li>
+ *   <li>{@code age}: the batched age API call,</li>
+ *   <li>{@code persist}: {@link UpsertPersonItemWriter} in one transaction per batch, and</li>
+ *   <li>{@code export}: lines of the output file ({@code batch.output.file}).</li>
+ * </ol>
+ * Every stage keeps file order, so the last row of a repeated email is the one stored, as in the row path. Each row
+ * is stored once, with its age, instead of once per step. The file gets one line per row; if an email repeats it is
+ * rewritten from {@code persons} at the end, which is what step 3 would have read.
+ *
+ * Queue depth and utilization of every stage are gauges while the step runs
+ * ({@code batch.pipeline.queue.depth}, {@code batch.pipeline.utilization}, tagged {@code stage}) and end up in the
+ * execution context as {@code pipeline.<stage>.*}.
+ */
+@Slf4j
+public class PersonPipelineTasklet implements Tasklet, StepExecutionListener {
+
+    private final String csvPath;
+    private final Path outputFile;
+    private final Map<String, StageSpec> stages;
+    private final boolean internStrings;
+    private final AgeCalculationService ageCalculationService;
+    private final UpsertPersonItemWriter upsertWriter;
+    private final PersonRepository personRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final BatchMetrics metrics;
+
+    private final AtomicInteger validCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private int exportedCount;
+    private int repeatedEmails;
+    private Tags tags;
+    private StagedPipeline pipeline;
+
+    public PersonPipelineTasklet(String csvPath, String outputFile, Map<String, StageSpec> stages, boolean internStrings,
+                                 AgeCalculationService ageCalculationService, PersonRepository personRepository,
+                                 EmailLockStripes locks, PlatformTransactionManager transactionManager, BatchMetrics metrics) {
+        this.csvPath = csvPath;
+        this.outputFile = Path.of(outputFile);
+        this.stages = stages;
+        this.internStrings = internStrings;
+        this.ageCalculationService = ageCalculationService;
+        // Its own writer: the slow-item tracer it would otherwise share is not thread-safe
+        this.upsertWriter = new UpsertPersonItemWriter(personRepository, metrics);
+        this.upsertWriter.setLocks(locks);
+        this.personRepository = personRepository;
+        this.transactionManager = transactionManager;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        validCount.set(0);
+        rejectedCount.set(0);
+        writtenCount.set(0);
+        exportedCount = 0;
+        repeatedEmails = 0;
+        pipeline = null;
+        tags = metrics.tags(stepExecution);
+        upsertWriter.beforeStep(stepExecution);
+    }
+
+    @Override
+    public RepeatStatus execute(@NonNull StepContribution contribution, @NonNull ChunkContext chunkContext) throws Exception {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        File file = new File(csvPath);
+        if (!file.isFile() || file.length() == 0) {
+            throw new RuntimeException("CSV file not found: " + csvPath);
+        }
+        log.info("🧵 Staged pipeline over {} ({} bytes): {}", csvPath, file.length(), stages);
+        Counter rejected = metrics.counter("batch.items.rejected", "Items rejected by validation or marked REJECTED", tags);
+        // The validator's name pool is not thread-safe: one validator per validate thread
+        ThreadLocal<PersonRowValidator> validators =
+                ThreadLocal.withInitial(() -> new PersonRowValidator(internStrings ? new StringPool(4096) : null));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        PersonLineAggregator lines = new PersonLineAggregator();
+        // Repeated emails only decide whether the file is rebuilt, so a fingerprint match is taken as a repeat
+        String[] probe = new String[1];
+        EmailFingerprintSet exported = new EmailFingerprintSet(1 << 16, owner -> probe[0]);
+
+        Path output = outputFile.toAbsolutePath();
+        Files.createDirectories(output.getParent());
+        // Written next to the output file and moved over it: the output file may be hard-linked into published snapshots
+        Path partial = output.resolveSibling(output.getFileName() + ".part");
+        List<Meter> gauges = new ArrayList<>();
+        try (CSVReader csv = new CSVReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+             BufferedWriter out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            String[] header = csv.readNext();
+            log.info("📋 CSV Header: {}", header != null ? String.join(", ", header) : "<empty>");
+            AtomicInteger lineNumber = new AtomicInteger(1);
+            pipeline = StagedPipeline.<CsvRow>from("parse", stages.get("parse").batchSize(), () -> {
+                        String[] fields = csv.readNext();
+                        return fields != null ? new CsvRow(lineNumber.incrementAndGet(), fields) : null;
+                    })
+                    .threadContext(() -> StepSynchronizationManager.register(stepExecution), StepSynchronizationManager::close)
+                    .stage("validate", stages.get("validate"), (List<CsvRow> rows) -> {
+                        PersonRowValidator validator = validators.get();
+                        List<PersonRecord> valid = new ArrayList<>(rows.size());
+                        for (CsvRow row : rows) {
+                            PersonRecord person = validator.validate(row.fields(), row.lineNumber(), (lineNo, rule, error) -> {
+                                rejectedCount.incrementAndGet();
+                                rejected.increment();
+                                log.warn("⚠️ {}", error);
+                            });
+                            if (person != null) {
+                                valid.add(person);
+                            }
+                        }
+                        validCount.addAndGet(valid.size());
+                        return valid;
+                    })
+                    .stage("age", stages.get("age"), ageCalculationService::calculateAgesForPersons)
+                    .stage("persist", stages.get("persist"), (List<PersonRecord> persons) -> {
+                        transaction.executeWithoutResult(status -> upsertWriter.write(new Chunk<>(persons)));
+                        writtenCount.addAndGet(persons.size());
+                        return persons;
+                    })
+                    .to("export", stages.get("export"), (List<PersonRecord> persons) -> {
+                        for (PersonRecord person : persons) {
+                            if (!person.hasAge()) {
+                                continue;
+                            }
+                            probe[0] = person.email();
+                            if (exported.putIfAbsent(probe[0], exportedCount) >= 0) {
+                                repeatedEmails++;
+                            }
+                            out.write(lines.aggregate(person));
+                            out.newLine();
+                            exportedCount++;
+                        }
+                    });
+            for (StageStats stage : pipeline.stats()) {
+                Tags stageTags = tags.and("stage", stage.name());
+                StagedPipeline running = pipeline;
+                gauges.add(metrics.gauge("batch.pipeline.queue.depth", "Items waiting in a pipeline stage's input queue",
+                        stageTags, running, p -> p.stats(stage.name()).queueDepth()));
+                gauges.add(metrics.gauge("batch.pipeline.utilization", "Share of a pipeline stage's thread time spent working",
+                        stageTags, running, p -> p.stats(stage.name()).utilization()));
+            }
+            pipeline.run();
+        } finally {
+            gauges.forEach(metrics.registry()::remove);
+        }
+
+        if (validCount.get() == 0) {
+            Files.deleteIfExists(partial);
+            log.error("❌ No valid records found in CSV file. Job will fail.");
+            throw new RuntimeException("No valid records found in CSV file. Please check the input data.");
+        }
+        if (repeatedEmails > 0) {
+            List<PersonRecord> persons = personRepository.findRecordsWithAgeByJobExecutionId(stepExecution.getJobExecutionId());
+            log.info("   🔁 {} rows repeated an email; rewriting {} from {} stored persons", repeatedEmails, output, persons.size());
+            try (BufferedWriter out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                for (PersonRecord person : persons) {
+                    out.write(lines.aggregate(person));
+                    out.newLine();
+                }
+            }
+            exportedCount = persons.size();
+        }
+        Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        stepExecution.setReadCount(validCount.get());
+        contribution.incrementWriteCount(writtenCount.get());
+        return RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        upsertWriter.afterStep(stepExecution);
+        var context = stepExecution.getExecutionContext();
+        context.putInt("rejected.count", rejectedCount.get());
+        context.putInt("exported.count", exportedCount);
+        if (pipeline != null) {
+            StageStats bottleneck = null;
+            for (StageStats stage : pipeline.stats()) {
+                String prefix = "pipeline." + stage.name() + ".";
+                context.putLong(prefix + "items", stage.items());
+                context.putDouble(prefix + "utilization", stage.utilization());
+                context.putLong(prefix + "idle.ms", stage.idleMillis());
+                context.putLong(prefix + "blocked.ms", stage.blockedMillis());
+                log.info("   🧵 {} x{} (batch {}): {} items in {} batches, {}% busy, idle {} ms, blocked {} ms",
+                        stage.name(), stage.threads(), stage.batchSize(), stage.items(), stage.batches(),
+                        Math.round(stage.utilization() * 100), stage.idleMillis(), stage.blockedMillis());
+                if (bottleneck == null || stage.utilization() > bottleneck.utilization()) {
+                    bottleneck = stage;
+                }
+            }
+            if (bottleneck != null) {
+                context.putString("pipeline.bottleneck", bottleneck.name());
+                log.info("   🧵 Busiest stage: {}", bottleneck.name());
+            }
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    /** A CSV record and its line number, between the parse and validate stages. */
+    private record CsvRow(int lineNumber, String[] fields) {
+    }
+}
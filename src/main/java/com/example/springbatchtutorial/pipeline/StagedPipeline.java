@@ -0,0 +1,317 @@
+package com.example.springbatchtutorial.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A source and a chain of stages connected by bounded queues, every stage with its own threads and batch size.
+ *
+ * Each stage thread takes up to {@code batchSize} items from its input queue, runs the stage function on them and
+ * puts the results on the next stage's queue, blocking while that queue is full. A stage marked ordered hands its
+ * output on in input order even with several threads; batches that finish early wait in a small reorder buffer.
+ * The first exception from any stage stops every thread and is rethrown by {@link #run()}.
+ *
+ * {@link #stats()} can be read while the pipeline runs: queue depth, items, and how busy each stage's threads were,
+ * which is where the bottleneck shows.
+ */
+public final class StagedPipeline {
+
+    private static final long POLL_MILLIS = 50;
+
+    /** Produces the pipeline's input one item at a time; {@code null} ends it. */
+    @FunctionalInterface
+    public interface Source<T> {
+        T next() throws Exception;
+    }
+
+    /** One stage's work on one batch; the returned list goes to the next stage. */
+    @FunctionalInterface
+    public interface BatchFunction<I, O> {
+        List<O> apply(List<I> batch) throws Exception;
+    }
+
+    /** The last stage's work on one batch. */
+    @FunctionalInterface
+    public interface BatchConsumer<I> {
+        void accept(List<I> batch) throws Exception;
+    }
+
+    /**
+     * Threads and items per batch of a stage, and how many items its input queue holds. With {@code ordered}, the
+     * stage's output keeps its input order.
+     */
+    public record StageSpec(int threads, int batchSize, int queueCapacity, boolean ordered) {
+        public StageSpec {
+            if (threads < 1 || batchSize < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("threads, batchSize and queueCapacity must be positive");
+            }
+        }
+    }
+
+    /**
+     * Snapshot of one stage. {@code utilization} is the share of its threads' time spent in the stage function;
+     * {@code idleMillis} is time waiting for input and {@code blockedMillis} time waiting for room downstream.
+     */
+    public record StageStats(String name, int threads, int batchSize, int queueDepth, int queueCapacity,
+                             long items, long batches, double utilization, long idleMillis, long blockedMillis) {
+    }
+
+    public static <T> Builder<T> from(String name, int batchSize, Source<T> source) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        return new Builder<>(new ArrayList<>(), failure,
+                new Stage(name, new StageSpec(1, batchSize, 1, true), null, source, failure));
+    }
+
+    public static final class Builder<T> {
+
+        private final List<Stage> stages;
+        private final AtomicReference<Throwable> failure;
+        private Runnable threadEnter = () -> { };
+        private Runnable threadExit = () -> { };
+
+        private Builder(List<Stage> stages, AtomicReference<Throwable> failure, Stage last) {
+            this.stages = stages;
+            this.failure = failure;
+            stages.add(last);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<R> stage(String name, StageSpec spec, BatchFunction<T, R> function) {
+            Builder<R> next = new Builder<>(stages, failure,
+                    new Stage(name, spec, (BatchFunction<Object, Object>) function, null, failure));
+            next.threadEnter = threadEnter;
+            next.threadExit = threadExit;
+            return next;
+        }
+
+        /** Runs around every pipeline thread, e.g. to make a step's context visible to the stage functions. */
+        public Builder<T> threadContext(Runnable enter, Runnable exit) {
+            this.threadEnter = enter;
+            this.threadExit = exit;
+            return this;
+        }
+
+        public StagedPipeline to(String name, StageSpec spec, BatchConsumer<T> consumer) {
+            stage(name, spec, (List<T> batch) -> {
+                consumer.accept(batch);
+                return List.of();
+            });
+            return new StagedPipeline(stages, failure, threadEnter, threadExit);
+        }
+    }
+
+    private final List<Stage> stages;
+    private final Runnable threadEnter;
+    private final Runnable threadExit;
+    private final AtomicReference<Throwable> failure;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+
+    private StagedPipeline(List<Stage> stages, AtomicReference<Throwable> failure, Runnable threadEnter, Runnable threadExit) {
+        this.stages = List.copyOf(stages);
+        this.failure = failure;
+        this.threadEnter = threadEnter;
+        this.threadExit = threadExit;
+        for (int i = 0; i < this.stages.size() - 1; i++) {
+            this.stages.get(i).next = this.stages.get(i + 1);
+        }
+    }
+
+    /** Runs the pipeline to the end on its own threads and waits for it; rethrows the first stage failure. */
+    public void run() throws Exception {
+        int threads = stages.stream().mapToInt(s -> s.spec.threads()).sum();
+        CountDownLatch done = new CountDownLatch(threads);
+        startedNanos = System.nanoTime();
+        for (Stage stage : stages) {
+            for (int i = 0; i < stage.spec.threads(); i++) {
+                Thread thread = new Thread(() -> {
+                    threadEnter.run();
+                    try {
+                        stage.work();
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        stage.workerDone();
+                        threadExit.run();
+                        done.countDown();
+                    }
+                }, "pipeline-" + stage.name + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            finishedNanos = System.nanoTime();
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception exception) {
+            throw exception;
+        } else if (error instanceof Error e) {
+            throw e;
+        }
+    }
+
+    public List<StageStats> stats() {
+        long elapsed = Math.max(1, (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startedNanos);
+        return stages.stream().map(stage -> stage.stats(elapsed)).toList();
+    }
+
+    /** Live values for one stage, by name; the same numbers as {@link #stats()}. */
+    public StageStats stats(String stageName) {
+        return stats().stream().filter(s -> s.name().equals(stageName)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No stage " + stageName));
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final StageSpec spec;
+        private final BatchFunction<Object, Object> function;
+        private final Source<?> source;
+        private final BlockingQueue<Object> input;
+        private final AtomicReference<Throwable> failure;
+        private Stage next;
+
+        // Batches are numbered as they are taken, under takeLock, so input order is known
+        private final Object takeLock = new Object();
+        private long nextTaken;
+        // Ordered stages: output of batches that finished before an earlier one, by number
+        private final Map<Long, List<Object>> reorder = new HashMap<>();
+        private long nextEmitted;
+
+        private volatile boolean inputClosed;
+        private final AtomicInteger running;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder idleNanos = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+
+        Stage(String name, StageSpec spec, BatchFunction<Object, Object> function, Source<?> source,
+              AtomicReference<Throwable> failure) {
+            this.name = name;
+            this.failure = failure;
+            this.spec = spec;
+            this.function = function;
+            this.source = source;
+            this.input = source == null ? new ArrayBlockingQueue<>(spec.queueCapacity()) : null;
+            this.running = new AtomicInteger(spec.threads());
+        }
+
+        void work() throws Exception {
+            if (source != null) {
+                produce();
+                return;
+            }
+            while (failure.get() == null) {
+                List<Object> batch = new ArrayList<>(spec.batchSize());
+                long taken;
+                long waitStarted = System.nanoTime();
+                synchronized (takeLock) {
+                    Object first = null;
+                    while (first == null) {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        first = input.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (first == null && inputClosed && input.isEmpty()) {
+                            return;
+                        }
+                    }
+                    batch.add(first);
+                    input.drainTo(batch, spec.batchSize() - 1);
+                    taken = nextTaken++;
+                }
+                long started = System.nanoTime();
+                idleNanos.add(started - waitStarted);
+                List<Object> output = function.apply(batch);
+                busyNanos.add(System.nanoTime() - started);
+                items.add(batch.size());
+                batches.increment();
+                emit(taken, output);
+            }
+        }
+
+        private void produce() throws Exception {
+            List<Object> batch = new ArrayList<>(spec.batchSize());
+            long started = System.nanoTime();
+            Object item;
+            while (failure.get() == null && (item = source.next()) != null) {
+                batch.add(item);
+                if (batch.size() == spec.batchSize()) {
+                    busyNanos.add(System.nanoTime() - started);
+                    items.add(batch.size());
+                    batches.increment();
+                    forward(batch);
+                    batch = new ArrayList<>(spec.batchSize());
+                    started = System.nanoTime();
+                }
+            }
+            busyNanos.add(System.nanoTime() - started);
+            if (!batch.isEmpty()) {
+                items.add(batch.size());
+                batches.increment();
+                forward(batch);
+            }
+        }
+
+        private void emit(long taken, List<Object> output) throws InterruptedException {
+            if (next == null) {
+                return;
+            }
+            if (!spec.ordered() || spec.threads() == 1) {
+                forward(output);
+                return;
+            }
+            synchronized (reorder) {
+                reorder.put(taken, output);
+                List<Object> ready;
+                while ((ready = reorder.remove(nextEmitted)) != null) {
+                    nextEmitted++;
+                    forward(ready);
+                }
+            }
+        }
+
+        private void forward(List<Object> output) throws InterruptedException {
+            for (Object item : output) {
+                if (!next.input.offer(item)) {
+                    long started = System.nanoTime();
+                    while (!next.input.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                    }
+                    blockedNanos.add(System.nanoTime() - started);
+                }
+            }
+        }
+
+        void workerDone() {
+            if (running.decrementAndGet() == 0 && next != null) {
+                next.inputClosed = true;
+            }
+        }
+
+        StageStats stats(long elapsedNanos) {
+            return new StageStats(name, spec.threads(), spec.batchSize(), input != null ? input.size() : 0,
+                    input != null ? spec.queueCapacity() : 0, items.sum(), batches.sum(),
+                    Math.min(1.0, busyNanos.sum() / ((double) elapsedNanos * spec.threads())),
+                    idleNanos.sum() / 1_000_000, blockedNanos.sum() / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.springbatchtutorial.reader;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.util.IsoDates;
+import com.example.springbatchtutorial.util.StringPool;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Validation rules applied to every CSV row of step 1, shared by all readers of person CSVs.
+ *
+ * One instance per reader: date bounds are fixed at construction and the optional {@link StringPool} is not
+ * thread-safe. Valid rows come back as {@link PersonRecord}s; invalid rows are reported to the
+ * {@link RejectionHandler} and {@code null} is returned.
+ */
+public class PersonRowValidator {
+
+    @FunctionalInterface
+    public interface RejectionHandler {
+        void reject(int lineNumber, ValidationRule rule, String message);
+    }
+
+    private final StringPool names;
+    // Date bounds as epoch days so each row is validated without building LocalDate objects
+    private final long todayEpochDay;
+    private final long oldestEpochDay;
+
+    public PersonRowValidator(StringPool names) {
+        LocalDate today = LocalDate.now();
+        this.names = names;
+        this.todayEpochDay = today.toEpochDay();
+        this.oldestEpochDay = today.minusYears(150).toEpochDay();
+    }
+
+    public PersonRecord validate(String[] line, int lineNumber, RejectionHandler rejections) {
+        // Validate line structure
+        if (line.length < 4) {
+            rejections.reject(lineNumber, ValidationRule.INSUFFICIENT_COLUMNS,
+                    String.format("Line %d: Insufficient columns (expected 4, got %d)", lineNumber, line.length));
+            return null;
+        }
+
+        // Validate individual fields
+        String firstName = line[0] != null ? line[0].trim() : "";
+        String lastName = line[1] != null ? line[1].trim() : "";
+        String email = line[2] != null ? line[2].trim() : "";
+        String dateOfBirthStr = line[3] != null ? line[3].trim() : "";
+
+        // Check for empty required fields
+        if (firstName.isEmpty() || lastName.isEmpty() || email.isEmpty() || dateOfBirthStr.isEmpty()) {
+            rejections.reject(lineNumber, ValidationRule.EMPTY_FIELD,
+                    String.format("Line %d: Empty required field - FirstName: '%s', LastName: '%s', Email: '%s', DateOfBirth: '%s'",
+                            lineNumber, firstName, lastName, email, dateOfBirthStr));
+            return null;
+        }
+
+        // Validate email format (basic validation)
+        if (email.indexOf('@') < 0) {
+            rejections.reject(lineNumber, ValidationRule.INVALID_EMAIL,
+                    String.format("Line %d: Invalid email format: %s", lineNumber, email));
+            return null;
+        }
+
+        // Validate and parse date
+        try {
+            long dateOfBirth = IsoDates.parseEpochDay(dateOfBirthStr);
+
+            // Validate date is not in the future
+            if (dateOfBirth > todayEpochDay) {
+                rejections.reject(lineNumber, ValidationRule.FUTURE_DATE,
+                        String.format("Line %d: Date of birth is in the future: %s", lineNumber, dateOfBirthStr));
+                return null;
+            }
+
+            // Validate reasonable age (not older than 150 years)
+            if (dateOfBirth < oldestEpochDay) {
+                rejections.reject(lineNumber, ValidationRule.UNREALISTIC_DATE,
+                        String.format("Line %d: Date of birth seems unrealistic: %s", lineNumber, dateOfBirthStr));
+                return null;
+            }
+
+            // Create in-flight record (entities are only built by the writer)
+            if (names != null) {
+                firstName = names.canonical(firstName);
+                lastName = names.canonical(lastName);
+            }
+            return new PersonRecord(0L, firstName, lastName, email, (int) dateOfBirth, PersonRecord.NO_AGE);
+        } catch (DateTimeParseException e) {
+            rejections.reject(lineNumber, ValidationRule.INVALID_DATE_FORMAT,
+                    String.format("Line %d: Invalid date format '%s'. Expected format: yyyy-MM-dd", lineNumber, dateOfBirthStr));
+            return null;
+        } catch (Exception e) {
+            rejections.reject(lineNumber, ValidationRule.UNEXPECTED_ERROR,
+                    String.format("Line %d: Unexpected error parsing line: %s - Error: %s", lineNumber, String.join(",", line), e.getMessage()));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.springbatchtutorial.reader;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Step 1 reader over a CSV that is still arriving (an upload): each {@link #read()} parses and validates rows
+ * until it finds a valid one, so validation and chunk writes run while the rest of the body is on the network.
+ * Blocks while no bytes are available. A transport error fails the step; a body without a single valid row
+ * fails it at the end, like the file reader.
+ */
+@Slf4j
+public class StreamingCsvPersonReader implements ItemReader<PersonRecord> {
+
+    private final CSVReader csv;
+    private final PersonRowValidator validator;
+    private final PersonRowValidator.RejectionHandler rejections;
+    private int lineNumber = 1;
+    private int validLines;
+    private int invalidLines;
+    private boolean headerSkipped;
+    private boolean finished;
+
+    public StreamingCsvPersonReader(Reader source, PersonRowValidator validator, PersonRowValidator.RejectionHandler rejections) {
+        this.csv = new CSVReader(source);
+        this.validator = validator;
+        this.rejections = rejections;
+    }
+
+    @Override
+    public PersonRecord read() {
+        if (finished) {
+            return null;
+        }
+        try {
+            if (!headerSkipped) {
+                String[] header = csv.readNext();
+                headerSkipped = true;
+                log.info("📋 CSV Header (upload): {}", header != null ? String.join(", ", header) : "<empty>");
+            }
+            String[] line;
+            while ((line = csv.readNext()) != null) {
+                lineNumber++;
+                PersonRecord person = validator.validate(line, lineNumber, rejections);
+                if (person != null) {
+                    validLines++;
+                    return person;
+                }
+                invalidLines++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Upload stream failed at line " + lineNumber, e);
+        } catch (CsvValidationException e) {
+            throw new IllegalStateException("Malformed CSV at line " + lineNumber + ": " + e.getMessage(), e);
+        }
+        finished = true;
+        log.info("📊 Upload CSV summary - valid: {}, invalid: {}", validLines, invalidLines);
+        if (validLines == 0) {
+            throw new IllegalStateException("No valid records found in the uploaded CSV. Please check the input data.");
+        }
+        return null;
+    }
+}
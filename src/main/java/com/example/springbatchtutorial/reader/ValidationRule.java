@@ -0,0 +1,11 @@
+package com.example.springbatchtutorial.reader;
+
+public enum ValidationRule {
+    INSUFFICIENT_COLUMNS, // fewer than 4 columns
+    EMPTY_FIELD,          // a required field is blank
+    INVALID_EMAIL,        // no '@' in email
+    INVALID_DATE_FORMAT,  // date of birth is not yyyy-MM-dd
+    FUTURE_DATE,          // date of birth after today
+    UNREALISTIC_DATE,     // date of birth more than 150 years ago
+    UNEXPECTED_ERROR      // anything else thrown while parsing the row
+}
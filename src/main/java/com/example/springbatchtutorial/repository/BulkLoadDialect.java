@@ -0,0 +1,32 @@
+package com.example.springbatchtutorial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The database-specific parts of the bulk load path: the staging table, the native CSV loader and the two
+ * functions the set-based validation and merge need. Everything else is portable SQL in
+ * {@link com.example.springbatchtutorial.writer.BulkLoadTasklet}.
+ *
+ * The staging table has the columns {@code line_number BIGINT, first_name, last_name, email,
+ * date_of_birth_text VARCHAR, date_of_birth DATE, content_hash BIGINT, rule VARCHAR, outcome VARCHAR}; the reject
+ * table {@code person_rejects} is shared by all runs and keyed by job execution.
+ */
+public interface BulkLoadDialect {
+
+    /** DDL that must run outside the load transaction: functions, the reject table and the run's staging table. */
+    void createStagingTable(JdbcTemplate jdbc, String table);
+
+    void dropStagingTable(JdbcTemplate jdbc, String table);
+
+    /**
+     * Loads every record of the CSV file, header included, into {@code line_number} and the four text columns
+     * (trimmed, empty as {@code NULL}) with the database's own loader. Returns the number of records loaded.
+     */
+    int loadCsv(JdbcTemplate jdbc, String table, String csvPath);
+
+    /** SQL expression parsing a {@code yyyy-MM-dd} text into a DATE exactly as step 1 does, {@code NULL} if it cannot. */
+    String parseDate(String text);
+
+    /** SQL expression computing {@code Person.contentHash} for the given column expressions. */
+    String contentHash(String firstName, String lastName, String dateOfBirth, String age);
+}
@@ -0,0 +1,238 @@
+package com.example.springbatchtutorial.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Job repository that can keep a running step's bookkeeping in memory.
+ *
+ * A chunk-oriented step writes its step execution row and its serialized execution context to the job repository
+ * on every chunk commit. In {@code deferred} mode (the {@code repositoryMode} job parameter, or
+ * {@code batch.repository.mode} for runs without one) those writes are skipped while the step is running: the
+ * {@link StepExecution} keeps counting in memory and is written once, with its final status, when the step ends.
+ * Job instances, job executions and the start and end of every step still go straight to the JDBC repository, so
+ * the {@code JobExplorer} view of a finished run is the same in both modes.
+ *
+ * What a deferred step gives up: while it runs the tables show it as just started with no counts, and a crash loses
+ * its progress, so a restart runs it from the beginning. With {@code flush-interval-ms} above 0 the in-memory state
+ * is written at most that often instead of never (batched writes). Stop requests are still seen: the job execution
+ * status is polled with one narrow query every {@code stop-check-ms}.
+ */
+@Slf4j
+public class DeferredJobRepository implements JobRepository {
+
+    public static final String MODE_PARAMETER = "repositoryMode";
+
+    public enum Mode { JDBC, DEFERRED }
+
+    private final JobRepository delegate;
+    private final ObjectProvider<DataSource> dataSource;
+    private final Mode defaultMode;
+    private final long flushIntervalNanos;
+    private final long stopCheckNanos;
+    private final String statusQuery;
+    private final Map<Long, StepState> running = new ConcurrentHashMap<>();
+    private volatile JdbcTemplate jdbcTemplate;
+
+    public DeferredJobRepository(JobRepository delegate, ObjectProvider<DataSource> dataSource, Mode defaultMode,
+                                 long flushIntervalMillis, long stopCheckMillis, String tablePrefix) {
+        this.delegate = delegate;
+        this.dataSource = dataSource;
+        this.defaultMode = defaultMode;
+        this.flushIntervalNanos = flushIntervalMillis * 1_000_000;
+        this.stopCheckNanos = stopCheckMillis * 1_000_000;
+        this.statusQuery = "SELECT STATUS FROM " + tablePrefix + "JOB_EXECUTION WHERE JOB_EXECUTION_ID = ?";
+    }
+
+    public Mode modeOf(JobParameters parameters) {
+        String mode = parameters.getString(MODE_PARAMETER);
+        return mode != null && !mode.isBlank() ? Mode.valueOf(mode.trim().toUpperCase()) : defaultMode;
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        StepState state = deferrable(stepExecution);
+        if (state == null) {
+            delegate.update(stepExecution);
+            return;
+        }
+        long now = System.nanoTime();
+        if (flushIntervalNanos > 0 && now - state.lastFlush >= flushIntervalNanos) {
+            state.lastFlush = now;
+            state.lastStopCheck = now;
+            // The JDBC update also picks up a stop request
+            delegate.update(stepExecution);
+            delegate.updateExecutionContext(stepExecution);
+            return;
+        }
+        if (now - state.lastStopCheck >= stopCheckNanos) {
+            state.lastStopCheck = now;
+            if (stopRequested(stepExecution)) {
+                // Let the JDBC repository synchronize the job execution and mark the step terminate-only
+                delegate.update(stepExecution);
+                return;
+            }
+        }
+        state.deferredWrites++;
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        StepState state = deferrable(stepExecution);
+        if (state == null) {
+            delegate.updateExecutionContext(stepExecution);
+            return;
+        }
+        state.deferredWrites++;
+    }
+
+    /**
+     * The state of a running step in deferred mode, or {@code null} when this write must go through: JDBC mode, or
+     * the step is starting or has its final status (the last context and execution writes of {@code AbstractStep}).
+     */
+    private StepState deferrable(StepExecution stepExecution) {
+        Long id = stepExecution.getId();
+        if (id == null || modeOf(stepExecution.getJobParameters()) != Mode.DEFERRED) {
+            return null;
+        }
+        if (stepExecution.getStatus() != BatchStatus.STARTED || stepExecution.getEndTime() != null) {
+            StepState finished = running.remove(id);
+            if (finished != null && finished.deferredWrites > 0) {
+                log.debug("🗃️ Step {} ({}): {} metadata writes deferred to the end of the step",
+                        stepExecution.getStepName(), id, finished.deferredWrites);
+            }
+            return null;
+        }
+        // The first update of a step (STARTING -> STARTED) is written, so the row shows when the step began
+        StepState state = running.get(id);
+        if (state == null) {
+            running.put(id, new StepState(System.nanoTime()));
+            return null;
+        }
+        return state;
+    }
+
+    private boolean stopRequested(StepExecution stepExecution) {
+        JdbcTemplate jdbc = jdbcTemplate;
+        if (jdbc == null) {
+            jdbc = jdbcTemplate = new JdbcTemplate(dataSource.getObject());
+        }
+        List<String> status = jdbc.queryForList(statusQuery, String.class, stepExecution.getJobExecutionId());
+        return !status.isEmpty() && BatchStatus.STOPPING.name().equals(status.get(0));
+    }
+
+    private static final class StepState {
+        private long lastFlush;
+        private long lastStopCheck;
+        private long deferredWrites;
+
+        StepState(long now) {
+            this.lastFlush = now;
+            this.lastStopCheck = now;
+        }
+    }
+
+    // Everything else goes straight to the JDBC repository
+
+    @Override
+    public List<String> getJobNames() {
+        return delegate.getJobNames();
+    }
+
+    @Override
+    public List<JobInstance> findJobInstancesByName(String jobName, int start, int count) {
+        return delegate.findJobInstancesByName(jobName, start, count);
+    }
+
+    @Override
+    public List<JobExecution> findJobExecutions(JobInstance jobInstance) {
+        return delegate.findJobExecutions(jobInstance);
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public JobInstance getJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.getJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public long getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void deleteStepExecution(StepExecution stepExecution) {
+        delegate.deleteStepExecution(stepExecution);
+    }
+
+    @Override
+    public void deleteJobExecution(JobExecution jobExecution) {
+        delegate.deleteJobExecution(jobExecution);
+    }
+
+    @Override
+    public void deleteJobInstance(JobInstance jobInstance) {
+        delegate.deleteJobInstance(jobInstance);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springbatchtutorial.repository;
+
+import com.example.springbatchtutorial.util.Fingerprints;
+import com.example.springbatchtutorial.util.IsoDates;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * H2: {@code CSVREAD} into a {@code NOT PERSISTENT} staging table (H2's counterpart of an unlogged table), and the
+ * date parsing and content hash bound as Java functions so they match step 1 bit for bit.
+ *
+ * {@code CSVREAD} skips blank lines and reads a missing trailing column like an empty one, as {@code NULL};
+ * {@link com.example.springbatchtutorial.writer.BulkLoadTasklet} accounts for both.
+ */
+@Component
+public class H2BulkLoadDialect implements BulkLoadDialect {
+
+    @Override
+    public void createStagingTable(JdbcTemplate jdbc, String table) {
+        jdbc.execute("CREATE ALIAS IF NOT EXISTS BULK_ISO_DATE FOR '" + H2BulkLoadDialect.class.getName() + ".isoDate'");
+        jdbc.execute("CREATE ALIAS IF NOT EXISTS BULK_CONTENT_HASH FOR '" + H2BulkLoadDialect.class.getName() + ".fingerprint'");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS person_rejects (job_execution_id BIGINT NOT NULL, line_number BIGINT, "
+                + "rule VARCHAR(32) NOT NULL, first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255), "
+                + "date_of_birth VARCHAR(255))");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS person_rejects_job_execution ON person_rejects (job_execution_id)");
+        jdbc.execute("CREATE MEMORY TABLE " + table + " (line_number BIGINT PRIMARY KEY, first_name VARCHAR(255), "
+                + "last_name VARCHAR(255), email VARCHAR(255), date_of_birth_text VARCHAR(255), date_of_birth DATE, "
+                + "content_hash BIGINT, rule VARCHAR(32), outcome VARCHAR(16)) NOT PERSISTENT");
+    }
+
+    @Override
+    public void dropStagingTable(JdbcTemplate jdbc, String table) {
+        jdbc.execute("DROP TABLE IF EXISTS " + table);
+    }
+
+    @Override
+    public int loadCsv(JdbcTemplate jdbc, String table, String csvPath) {
+        // CSVREAD takes no bind parameter for the file name; with a column list the header is an ordinary record
+        return jdbc.update("INSERT INTO " + table + " (line_number, first_name, last_name, email, date_of_birth_text) "
+                + "SELECT ROWNUM(), NULLIF(TRIM(C1), ''), NULLIF(TRIM(C2), ''), NULLIF(TRIM(C3), ''), NULLIF(TRIM(C4), '') "
+                + "FROM CSVREAD('" + csvPath.replace("'", "''") + "', 'C1,C2,C3,C4', 'charset=UTF-8')");
+    }
+
+    @Override
+    public String parseDate(String text) {
+        return "BULK_ISO_DATE(" + text + ")";
+    }
+
+    @Override
+    public String contentHash(String firstName, String lastName, String dateOfBirth, String age) {
+        return "BULK_CONTENT_HASH(" + firstName + ", " + lastName + ", " + dateOfBirth + ", " + age + ")";
+    }
+
+    /** {@code BULK_ISO_DATE}: {@link IsoDates#parseEpochDay} as a DATE, {@code NULL} where step 1 rejects the format. */
+    public static LocalDate isoDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDate.ofEpochDay(IsoDates.parseEpochDay(text));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** {@code BULK_CONTENT_HASH}: the hash {@code Person} stores on every insert and update. */
+    public static Long fingerprint(String firstName, String lastName, LocalDate dateOfBirth, Integer age) {
+        return Fingerprints.content(firstName, lastName, dateOfBirth, age);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.springbatchtutorial.repository;
+
+import com.example.springbatchtutorial.model.JobExecutionSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobExecutionSummaryRepository extends JpaRepository<JobExecutionSummary, Long> {
+
+    /** Keyset page, newest first: pass the last id of the previous page as {@code beforeId}. */
+    @Query("select s from JobExecutionSummary s where (:beforeId is null or s.id < :beforeId) "
+            + "and (:status is null or s.status = :status) "
+            + "and (:from is null or s.startTime >= :from) and (:to is null or s.startTime < :to) order by s.id desc")
+    List<JobExecutionSummary> findPage(@Param("beforeId") Long beforeId, @Param("status") String status,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("select max(s.id) from JobExecutionSummary s")
+    Long findMaxId();
+}
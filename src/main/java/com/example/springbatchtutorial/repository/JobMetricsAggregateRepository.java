@@ -0,0 +1,19 @@
+package com.example.springbatchtutorial.repository;
+
+import com.example.springbatchtutorial.model.JobMetricsAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobMetricsAggregateRepository extends JpaRepository<JobMetricsAggregate, Long> {
+
+    Optional<JobMetricsAggregate> findByScopeAndBucketStart(String scope, LocalDateTime bucketStart);
+
+    List<JobMetricsAggregate> findByBucketStart(LocalDateTime bucketStart);
+
+    List<JobMetricsAggregate> findByBucketStartGreaterThanEqual(LocalDateTime from);
+}
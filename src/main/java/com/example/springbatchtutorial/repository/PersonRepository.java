@@ -1,6 +1,9 @@
 package com.example.springbatchtutorial.repository;
 
 import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.model.ProcessingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -15,13 +19,57 @@ import java.util.List;
 public interface PersonRepository extends JpaRepository<Person, Long> {
     Optional<Person> findByEmail(String email);
 
+    List<Person> findAllByEmailIn(Collection<String> emails);
+
     @Query("select p from Person p where p.jobExecutionId = :jobExecutionId and p.processingStatus <> 'REJECTED'")
     List<Person> findAllByJobExecutionId(@Param("jobExecutionId") Long jobExecutionId);
 
-    void deleteByJobExecutionId(Long jobExecutionId);
+    @Query("select new com.example.springbatchtutorial.model.PersonRecord(p.id, p.firstName, p.lastName, p.email, p.dateOfBirth, p.age) "
+            + "from Person p where p.jobExecutionId = :jobExecutionId and p.processingStatus <> 'REJECTED' order by p.id")
+    List<PersonRecord> findRecordsByJobExecutionId(@Param("jobExecutionId") Long jobExecutionId);
+
+    @Query("select new com.example.springbatchtutorial.model.PersonRecord(p.id, p.firstName, p.lastName, p.email, p.dateOfBirth, p.age) "
+            + "from Person p where p.jobExecutionId = :jobExecutionId and p.processingStatus <> 'REJECTED' and p.age is not null")
+    List<PersonRecord> findRecordsWithAgeByJobExecutionId(@Param("jobExecutionId") Long jobExecutionId);
+
+    @Query("select new com.example.springbatchtutorial.model.PersonRecord(p.id, p.firstName, p.lastName, p.email, p.dateOfBirth, p.age) from Person p")
+    List<PersonRecord> findAllRecords();
+
+    /** Keyset page ordered by id: pass the last id of the previous page as {@code afterId}. */
+    @Query("select p from Person p where p.id > :afterId "
+            + "and (:jobExecutionId is null or p.jobExecutionId = :jobExecutionId) "
+            + "and (:status is null or p.processingStatus = :status) order by p.id")
+    List<Person> findPage(@Param("afterId") long afterId, @Param("jobExecutionId") Long jobExecutionId,
+                          @Param("status") ProcessingStatus status, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Person p where p.jobExecutionId = :jobExecutionId")
+    int deleteByJobExecutionId(@Param("jobExecutionId") Long jobExecutionId);
+
+    @Query("select p.id from Person p where p.jobExecutionId < :cutoffExecutionId order by p.id")
+    List<Long> findIdsForPurge(@Param("cutoffExecutionId") Long cutoffExecutionId, Pageable pageable);
+
+    @Query("select p from Person p where p.id between :fromId and :toId and p.jobExecutionId < :cutoffExecutionId order by p.id")
+    List<Person> findPurgeBatch(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("cutoffExecutionId") Long cutoffExecutionId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Person p where p.id between :fromId and :toId and p.jobExecutionId < :cutoffExecutionId")
+    int deletePurgeBatch(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("cutoffExecutionId") Long cutoffExecutionId);
 
     @Modifying
     @Transactional
     @Query("update Person p set p.processingStatus = 'REJECTED' where p.jobExecutionId = :jobExecutionId and p.processingStatus <> 'PROCESSED'")
     int markAllNonProcessedAsRejected(@Param("jobExecutionId") Long jobExecutionId);
-} 
\ No newline at end of file
+
+    @Modifying
+    @Transactional
+    @Query("update Person p set p.jobExecutionId = :jobExecutionId where p.id in :ids")
+    int claimForJobExecution(@Param("jobExecutionId") Long jobExecutionId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("update Person p set p.jobExecutionId = :jobExecutionId where p.jobExecutionId in :previousIds")
+    int takeOverJobExecutions(@Param("jobExecutionId") Long jobExecutionId, @Param("previousIds") Collection<Long> previousIds);
+}
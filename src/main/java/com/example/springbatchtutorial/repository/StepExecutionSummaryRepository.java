@@ -0,0 +1,14 @@
+package com.example.springbatchtutorial.repository;
+
+import com.example.springbatchtutorial.model.StepExecutionSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StepExecutionSummaryRepository extends JpaRepository<StepExecutionSummary, Long> {
+
+    List<StepExecutionSummary> findByJobExecutionIdInOrderByIdAsc(Collection<Long> jobExecutionIds);
+}
@@ -1,17 +1,40 @@
 package com.example.springbatchtutorial.service;
 
+import com.example.springbatchtutorial.jfr.AgeApiCallEvent;
 import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.PersonRecord;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class AgeCalculationService {
 
+    // Turn off to measure the calculation itself (benchmarks, bulk re-runs); the demo keeps the fake network delay
+    private boolean simulateLatency = true;
+
+    @Value("${batch.age-api.simulate-latency:true}")
+    public void setSimulateLatency(boolean simulateLatency) {
+        this.simulateLatency = simulateLatency;
+    }
+
+    // Optional so the service can be built by hand (benchmarks) without a meter registry
+    private BatchMetrics metrics;
+
+    @Autowired(required = false)
+    public void setMetrics(BatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public Person calculateAgeForPerson(Person person) {
         log.debug("🧮 Starting age calculation for: {} {} (DOB: {})", 
                  person.getFirstName(), person.getLastName(), person.getDateOfBirth());
@@ -45,9 +68,13 @@ public class AgeCalculationService {
         }
     }
 
-    public void calculateAgesForPersons(List<Person> persons) {
+    /**
+     * Batched mock API call. Returns the records with their age set, in the same order; records of a window that
+     * failed keep {@link PersonRecord#NO_AGE}.
+     */
+    public List<PersonRecord> calculateAgesForPersons(List<PersonRecord> persons) {
         if (persons == null || persons.isEmpty()) {
-            return;
+            return persons;
         }
 
         final int maxBatchSize = 100;          // API can handle up to 100 per call
@@ -55,29 +82,44 @@ public class AgeCalculationService {
         final long perItemCostMs = 5;           // per-person compute cost (demo)
 
         int total = persons.size();
+        List<PersonRecord> result = new ArrayList<>(persons);
+        Timer apiTimer = metrics != null
+                ? metrics.histogramTimer("batch.age.api.call", "Latency of one batched age API call", metrics.currentTags())
+                : null;
         int from = 0;
         while (from < total) {
             int to = Math.min(from + maxBatchSize, total);
-            List<Person> window = persons.subList(from, to);
+            int windowSize = to - from;
+            long callStart = System.nanoTime();
+            AgeApiCallEvent apiEvent = AgeApiCallEvent.start(windowSize);
             try {
-                log.info("🌐 External age API batch request - size={} (one call for entire chunk)", window.size());
-                Thread.sleep(baseOverheadMs + perItemCostMs * window.size());
+                log.info("🌐 External age API batch request - size={} (one call for entire chunk)", windowSize);
+                if (simulateLatency) {
+                    Thread.sleep(baseOverheadMs + perItemCostMs * windowSize);
+                }
 
                 LocalDate today = LocalDate.now();
-                for (Person person : window) {
-                    int age = Period.between(person.getDateOfBirth(), today).getYears();
-                    person.setAge(age);
+                for (int i = from; i < to; i++) {
+                    PersonRecord person = result.get(i);
+                    result.set(i, person.withAge(Period.between(person.dateOfBirth(), today).getYears()));
+                }
+                apiEvent.finish(true);
+                if (apiTimer != null) {
+                    apiTimer.record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
                 }
-                log.debug("✅ Batch API response processed - ages set for {} persons", window.size());
+                log.debug("✅ Batch API response processed - ages set for {} persons", windowSize);
             } catch (InterruptedException e) {
+                apiEvent.finish(false);
                 log.error("❌ Interrupted during batch age calculation: {}", e.getMessage());
                 Thread.currentThread().interrupt();
-                return;
+                return result;
             } catch (Exception e) {
+                apiEvent.finish(false);
                 log.error("❌ Error during batch age calculation: {}", e.getMessage(), e);
-                return;
+                return result;
             }
             from = to;
         }
+        return result;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.springbatchtutorial.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Meter factory for the batch pipeline. Every meter is tagged with {@code job}, {@code step} and {@code scenario}
+ * so runs of different scenarios can be told apart under {@code /actuator/metrics/<name>?tag=scenario:PARTIAL}.
+ */
+@Component
+public class BatchMetrics {
+
+    private final MeterRegistry registry;
+
+    public BatchMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public Tags tags(StepExecution stepExecution) {
+        String scenario = stepExecution.getJobParameters().getString("scenario");
+        return Tags.of(
+                "job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                "step", stepExecution.getStepName(),
+                "scenario", scenario != null ? scenario : "SUCCESS");
+    }
+
+    /** Tags of the step running on this thread, for code that is called from a step but does not see it. */
+    public Tags currentTags() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? tags(context.getStepExecution()) : Tags.of("job", "none", "step", "none", "scenario", "none");
+    }
+
+    public Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    /** Timer that also publishes a percentile histogram (p50/p95/p99 in /actuator/metrics, buckets for Prometheus). */
+    public Timer histogramTimer(String name, String description, Tags tags) {
+        return Timer.builder(name).description(description).tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Counter counter(String name, String description, Tags tags) {
+        return Counter.builder(name).description(description).tags(tags).register(registry);
+    }
+
+    /** Gauge over a live object; the caller removes it from {@link #registry()} when the object goes away. */
+    public <T> Gauge gauge(String name, String description, Tags tags, T state, ToDoubleFunction<T> value) {
+        return Gauge.builder(name, state, value).description(description).tags(tags).strongReference(true).register(registry);
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.CsvValidationReport;
+import com.example.springbatchtutorial.reader.PersonRowValidator;
+import com.example.springbatchtutorial.reader.ValidationRule;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Dry run of step 1: every row of a CSV goes through the {@link PersonRowValidator} rules, and nothing is written
+ * and no age is calculated.
+ *
+ * The file is cut into byte ranges at line breaks and the segments are validated in parallel, each with its own
+ * validator and a fixed-size read buffer, so memory does not grow with the file. Only counts and the first
+ * {@code batch.validate.samples-per-rule} rejected rows of each rule are kept. Line numbers are the ones step 1
+ * would log, counted once every segment knows its row count.
+ *
+ * Segments start at line breaks, so a quoted field with a line break in it can be split at a segment boundary and
+ * counted differently than step 1 would.
+ */
+@Service
+@Slf4j
+public class CsvValidationService {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Files smaller than this per segment are not worth another thread
+    private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+
+    private final ExecutorService segmentPool;
+    private final int threads;
+    private final int samplesPerRule;
+
+    public CsvValidationService(@Value("${batch.validate.threads:0}") int threads,
+                                @Value("${batch.validate.samples-per-rule:10}") int samplesPerRule) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.samplesPerRule = samplesPerRule;
+        this.segmentPool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "csv-validate");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        segmentPool.shutdownNow();
+    }
+
+    /** Validates with one segment per validation thread, or fewer for a small file. */
+    public CsvValidationReport validate(Path csv) throws IOException {
+        long bytes = Files.size(csv);
+        return validate(csv, (int) Math.max(1, Math.min(threads, bytes / MIN_SEGMENT_BYTES)));
+    }
+
+    public CsvValidationReport validate(Path csv, int segments) throws IOException {
+        if (!Files.isRegularFile(csv) || Files.size(csv) == 0) {
+            throw new IllegalArgumentException("CSV file not found: " + csv);
+        }
+        long started = System.currentTimeMillis();
+        long bytes = Files.size(csv);
+        int count = (int) Math.max(1, Math.min(segments, bytes));
+        List<Future<Segment>> running = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Segment segment = new Segment(i, bytes * i / count, bytes * (i + 1) / count);
+            running.add(segmentPool.submit(() -> segment.validate(csv)));
+        }
+        List<Segment> done = new ArrayList<>(count);
+        try {
+            for (Future<Segment> segment : running) {
+                done.add(segment.get());
+            }
+        } catch (InterruptedException e) {
+            running.forEach(segment -> segment.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Validation of " + csv + " interrupted", e);
+        } catch (ExecutionException e) {
+            running.forEach(segment -> segment.cancel(true));
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Validation of " + csv + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        long rows = 0;
+        long valid = 0;
+        Map<ValidationRule, Long> byRule = new EnumMap<>(ValidationRule.class);
+        for (ValidationRule rule : ValidationRule.values()) {
+            byRule.put(rule, 0L);
+        }
+        Map<ValidationRule, List<Sample>> firstRejections = new EnumMap<>(ValidationRule.class);
+        for (Segment segment : done) {
+            // Line 1 is the header; the segment's own rows are numbered from 1
+            long firstLine = 1 + rows;
+            for (Sample sample : segment.samples) {
+                firstRejections.computeIfAbsent(sample.rule(), r -> new ArrayList<>())
+                        .add(new Sample(firstLine + sample.line(), sample.rule(), sample.fields()));
+            }
+            rows += segment.rows;
+            valid += segment.valid;
+            for (ValidationRule rule : ValidationRule.values()) {
+                byRule.merge(rule, segment.rejected[rule.ordinal()], Long::sum);
+            }
+        }
+        Map<ValidationRule, List<String>> samples = new EnumMap<>(ValidationRule.class);
+        // Validated again with the real line number, so the message is the one step 1 logs
+        PersonRowValidator validator = new PersonRowValidator(null);
+        firstRejections.forEach((rule, rejections) -> samples.put(rule, rejections.stream()
+                .sorted(Comparator.comparingLong(Sample::line))
+                .limit(samplesPerRule)
+                .map(sample -> {
+                    String[] message = new String[1];
+                    validator.validate(sample.fields(), (int) sample.line(), (lineNo, r, error) -> message[0] = error);
+                    return message[0];
+                })
+                .toList()));
+
+        long millis = System.currentTimeMillis() - started;
+        CsvValidationReport report = new CsvValidationReport(csv.toString(), bytes, count, rows, valid, rows - valid,
+                byRule, samples, millis, rows * 1000.0 / Math.max(1, millis));
+        log.info("🔎 Dry run of {} ({} bytes, {} segments): {} rows, {} valid, {} rejected in {} ms ({} rows/s)",
+                csv, bytes, count, rows, valid, rows - valid, millis, Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    /** A rejected row kept for the report; {@code line} is segment-relative until the segments are merged. */
+    private record Sample(long line, ValidationRule rule, String[] fields) {
+    }
+
+    /** The rows that start in bytes {@code [start, end)} of the file; the first segment also holds the header. */
+    private final class Segment {
+
+        private final int index;
+        private final long start;
+        private final long end;
+        private final long[] rejected = new long[ValidationRule.values().length];
+        private final List<Sample> samples = new ArrayList<>();
+        private long rows;
+        private long valid;
+
+        Segment(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        Segment validate(Path csv) throws IOException, CsvValidationException {
+            try (FileChannel channel = FileChannel.open(csv)) {
+                // The row running into this segment belongs to the one before: start after the next line break
+                long position = Math.max(0, start - 1);
+                channel.position(position);
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_BYTES);
+                if (start > 0) {
+                    int b;
+                    while ((b = in.read()) >= 0) {
+                        position++;
+                        if (b == '\n') {
+                            break;
+                        }
+                    }
+                }
+                if (position >= end) {
+                    return this;
+                }
+                try (CSVReader reader = new CSVReader(new InputStreamReader(
+                        new RowsUntil(in, end - position), StandardCharsets.UTF_8))) {
+                    if (index == 0) {
+                        reader.readNext();
+                    }
+                    PersonRowValidator validator = new PersonRowValidator(null);
+                    ValidationRule[] broken = new ValidationRule[1];
+                    PersonRowValidator.RejectionHandler rejections = (lineNo, rule, error) -> broken[0] = rule;
+                    String[] line;
+                    while ((line = reader.readNext()) != null) {
+                        rows++;
+                        if (validator.validate(line, (int) rows, rejections) != null) {
+                            valid++;
+                            continue;
+                        }
+                        if (++rejected[broken[0].ordinal()] <= samplesPerRule) {
+                            samples.add(new Sample(rows, broken[0], line));
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Ends the stream at the first line break after {@code length} bytes, so the last row that starts in the
+     * segment is read whole and the next one is not.
+     */
+    private static final class RowsUntil extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+        private boolean done;
+
+        RowsUntil(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done || len == 0) {
+                return done ? -1 : 0;
+            }
+            if (remaining > 0) {
+                int n = in.read(b, off, (int) Math.min(len, remaining));
+                if (n < 0) {
+                    done = true;
+                    return -1;
+                }
+                remaining -= n;
+                done = remaining == 0 && b[off + n - 1] == '\n';
+                return n;
+            }
+            int n = 0;
+            while (n < len) {
+                int c = in.read();
+                if (c < 0) {
+                    done = true;
+                    break;
+                }
+                b[off + n++] = (byte) c;
+                if (c == '\n') {
+                    done = true;
+                    break;
+                }
+            }
+            return n == 0 ? -1 : n;
+        }
+    }
+}
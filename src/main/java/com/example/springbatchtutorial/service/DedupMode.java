@@ -0,0 +1,7 @@
+package com.example.springbatchtutorial.service;
+
+public enum DedupMode {
+    NONE,       // every row reaches the writer (default)
+    FIRST_WINS, // keep the first row seen for an email, drop later copies
+    LAST_WINS   // keep the last row seen for an email, at the position of the first
+}
@@ -0,0 +1,42 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.util.EmailFingerprintSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class EmailDeduplicationService {
+
+    /**
+     * Collapses rows that share an email so that only one write per distinct email reaches the DB.
+     * The surviving row keeps the position of the first occurrence; with LAST_WINS its content is
+     * replaced by the latest copy.
+     */
+    public List<PersonRecord> collapse(List<PersonRecord> persons, DedupMode mode) {
+        if (mode == null || mode == DedupMode.NONE || persons.size() < 2) {
+            return persons;
+        }
+
+        List<PersonRecord> kept = new ArrayList<>(persons.size());
+        EmailFingerprintSet seen = new EmailFingerprintSet(persons.size(), i -> kept.get(i).email());
+        for (PersonRecord person : persons) {
+            int owner = seen.putIfAbsent(person.email(), kept.size());
+            if (owner < 0) {
+                kept.add(person);
+            } else if (mode == DedupMode.LAST_WINS) {
+                kept.set(owner, person);
+            }
+        }
+
+        int collapsed = persons.size() - kept.size();
+        if (collapsed > 0) {
+            log.info("🧹 Collapsed {} duplicate email row(s) in input ({}): {} -> {}", collapsed, mode, persons.size(), kept.size());
+        }
+        return kept;
+    }
+}
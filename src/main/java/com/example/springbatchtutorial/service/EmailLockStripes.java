@@ -0,0 +1,71 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.util.Fingerprints;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks, one per email hash bucket, shared by every upsert writer in the JVM.
+ *
+ * The upsert writer looks an email up and inserts it if it is missing. Two jobs doing that for the same email at
+ * the same time would both insert, and one would fail its whole chunk on the unique constraint. A writer locks the
+ * stripes of the emails it did not find and keeps them until its transaction ends, so the second writer finds the
+ * first one's row. Updates of existing rows take no stripe, so only chunks inserting into a common stripe wait for
+ * each other, and no row or table lock is taken in the database.
+ *
+ * Stripes are always locked in ascending order, so two batches cannot deadlock. A thread must release what it holds
+ * before it locks again. {@link #stripeOf} is also the write-behind lane key: a stripe always maps to the same lane,
+ * so the lanes of one step never wait for each other's stripes.
+ */
+@Component
+@Slf4j
+public class EmailLockStripes {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public EmailLockStripes(@Value("${batch.upsert.lock-stripes:1024}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        log.info("🔐 {} email lock stripes for concurrent upserts", size);
+    }
+
+    public int stripeOf(String email) {
+        return (int) Fingerprints.email(email) & mask;
+    }
+
+    /** Locks the stripes of these emails and returns them, sorted and distinct, for {@link #unlock}. */
+    public int[] lock(Iterable<String> emails) {
+        int[] held = stripesOf(emails);
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+        return held;
+    }
+
+    public void unlock(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+    }
+
+    private int[] stripesOf(Iterable<String> emails) {
+        int[] buffer = new int[16];
+        int count = 0;
+        for (String email : emails) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = stripeOf(email);
+        }
+        return Arrays.stream(buffer, 0, count).sorted().distinct().toArray();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.JobExecutionSummary;
+import com.example.springbatchtutorial.model.StepExecutionSummary;
+import com.example.springbatchtutorial.repository.JobExecutionSummaryRepository;
+import com.example.springbatchtutorial.repository.StepExecutionSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read model behind {@code /api/jobs/executions}: one summary row per job execution and per step execution.
+ *
+ * Rows are written as steps and jobs finish, so listing executions is two indexed queries (a keyset page of jobs,
+ * then their steps) instead of loading every instance, execution, step and execution context from the job
+ * repository. Executions the table does not know yet, e.g. from before a restart on a persistent repository, are
+ * indexed from the job repository once at startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionSummaryService {
+
+    private static final String JOB_NAME = "processPersonJob";
+    private static final int INSTANCE_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final JobExecutionSummaryRepository jobSummaries;
+    private final StepExecutionSummaryRepository stepSummaries;
+    private final JobExplorer jobExplorer;
+
+    /** Called when a job starts, so running executions are listed too. */
+    @Transactional
+    public void jobStarted(JobExecution jobExecution) {
+        jobSummaries.save(toSummary(jobExecution, jobExecution.getStatus().toString()));
+    }
+
+    /**
+     * Called from {@code afterStep}, before Spring Batch sets the step's end time and final status: the exit status
+     * stands in for the status and now for the end time until {@link #jobFinished} rewrites the row.
+     */
+    @Transactional
+    public void stepFinished(StepExecution stepExecution) {
+        stepSummaries.save(toSummary(stepExecution, stepExecution.getExitStatus().getExitCode(), LocalDateTime.now()));
+    }
+
+    @Transactional
+    public void jobFinished(JobExecution jobExecution) {
+        index(jobExecution);
+    }
+
+    /**
+     * Start times are stored rounded to microseconds, so bounds taken from a {@code JobExecution} (nanoseconds) are
+     * rounded the same way; otherwise an execution can fall outside a range that starts at its own start time.
+     */
+    private static LocalDateTime toColumnPrecision(LocalDateTime time) {
+        return time != null ? time.plusNanos(500).truncatedTo(ChronoUnit.MICROS) : null;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> page(Long beforeId, String status, LocalDateTime from, LocalDateTime to, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String statusFilter = status != null && !status.isBlank() ? status.trim().toUpperCase() : null;
+        List<JobExecutionSummary> jobs = jobSummaries.findPage(beforeId, statusFilter, toColumnPrecision(from),
+                toColumnPrecision(to), PageRequest.of(0, size));
+        if (jobs.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Map<String, Object>>> stepsByJob = new HashMap<>();
+        for (StepExecutionSummary step : stepSummaries.findByJobExecutionIdInOrderByIdAsc(jobs.stream().map(JobExecutionSummary::getId).toList())) {
+            stepsByJob.computeIfAbsent(step.getJobExecutionId(), id -> new ArrayList<>()).add(toMap(step));
+        }
+        List<Map<String, Object>> result = new ArrayList<>(jobs.size());
+        for (JobExecutionSummary job : jobs) {
+            Map<String, Object> execution = new LinkedHashMap<>();
+            execution.put("id", job.getId());
+            execution.put("status", job.getStatus());
+            execution.put("scenario", job.getScenario());
+            execution.put("startTime", job.getStartTime());
+            execution.put("endTime", job.getEndTime());
+            execution.put("duration", job.getDurationMs());
+            execution.put("exitCode", job.getExitCode());
+            execution.put("readCount", job.getReadCount());
+            execution.put("writeCount", job.getWriteCount());
+            execution.put("skipCount", job.getSkipCount());
+            execution.put("stepExecutions", stepsByJob.getOrDefault(job.getId(), List.of()));
+            result.add(execution);
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void indexMissingExecutions() {
+        Long maxId = jobSummaries.findMaxId();
+        int indexed = 0;
+        for (int start = 0; ; start += INSTANCE_PAGE_SIZE) {
+            List<JobInstance> page = jobExplorer.getJobInstances(JOB_NAME, start, INSTANCE_PAGE_SIZE);
+            boolean newOnPage = false;
+            for (JobInstance instance : page) {
+                for (JobExecution execution : jobExplorer.getJobExecutions(instance)) {
+                    if (maxId == null || execution.getId() > maxId) {
+                        index(execution);
+                        indexed++;
+                        newOnPage = true;
+                    }
+                }
+            }
+            // Execution ids, not instance ids: a restart gives an old instance a new execution. Instances come
+            // newest first, so once a whole page holds no new execution the rest is indexed already
+            if (page.size() < INSTANCE_PAGE_SIZE || (maxId != null && !newOnPage)) {
+                break;
+            }
+        }
+        if (indexed > 0) {
+            log.info("📇 Indexed {} job execution(s) into the execution summary table", indexed);
+        }
+    }
+
+    private void index(JobExecution jobExecution) {
+        jobSummaries.save(toSummary(jobExecution, jobExecution.getStatus().toString()));
+        List<StepExecutionSummary> steps = new ArrayList<>();
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            steps.add(toSummary(stepExecution, stepExecution.getStatus().toString(), stepExecution.getEndTime()));
+        }
+        stepSummaries.saveAll(steps);
+    }
+
+    private static JobExecutionSummary toSummary(JobExecution jobExecution, String status) {
+        JobExecutionSummary summary = new JobExecutionSummary();
+        summary.setId(jobExecution.getId());
+        summary.setJobName(jobExecution.getJobInstance().getJobName());
+        summary.setScenario(jobExecution.getJobParameters().getString("scenario"));
+        summary.setStatus(status);
+        summary.setExitCode(jobExecution.getExitStatus() != null ? jobExecution.getExitStatus().getExitCode() : null);
+        summary.setStartTime(jobExecution.getStartTime());
+        // The end time is only set after afterJob; a finished job without one ends now
+        LocalDateTime endTime = jobExecution.getEndTime() != null ? jobExecution.getEndTime()
+                : jobExecution.getStatus().isRunning() ? null : LocalDateTime.now();
+        summary.setEndTime(endTime);
+        summary.setDurationMs(millisBetween(jobExecution.getStartTime(), endTime));
+        for (StepExecution step : jobExecution.getStepExecutions()) {
+            summary.setReadCount(summary.getReadCount() + step.getReadCount());
+            summary.setWriteCount(summary.getWriteCount() + step.getWriteCount());
+            summary.setSkipCount(summary.getSkipCount() + step.getSkipCount());
+        }
+        return summary;
+    }
+
+    private static StepExecutionSummary toSummary(StepExecution stepExecution, String status, LocalDateTime endTime) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        StepExecutionSummary summary = new StepExecutionSummary();
+        summary.setId(stepExecution.getId());
+        summary.setJobExecutionId(stepExecution.getJobExecutionId());
+        summary.setStepName(stepExecution.getStepName());
+        summary.setStatus(status);
+        summary.setReadCount(stepExecution.getReadCount());
+        summary.setWriteCount(stepExecution.getWriteCount());
+        summary.setSkipCount(stepExecution.getSkipCount());
+        summary.setStartTime(stepExecution.getStartTime());
+        summary.setEndTime(endTime);
+        summary.setDurationMs(millisBetween(stepExecution.getStartTime(), endTime));
+        summary.setInserted(context.getInt("inserted.count", 0));
+        summary.setUpdated(context.getInt("updated.count", 0));
+        summary.setUnchanged(context.getInt("unchanged.count", 0));
+        summary.setWritten(context.containsKey("written.count") ? context.getInt("written.count") : (int) stepExecution.getWriteCount());
+        summary.setCollapsed(context.containsKey("dedup.collapsed.count") ? context.getInt("dedup.collapsed.count") : null);
+        summary.setSkipSummary(context.containsKey("skip.summary") ? context.getString("skip.summary") : null);
+        return summary;
+    }
+
+    private static Map<String, Object> toMap(StepExecutionSummary step) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("stepName", step.getStepName());
+        map.put("status", step.getStatus());
+        map.put("readCount", step.getReadCount());
+        map.put("writeCount", step.getWriteCount());
+        map.put("skipCount", step.getSkipCount());
+        map.put("startTime", step.getStartTime());
+        map.put("endTime", step.getEndTime());
+        map.put("duration", step.getDurationMs());
+        map.put("inserted", step.getInserted());
+        map.put("updated", step.getUpdated());
+        map.put("unchanged", step.getUnchanged());
+        map.put("written", step.getWritten());
+        if (step.getCollapsed() != null) {
+            map.put("collapsed", step.getCollapsed());
+        }
+        if (step.getSkipSummary() != null) {
+            map.put("skipSummary", step.getSkipSummary());
+        }
+        return map;
+    }
+
+    private static Long millisBetween(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null ? Duration.between(start, end).toMillis() : null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.jfr.AgeApiCallEvent;
+import com.example.springbatchtutorial.jfr.ChunkEvent;
+import com.example.springbatchtutorial.jfr.DbStatementEvent;
+import com.example.springbatchtutorial.jfr.FileFlushEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Owns at most one in-process JDK Flight Recorder recording with the pipeline events
+ * ({@code com.example.springbatchtutorial.*}) enabled on top of a built-in settings file.
+ *
+ * The recording is continuous: it keeps the last {@code maxAge} of data in the JFR repository and can be dumped
+ * any number of times while it runs. With {@code batch.jfr.start-on-startup} it starts with the application.
+ */
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+    @Value("${batch.jfr.start-on-startup:false}")
+    private boolean startOnStartup;
+    @Value("${batch.jfr.settings:default}")
+    private String defaultSettings;
+    @Value("${batch.jfr.max-age-minutes:30}")
+    private long defaultMaxAgeMinutes;
+    // Single-row statements run once per item; raise to keep long recordings small
+    @Value("${batch.jfr.db-statement-threshold-ms:0}")
+    private long defaultDbThresholdMs;
+    @Value("${batch.jfr.dump-dir:output/jfr}")
+    private String dumpDir;
+
+    private Recording recording;
+
+    @PostConstruct
+    void startOnStartup() {
+        if (startOnStartup) {
+            start(defaultSettings, defaultMaxAgeMinutes, defaultDbThresholdMs);
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized Map<String, Object> start(String settings, Long maxAgeMinutes, Long dbThresholdMs) {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running: " + recording.getName());
+        }
+        String settingsName = settings != null && !settings.isBlank() ? settings : defaultSettings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settingsName + "' (use default or profile)", e);
+        }
+        close();
+        recording = new Recording(configuration);
+        recording.setName("batch-pipeline");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes != null ? maxAgeMinutes : defaultMaxAgeMinutes));
+        recording.enable(ChunkEvent.class);
+        recording.enable(AgeApiCallEvent.class);
+        recording.enable(FileFlushEvent.class);
+        recording.enable(DbStatementEvent.class)
+                .withThreshold(Duration.ofMillis(dbThresholdMs != null ? dbThresholdMs : defaultDbThresholdMs));
+        recording.start();
+        log.info("🎥 JFR recording started - settings: {}, max age: {}", settingsName, recording.getMaxAge());
+        return status();
+    }
+
+    /** Writes everything the running recording currently holds to a new file and keeps recording. */
+    public synchronized Path dump() throws IOException {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running");
+        }
+        Path dir = Path.of(dumpDir);
+        Files.createDirectories(dir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
+        Path target = dir.resolve("batch_" + stamp + ".jfr");
+        recording.dump(target);
+        log.info("🎥 JFR recording dumped to {} ({} bytes)", target, Files.size(target));
+        return target;
+    }
+
+    public synchronized Map<String, Object> stop() {
+        Map<String, Object> status = status();
+        close();
+        log.info("🎥 JFR recording stopped");
+        status.put("state", "CLOSED");
+        return status;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        if (recording != null) {
+            status.put("name", recording.getName());
+            status.put("state", recording.getState().toString());
+            status.put("startTime", recording.getStartTime() != null ? recording.getStartTime().toString() : null);
+            status.put("maxAgeMinutes", recording.getMaxAge() != null ? recording.getMaxAge().toMinutes() : null);
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.listener.FirstChunkTimer;
+import com.example.springbatchtutorial.repository.DeferredJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.ExitCodeMapper;
+import org.springframework.batch.core.launch.support.SimpleJvmExitCodeMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Runs {@code processPersonJob} once from the command line in the {@code cli} profile (no web stack, lazy beans):
+ * <pre>
+ * java -jar app.jar --spring.profiles.active=cli csvPath=input/persons.csv scenario=PARTIAL skipEvery=5
+ * </pre>
+ * Every {@code key=value} argument becomes a job parameter, named as in the {@code /api/jobs/start} body. The JVM
+ * exits with the job's exit code: 0 for COMPLETED, 1 for FAILED, 2 for anything else (see
+ * {@link SimpleJvmExitCodeMapper}). Startup and time-to-first-chunk are logged against JVM start.
+ */
+@Component
+@Profile("cli")
+@Slf4j
+public class HeadlessJobRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    /** Tuning knobs that must not make a run a different job instance, as in {@code /api/jobs/start}. */
+    private static final Set<String> NON_IDENTIFYING = Set.of("traceSampleRate", DeferredJobRepository.MODE_PARAMETER);
+
+    private final JobLauncher jobLauncher;
+    private final Job processPersonJob;
+    private final FirstChunkTimer firstChunkTimer;
+    private final ExitCodeMapper exitCodeMapper = new SimpleJvmExitCodeMapper();
+    private int exitCode = ExitCodeMapper.JVM_EXITCODE_GENERIC_ERROR;
+
+    public HeadlessJobRunner(JobLauncher jobLauncher, @Qualifier("processPersonJob") Job processPersonJob,
+                             FirstChunkTimer firstChunkTimer) {
+        this.jobLauncher = jobLauncher;
+        this.processPersonJob = processPersonJob;
+        this.firstChunkTimer = firstChunkTimer;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        JobParameters parameters = toJobParameters(args);
+        log.info("🖥️ Headless run of {} with {}", processPersonJob.getName(), parameters);
+
+        JobExecution execution = jobLauncher.run(processPersonJob, parameters);
+
+        exitCode = exitCodeMapper.intValue(execution.getExitStatus().getExitCode());
+        log.info("⏱️ Headless run: context ready {} ms, first chunk {} ms, job done {} ms after JVM start",
+                readyMillis, firstChunkTimer.firstChunkMillis(), ManagementFactory.getRuntimeMXBean().getUptime());
+        log.info("🖥️ Execution {} ended {} (exit code {})", execution.getId(), execution.getExitStatus().getExitCode(), exitCode);
+    }
+
+    static JobParameters toJobParameters(ApplicationArguments args) {
+        JobParametersBuilder builder = new JobParametersBuilder()
+                .addString("time", LocalDateTime.now().toString())
+                .addString("scenario", "SUCCESS");
+        for (String arg : args.getNonOptionArgs()) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected a job parameter as key=value, got: " + arg);
+            }
+            String key = arg.substring(0, eq).trim();
+            builder.addString(key, arg.substring(eq + 1).trim(), !NON_IDENTIFYING.contains(key));
+        }
+        return builder.toJobParameters();
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.springbatchtutorial.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Picks up CSV files dropped into {@code batch.watch.dir} and imports them without a manual start.
+ *
+ * A file counts as complete once a marker next to it exists ({@code persons_1.csv.done}) or, unless
+ * {@code require-marker} is set, once its size and modification time have not changed for {@code stable-ms}.
+ * Complete files are coalesced: the first one opens a window of {@code coalesce-window-ms}, and everything that
+ * completes inside it goes into the same job run (parameter {@code csvPaths}, one path per line). At most
+ * {@code max-concurrent-jobs} runs are in flight; while they are all busy, new files keep joining the next run.
+ *
+ * Every claim and outcome is appended to a ledger file (path, size and modification time), forced to disk before
+ * the job starts. Completed files are never picked up again unless their content changes. A failed run releases
+ * its files: they are claimed again after {@code retry-backoff-ms} (doubling with every failure), until
+ * {@code max-attempts} runs have failed. A claim without an outcome (the process died mid-run) is picked up
+ * again after a restart; step 1 upserts by email, so importing it twice leaves the same rows.
+ */
+@Service
+@Slf4j
+public class IngestDirectoryWatcher {
+
+    private static final long TICK_MILLIS = 250;
+    private static final int RECENT_RUNS = 50;
+
+    private final JobLauncher jobLauncher;
+    private final Job processPersonJob;
+    private final boolean enabled;
+    private final Path dir;
+    private final PathMatcher matcher;
+    private final String markerSuffix;
+    private final boolean requireMarker;
+    private final long stableMillis;
+    private final long coalesceWindowMillis;
+    private final int maxFilesPerRun;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final Path ledgerPath;
+    private final Semaphore runSlots;
+    private final ExecutorService runner;
+
+    // Watcher thread only: files seen but not complete yet, and complete files waiting for their run
+    private final Map<Path, Candidate> candidates = new HashMap<>();
+    private final List<FileKey> ready = new ArrayList<>();
+    private long windowOpenedAt;
+
+    // Files completed or out of attempts, plus those claimed by a run of this process
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    // Failed runs per file, and failed files waiting for their next attempt (due time)
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Map<FileKey, Long> retries = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> runs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+            return size() > RECENT_RUNS;
+        }
+    });
+    private final AtomicInteger running = new AtomicInteger();
+    private FileChannel ledger;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public IngestDirectoryWatcher(JobLauncher jobLauncher, Job processPersonJob,
+                                  @Value("${batch.watch.enabled:false}") boolean enabled,
+                                  @Value("${batch.watch.dir:input/incoming}") String dir,
+                                  @Value("${batch.watch.pattern:*.csv}") String pattern,
+                                  @Value("${batch.watch.marker-suffix:.done}") String markerSuffix,
+                                  @Value("${batch.watch.require-marker:false}") boolean requireMarker,
+                                  @Value("${batch.watch.stable-ms:2000}") long stableMillis,
+                                  @Value("${batch.watch.coalesce-window-ms:5000}") long coalesceWindowMillis,
+                                  @Value("${batch.watch.max-files-per-run:100}") int maxFilesPerRun,
+                                  @Value("${batch.watch.max-concurrent-jobs:1}") int maxConcurrentJobs,
+                                  @Value("${batch.watch.max-attempts:3}") int maxAttempts,
+                                  @Value("${batch.watch.retry-backoff-ms:30000}") long retryBackoffMillis,
+                                  @Value("${batch.watch.ledger:output/watch/ingested.log}") String ledgerPath) {
+        this.jobLauncher = jobLauncher;
+        this.processPersonJob = processPersonJob;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        this.markerSuffix = markerSuffix;
+        this.requireMarker = requireMarker;
+        this.stableMillis = stableMillis;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.maxFilesPerRun = Math.max(1, maxFilesPerRun);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.ledgerPath = Path.of(ledgerPath);
+        this.runSlots = new Semaphore(Math.max(1, maxConcurrentJobs));
+        this.runner = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), r -> {
+            Thread t = new Thread(r, "ingest-run");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!enabled || watcher != null) {
+            return;
+        }
+        Files.createDirectories(dir);
+        loadLedger();
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::watch, "ingest-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("👀 Watching {} for {} (window {} ms, {} concurrent run(s), {} file(s) already in the ledger)",
+                dir, requireMarker ? "files with a " + markerSuffix + " marker" : "complete files",
+                coalesceWindowMillis, runSlots.availablePermits(), claimed.size());
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        runner.shutdownNow();
+        if (ledger != null) {
+            synchronized (ledger) {
+                ledger.close();
+            }
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("dir", dir.toString());
+        status.put("runningJobs", running.get());
+        status.put("ingestedFiles", claimed.size());
+        status.put("retryingFiles", retries.size());
+        synchronized (runs) {
+            status.put("recentRuns", new ArrayList<>(runs.values()));
+        }
+        return status;
+    }
+
+    private void watch() {
+        // Files that were dropped while the application was down
+        rescan();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(TICK_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan();
+                        } else {
+                            observe(dir.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                long now = System.currentTimeMillis();
+                requeueDueRetries(now);
+                promoteCompleteFiles(now);
+                launchIfDue(now);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.info("👀 Stopped watching {}", dir);
+        } catch (RuntimeException e) {
+            log.error("❌ Ingest watcher stopped: {}", e.getMessage(), e);
+        }
+    }
+
+    private void rescan() {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(this::observe);
+        } catch (IOException e) {
+            log.warn("⚠️ Could not list {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void observe(Path path) {
+        String name = path.getFileName().toString();
+        if (!markerSuffix.isEmpty() && name.endsWith(markerSuffix)) {
+            path = path.resolveSibling(name.substring(0, name.length() - markerSuffix.length()));
+        }
+        if (matcher.matches(path.getFileName())) {
+            candidates.computeIfAbsent(path, p -> new Candidate());
+        }
+    }
+
+    /** Failed files whose backoff is over go through the usual completeness check again. */
+    private void requeueDueRetries(long now) {
+        for (Iterator<Map.Entry<FileKey, Long>> it = retries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<FileKey, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                it.remove();
+                observe(entry.getKey().path());
+            }
+        }
+    }
+
+    private void promoteCompleteFiles(long now) {
+        for (Iterator<Map.Entry<Path, Candidate>> it = candidates.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Candidate> entry = it.next();
+            Path path = entry.getKey();
+            Candidate candidate = entry.getValue();
+            FileKey key;
+            try {
+                if (!Files.isRegularFile(path)) {
+                    it.remove();
+                    continue;
+                }
+                key = new FileKey(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                it.remove();
+                continue;
+            }
+            boolean marked = !markerSuffix.isEmpty() && Files.exists(path.resolveSibling(path.getFileName() + markerSuffix));
+            if (!marked) {
+                if (key.size() != candidate.size || key.modified() != candidate.modified) {
+                    candidate.size = key.size();
+                    candidate.modified = key.modified();
+                    candidate.changedAt = now;
+                    continue;
+                }
+                if (requireMarker || now - candidate.changedAt < stableMillis) {
+                    continue;
+                }
+            }
+            it.remove();
+            if (claimed.add(key.id())) {
+                if (ready.isEmpty()) {
+                    windowOpenedAt = now;
+                }
+                ready.add(key);
+                log.info("📄 {} is complete ({} bytes), queued for the next run", path, key.size());
+            }
+        }
+    }
+
+    private void launchIfDue(long now) {
+        if (ready.isEmpty() || (now - windowOpenedAt < coalesceWindowMillis && ready.size() < maxFilesPerRun)) {
+            return;
+        }
+        if (!runSlots.tryAcquire()) {
+            return;
+        }
+        List<FileKey> files = new ArrayList<>(ready.subList(0, Math.min(ready.size(), maxFilesPerRun)));
+        ready.subList(0, files.size()).clear();
+        String runId = UUID.randomUUID().toString();
+        try {
+            for (FileKey file : files) {
+                appendLedger("CLAIMED", runId, null, file);
+            }
+        } catch (IOException e) {
+            // Without a durable claim there is no exactly-once; leave the files for the next tick
+            log.error("❌ Could not write the ingest ledger: {}", e.getMessage(), e);
+            files.forEach(file -> claimed.remove(file.id()));
+            runSlots.release();
+            return;
+        }
+        running.incrementAndGet();
+        runner.submit(() -> run(runId, files));
+    }
+
+    private void run(String runId, List<FileKey> files) {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("runId", runId);
+        run.put("files", files.stream().map(file -> file.path().toString()).toList());
+        run.put("startedAt", LocalDateTime.now().toString());
+        run.put("status", BatchStatus.STARTING.toString());
+        runs.put(runId, run);
+        Long executionId = null;
+        BatchStatus status = BatchStatus.FAILED;
+        try {
+            log.info("🚀 Launching ingest run {} with {} file(s)", runId, files.size());
+            JobExecution execution = jobLauncher.run(processPersonJob, new JobParametersBuilder()
+                    .addString("time", LocalDateTime.now().toString())
+                    .addString("scenario", "SUCCESS")
+                    .addString("csvPaths", files.stream().map(file -> file.path().toString()).collect(Collectors.joining("\n")), true)
+                    .addString("ingestRunId", runId, false)
+                    .toJobParameters());
+            executionId = execution.getId();
+            status = execution.getStatus();
+            log.info("✅ Ingest run {} finished as execution {} - {}", runId, executionId, status);
+        } catch (Exception e) {
+            log.error("❌ Ingest run {} could not be launched: {}", runId, e.getMessage(), e);
+        } finally {
+            // Published maps are never changed, status() may be copying them
+            Map<String, Object> finished = new LinkedHashMap<>(run);
+            finished.put("jobExecutionId", executionId);
+            finished.put("status", status.toString());
+            runs.put(runId, finished);
+            try {
+                for (FileKey file : files) {
+                    appendLedger(status == BatchStatus.COMPLETED ? "COMPLETED" : "FAILED", runId, executionId, file);
+                }
+            } catch (IOException e) {
+                log.error("❌ Could not record the outcome of ingest run {}: {}", runId, e.getMessage(), e);
+            }
+            if (status != BatchStatus.COMPLETED) {
+                files.forEach(this::release);
+            }
+            running.decrementAndGet();
+            runSlots.release();
+        }
+    }
+
+    /** Gives a file of a failed run back to the watcher after its backoff, unless it is out of attempts. */
+    private void release(FileKey file) {
+        int failed = failures.merge(file.id(), 1, Integer::sum);
+        if (failed >= maxAttempts) {
+            log.error("❌ {} failed {} run(s), not retried until its content changes", file.path(), failed);
+            return;
+        }
+        long backoff = retryBackoffMillis << Math.min(failed - 1, 20);
+        log.warn("⚠️ {} failed {} of {} attempt(s), retried in {} ms", file.path(), failed, maxAttempts, backoff);
+        retries.put(file, System.currentTimeMillis() + backoff);
+        claimed.remove(file.id());
+    }
+
+    /** Ledger line: {@code state<TAB>runId<TAB>executionId<TAB>size<TAB>modified<TAB>path}, forced before returning. */
+    private void appendLedger(String state, String runId, Long executionId, FileKey file) throws IOException {
+        String line = String.join("\t", state, runId, executionId != null ? executionId.toString() : "-",
+                Long.toString(file.size()), Long.toString(file.modified()), file.path().toString()) + "\n";
+        synchronized (ledger) {
+            ledger.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            ledger.force(false);
+        }
+    }
+
+    private void loadLedger() throws IOException {
+        if (ledgerPath.getParent() != null) {
+            Files.createDirectories(ledgerPath.getParent());
+        }
+        int reclaimed = 0;
+        if (Files.exists(ledgerPath)) {
+            Map<String, String> lastState = new HashMap<>();
+            for (String line : Files.readAllLines(ledgerPath, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", 6);
+                if (fields.length == 6) {
+                    String id = new FileKey(Path.of(fields[5]), Long.parseLong(fields[3]), Long.parseLong(fields[4])).id();
+                    lastState.put(id, fields[0]);
+                    if (fields[0].equals("FAILED")) {
+                        failures.merge(id, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<String, String> entry : lastState.entrySet()) {
+                if (entry.getValue().equals("CLAIMED")) {
+                    reclaimed++;
+                } else if (entry.getValue().equals("COMPLETED") || failures.getOrDefault(entry.getKey(), 0) >= maxAttempts) {
+                    claimed.add(entry.getKey());
+                }
+            }
+        }
+        if (reclaimed > 0) {
+            log.warn("⚠️ {} file(s) were claimed by a run that never finished; they are picked up again", reclaimed);
+        }
+        ledger = FileChannel.open(ledgerPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static final class Candidate {
+        private long size = -1;
+        private long modified = -1;
+        private long changedAt;
+    }
+
+    /** A file as it was when claimed: the same path with other content is a new file. */
+    private record FileKey(Path path, long size, long modified) {
+        String id() {
+            return path.toAbsolutePath().normalize() + "|" + size + "|" + modified;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.JobProgressEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fans batch progress out to Server-Sent Events subscribers without ever blocking the job.
+ *
+ * {@link #publish} only appends to each subscriber's per-job buffer: a chunk progress event replaces the previous
+ * one of the same step, and a full buffer drops its oldest event. A dispatcher thread drains every subscriber at
+ * most {@code batch.events.max-rate-per-second} times per second and hands what accumulated, as one SSE message,
+ * to a sender thread. A subscriber has at most one send in flight; while it is, its events keep coalescing in its
+ * buffer, so a slow client only delays itself. A send that takes longer than {@code batch.events.send-timeout-ms}
+ * drops the subscriber.
+ */
+@Service
+@Slf4j
+public class JobEventBroadcaster {
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "job-events");
+        t.setDaemon(true);
+        return t;
+    });
+    // One send in flight per subscriber, so there are never more sender threads than subscribers
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "job-events-send");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+
+    public JobEventBroadcaster(@Value("${batch.events.max-rate-per-second:4}") int maxRatePerSecond,
+                               @Value("${batch.events.buffer-size:32}") int bufferSize,
+                               @Value("${batch.events.timeout-ms:0}") long timeoutMs,
+                               @Value("${batch.events.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMs = timeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        long intervalMs = Math.max(1, 1000 / Math.max(1, maxRatePerSecond));
+        dispatcher.scheduleAtFixedRate(this::dispatch, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /** Opens an SSE stream; each message is named {@code batch} and carries a JSON array of events. */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(events -> {
+            try {
+                emitter.send(SseEmitter.event().name("batch").data(events));
+            } catch (IOException e) {
+                throw new IllegalStateException("Subscriber gone", e);
+            }
+        }, emitter::complete);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("📡 Job event subscriber added ({} total)", subscribers.size());
+        return emitter;
+    }
+
+    /** Subscribes a plain callback, invoked on a sender thread; returns a handle to unsubscribe. */
+    public Runnable subscribe(Consumer<List<JobProgressEvent>> sink) {
+        Subscriber subscriber = new Subscriber(sink, () -> { });
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public void publish(JobProgressEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void dispatch() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendStarted = subscriber.sendStarted;
+            if (sendStarted != 0) {
+                if (sendTimeoutNanos > 0 && now - sendStarted > sendTimeoutNanos) {
+                    drop(subscriber, "send timed out");
+                }
+                continue;
+            }
+            List<JobProgressEvent> events = subscriber.drain();
+            if (events.isEmpty()) {
+                continue;
+            }
+            subscriber.sendStarted = now != 0 ? now : 1;
+            senders.execute(() -> {
+                try {
+                    subscriber.sink.accept(events);
+                    subscriber.sendStarted = 0;
+                } catch (Exception e) {
+                    drop(subscriber, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("📡 Dropping job event subscriber: {}", reason);
+            subscriber.close();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Consumer<List<JobProgressEvent>> sink;
+        private final Runnable onClose;
+        private final Map<Long, Deque<JobProgressEvent>> pending = new LinkedHashMap<>();
+        // System.nanoTime() when the send in flight started; 0 when none is
+        private volatile long sendStarted;
+
+        Subscriber(Consumer<List<JobProgressEvent>> sink, Runnable onClose) {
+            this.sink = sink;
+            this.onClose = onClose;
+        }
+
+        synchronized void offer(JobProgressEvent event) {
+            Deque<JobProgressEvent> queue = pending.computeIfAbsent(event.jobExecutionId(), id -> new ArrayDeque<>(bufferSize));
+            // The queued progress of the same step goes, wherever it is: steps can interleave
+            if (!queue.removeIf(event::supersedes) && queue.size() >= bufferSize) {
+                queue.pollFirst();
+            }
+            queue.addLast(event);
+        }
+
+        synchronized List<JobProgressEvent> drain() {
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            List<JobProgressEvent> events = new ArrayList<>();
+            pending.values().forEach(events::addAll);
+            pending.clear();
+            return events;
+        }
+
+        void close() {
+            try {
+                onClose.run();
+            } catch (Exception ignore) { }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.JobMetricsAggregate;
+import com.example.springbatchtutorial.repository.JobMetricsAggregateRepository;
+import com.example.springbatchtutorial.util.DurationHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Running job and step aggregates behind {@code /api/jobs/metrics}, updated once per finished job.
+ *
+ * Each scope ({@code job:<name>}, {@code step:<name>}) has an all-time row and one row per hour. A completion
+ * updates those two rows per scope in place: counters are added and the duration is recorded into a
+ * {@link DurationHistogram}, whatever the length of the history. Windowed rollups merge the hourly rows of the
+ * window, so they are accurate to the hour. Rows live in the application database and survive restarts whenever
+ * it does.
+ */
+@Service
+@Slf4j
+public class JobMetricsAggregator {
+
+    public static final String JOB_SCOPE = "job:";
+    public static final String STEP_SCOPE = "step:";
+    private static final Pattern WINDOW = Pattern.compile("(\\d+)([mhd])");
+
+    private final JobMetricsAggregateRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    public JobMetricsAggregator(JobMetricsAggregateRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds a finished job and its steps. Synchronized around its own transaction so two jobs finishing together
+     * cannot both read and overwrite the same row.
+     */
+    public synchronized void record(JobExecution jobExecution) {
+        LocalDateTime now = LocalDateTime.now();
+        // afterJob runs before Spring Batch sets the job's end time
+        LocalDateTime jobEnd = jobExecution.getEndTime() != null ? jobExecution.getEndTime() : now;
+        LocalDateTime hour = jobEnd.truncatedTo(ChronoUnit.HOURS);
+        // Job throughput counts the input rows, i.e. what the first step read
+        long inputRows = jobExecution.getStepExecutions().stream()
+                .min(Comparator.comparing(StepExecution::getId))
+                .map(StepExecution::getReadCount).orElse(0L);
+        transactionTemplate.executeWithoutResult(tx -> {
+            add(JOB_SCOPE + jobExecution.getJobInstance().getJobName(), hour, jobExecution.getStatus(),
+                    millisBetween(jobExecution.getStartTime(), jobEnd), inputRows, inputRows);
+            for (StepExecution step : jobExecution.getStepExecutions()) {
+                LocalDateTime stepEnd = step.getEndTime() != null ? step.getEndTime() : now;
+                add(STEP_SCOPE + step.getStepName(), hour, step.getStatus(),
+                        millisBetween(step.getStartTime(), stepEnd), step.getReadCount(), step.getWriteCount());
+            }
+        });
+    }
+
+    private void add(String scope, LocalDateTime hour, BatchStatus status, long durationMs, long read, long written) {
+        for (LocalDateTime bucket : List.of(JobMetricsAggregate.ALL_TIME, hour)) {
+            JobMetricsAggregate aggregate = repository.findByScopeAndBucketStart(scope, bucket)
+                    .orElseGet(() -> new JobMetricsAggregate(scope, bucket));
+            aggregate.setExecutions(aggregate.getExecutions() + 1);
+            if (status == BatchStatus.COMPLETED) {
+                aggregate.setCompleted(aggregate.getCompleted() + 1);
+            } else if (status == BatchStatus.FAILED) {
+                aggregate.setFailed(aggregate.getFailed() + 1);
+            }
+            aggregate.setDurationTotalMs(aggregate.getDurationTotalMs() + durationMs);
+            aggregate.setRowsRead(aggregate.getRowsRead() + read);
+            aggregate.setRowsWritten(aggregate.getRowsWritten() + written);
+            DurationHistogram histogram = DurationHistogram.decode(aggregate.getDurationHistogram());
+            histogram.record(durationMs);
+            aggregate.setDurationHistogram(histogram.encode());
+            repository.save(aggregate);
+        }
+    }
+
+    /**
+     * Aggregates over the given window ({@code 15m}, {@code 1h}, {@code 7d}...; {@code null} or {@code all} for all
+     * time). The top-level keys keep the shape the dashboard reads.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> rollup(String window) {
+        List<JobMetricsAggregate> rows;
+        String windowName = window == null || window.isBlank() ? "all" : window.trim();
+        if (windowName.equals("all")) {
+            rows = repository.findByBucketStart(JobMetricsAggregate.ALL_TIME);
+        } else {
+            LocalDateTime from = LocalDateTime.now().minus(parseWindow(windowName)).truncatedTo(ChronoUnit.HOURS);
+            rows = repository.findByBucketStartGreaterThanEqual(from);
+        }
+
+        Map<String, Totals> byScope = new TreeMap<>();
+        for (JobMetricsAggregate row : rows) {
+            byScope.computeIfAbsent(row.getScope(), s -> new Totals()).add(row);
+        }
+        Totals jobs = new Totals();
+        Map<String, Object> jobMetrics = new LinkedHashMap<>();
+        Map<String, Object> stepMetrics = new LinkedHashMap<>();
+        byScope.forEach((scope, totals) -> {
+            if (scope.startsWith(JOB_SCOPE)) {
+                jobs.add(totals);
+                jobMetrics.put(scope.substring(JOB_SCOPE.length()), totals.toMap());
+            } else if (scope.startsWith(STEP_SCOPE)) {
+                stepMetrics.put(scope.substring(STEP_SCOPE.length()), totals.toMap());
+            }
+        });
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("window", windowName);
+        metrics.put("totalExecutions", jobs.executions);
+        metrics.put("successfulExecutions", jobs.completed);
+        metrics.put("failedExecutions", jobs.failed);
+        metrics.put("avgDuration", jobs.avgDurationMs());
+        metrics.put("successRate", jobs.executions > 0 ? (double) jobs.completed / jobs.executions * 100 : 0);
+        metrics.put("jobs", jobMetrics);
+        metrics.put("steps", stepMetrics);
+        return metrics;
+    }
+
+    static Duration parseWindow(String window) {
+        Matcher matcher = WINDOW.matcher(window);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid window '" + window + "' (use e.g. 15m, 1h, 7d or all)");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    private static long millisBetween(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null ? Math.max(0, Duration.between(start, end).toMillis()) : 0;
+    }
+
+    private static final class Totals {
+
+        private long executions;
+        private long completed;
+        private long failed;
+        private long durationTotalMs;
+        private long rowsRead;
+        private long rowsWritten;
+        private final DurationHistogram histogram = new DurationHistogram();
+
+        void add(JobMetricsAggregate row) {
+            executions += row.getExecutions();
+            completed += row.getCompleted();
+            failed += row.getFailed();
+            durationTotalMs += row.getDurationTotalMs();
+            rowsRead += row.getRowsRead();
+            rowsWritten += row.getRowsWritten();
+            histogram.add(DurationHistogram.decode(row.getDurationHistogram()));
+        }
+
+        void add(Totals other) {
+            executions += other.executions;
+            completed += other.completed;
+            failed += other.failed;
+            durationTotalMs += other.durationTotalMs;
+            rowsRead += other.rowsRead;
+            rowsWritten += other.rowsWritten;
+            histogram.add(other.histogram);
+        }
+
+        long avgDurationMs() {
+            return executions > 0 ? Math.round((double) durationTotalMs / executions) : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("executions", executions);
+            map.put("completed", completed);
+            map.put("failed", failed);
+            map.put("avgDurationMs", avgDurationMs());
+            map.put("p50Ms", histogram.valueAtPercentile(50));
+            map.put("p95Ms", histogram.valueAtPercentile(95));
+            map.put("p99Ms", histogram.valueAtPercentile(99));
+            map.put("maxMs", histogram.max());
+            map.put("rowsRead", rowsRead);
+            map.put("rowsWritten", rowsWritten);
+            map.put("rowsPerSecond", durationTotalMs > 0 ? Math.round(rowsWritten * 1000.0 / durationTotalMs * 10) / 10.0 : 0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.springbatchtutorial.service;
+
+public enum LoadMode {
+    ROW, // step1SaveToDatabase: CSV rows validated and upserted one by one through JPA (default)
+    BULK, // step1BulkLoad: native CSV import into a staging table, set-based validation and one MERGE
+    PIPELINE; // stagedPipelineStep: all three steps as concurrent stages connected by bounded queues
+
+    public static final String PARAMETER = "loadMode";
+}
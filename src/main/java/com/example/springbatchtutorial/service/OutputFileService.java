@@ -0,0 +1,170 @@
+package com.example.springbatchtutorial.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a copy of the step 3 output file per job execution, plus a gzip variant, for {@code /api/output}.
+ *
+ * Step 3 deletes and recreates {@code output/persons_with_age.txt} on every run, so after each job the file is
+ * hard-linked into {@code batch.output.dir} (copied where links are not supported). A link shares the file's data
+ * and costs nothing; the next run's delete only removes the old name. The gzip variant is written next to it
+ * once, at the fastest level, so downloads never compress on the fly. The same pass hashes the content into a
+ * {@code .sha256} file next to it, which downloads use as their ETag. Only the newest
+ * {@code batch.output.keep-executions} are kept.
+ */
+@Service
+@Slf4j
+public class OutputFileService {
+
+    private static final Pattern SNAPSHOT = Pattern.compile("persons_with_age_(\\d+)\\.txt");
+
+    private final Path source;
+    private final Path dir;
+    private final int keepExecutions;
+
+    public OutputFileService(@Value("${batch.output.file:output/persons_with_age.txt}") String source,
+                             @Value("${batch.output.dir:output/executions}") String dir,
+                             @Value("${batch.output.keep-executions:10}") int keepExecutions) {
+        this.source = Path.of(source);
+        this.dir = Path.of(dir);
+        this.keepExecutions = keepExecutions;
+    }
+
+    /** One execution's output file, its gzip variant and the SHA-256 of its content (either may be missing). */
+    public record Snapshot(long jobExecutionId, Path file, Path gzip, String sha256) {
+    }
+
+    /** Snapshots the current output file as the given execution's. */
+    public synchronized void publish(long jobExecutionId) throws IOException {
+        if (!Files.isRegularFile(source)) {
+            log.warn("⚠️ No output file at {} to publish for execution {}", source, jobExecutionId);
+            return;
+        }
+        Files.createDirectories(dir);
+        Path target = fileOf(jobExecutionId);
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path gzip = gzipOf(jobExecutionId);
+        Path partial = gzip.resolveSibling(gzip.getFileName() + ".part");
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(target), digest);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024) {
+                 {
+                     def.setLevel(Deflater.BEST_SPEED);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+        Path hash = hashOf(jobExecutionId);
+        Path hashPartial = hash.resolveSibling(hash.getFileName() + ".part");
+        Files.writeString(hashPartial, HexFormat.of().formatHex(digest.digest()));
+        Files.move(hashPartial, hash, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(partial, gzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("📦 Published output of execution {}: {} bytes, gzip {} bytes", jobExecutionId, Files.size(target), Files.size(gzip));
+        purge();
+    }
+
+    public Optional<Snapshot> find(long jobExecutionId) {
+        Path file = fileOf(jobExecutionId);
+        return Files.isRegularFile(file) ? Optional.of(snapshot(jobExecutionId)) : Optional.empty();
+    }
+
+    /** The most recently published snapshot (execution ids start over when the job repository is in memory). */
+    public Optional<Snapshot> latest() {
+        List<Long> ids = publishedIds();
+        return ids.isEmpty() ? Optional.empty() : find(ids.get(ids.size() - 1));
+    }
+
+    private void purge() throws IOException {
+        List<Long> ids = publishedIds();
+        for (int i = 0; i < ids.size() - keepExecutions; i++) {
+            Files.deleteIfExists(fileOf(ids.get(i)));
+            Files.deleteIfExists(gzipOf(ids.get(i)));
+            Files.deleteIfExists(hashOf(ids.get(i)));
+        }
+    }
+
+    /** Published execution ids, oldest publication first (the gzip variant is written last). */
+    private List<Long> publishedIds() {
+        Map<Long, FileTime> published = new HashMap<>();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SNAPSHOT.matcher(f.getFileName().toString());
+                if (matcher.matches()) {
+                    long id = Long.parseLong(matcher.group(1));
+                    Path gzip = gzipOf(id);
+                    published.put(id, Files.getLastModifiedTime(Files.exists(gzip) ? gzip : f));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Could not list {}: {}", dir, e.getMessage());
+        }
+        List<Long> ids = new ArrayList<>(published.keySet());
+        ids.sort(Comparator.comparing(published::get));
+        return ids;
+    }
+
+    private Snapshot snapshot(long jobExecutionId) {
+        Path gzip = gzipOf(jobExecutionId);
+        String sha256 = null;
+        try {
+            sha256 = Files.readString(hashOf(jobExecutionId)).trim();
+        } catch (IOException e) {
+            // published before hashes were kept
+        }
+        return new Snapshot(jobExecutionId, fileOf(jobExecutionId), Files.isRegularFile(gzip) ? gzip : null, sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Path fileOf(long jobExecutionId) {
+        return dir.resolve("persons_with_age_" + jobExecutionId + ".txt");
+    }
+
+    private Path gzipOf(long jobExecutionId) {
+        return dir.resolve("persons_with_age_" + jobExecutionId + ".txt.gz");
+    }
+
+    private Path hashOf(long jobExecutionId) {
+        return dir.resolve("persons_with_age_" + jobExecutionId + ".txt.sha256");
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.jfr.DbStatementEvent;
+import com.example.springbatchtutorial.model.ProcessingStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the persons table as NDJSON or CSV straight from a JDBC cursor to an output stream.
+ *
+ * Rows are fetched {@code batch.export.fetch-size} at a time and each one is written as soon as it is read, so an
+ * export of any size holds one fetch of rows and one write buffer. The query runs in a read-only transaction on the
+ * read pool, because some drivers (PostgreSQL) only honor the fetch size with auto-commit off and a long export
+ * should not hold a connection the job steps need.
+ */
+@Service
+@Slf4j
+public class PersonExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String[] CSV_HEADER =
+            {"id", "firstName", "lastName", "email", "dateOfBirth", "age", "jobExecutionId", "processingStatus"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public PersonExportService(@Qualifier("readDataSource") DataSource dataSource,
+                               @Qualifier("readTransactionManager") PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper, @Value("${batch.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /** Writes all persons matching the filters, ordered by id, and returns the number of rows written. */
+    public long export(Format format, Long jobExecutionId, ProcessingStatus status, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("select id, first_name, last_name, email, date_of_birth, age, "
+                + "job_execution_id, processing_status from persons where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (jobExecutionId != null) {
+            sql.append(" and job_execution_id = ?");
+            args.add(jobExecutionId);
+        }
+        if (status != null) {
+            sql.append(" and processing_status = ?");
+            args.add(status.name());
+        }
+        sql.append(" order by id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowSink sink = format == Format.CSV ? new CsvSink(writer) : new NdjsonSink(objectMapper, writer);
+        long[] rows = {0};
+        DbStatementEvent event = DbStatementEvent.start("exportPersons");
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(sql.toString(), rs -> {
+                try {
+                    sink.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            // Typically the client went away mid-download
+            throw e.getCause();
+        } finally {
+            event.finish((int) Math.min(rows[0], Integer.MAX_VALUE));
+        }
+        sink.finish();
+        writer.flush();
+        log.info("📤 Exported {} persons as {}", rows[0], format);
+        return rows[0];
+    }
+
+    private interface RowSink {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonSink implements RowSink {
+
+        private final JsonGenerator generator;
+        private final Writer writer;
+
+        NdjsonSink(ObjectMapper objectMapper, Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong(1));
+            generator.writeStringField("firstName", rs.getString(2));
+            generator.writeStringField("lastName", rs.getString(3));
+            generator.writeStringField("email", rs.getString(4));
+            Date dob = rs.getDate(5);
+            generator.writeStringField("dateOfBirth", dob != null ? dob.toLocalDate().toString() : null);
+            writeNullableInt(rs, 6, "age");
+            long jobExecutionId = rs.getLong(7);
+            if (rs.wasNull()) {
+                generator.writeNullField("jobExecutionId");
+            } else {
+                generator.writeNumberField("jobExecutionId", jobExecutionId);
+            }
+            generator.writeStringField("processingStatus", rs.getString(8));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        private void writeNullableInt(ResultSet rs, int column, String field) throws SQLException, IOException {
+            int value = rs.getInt(column);
+            if (rs.wasNull()) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvSink implements RowSink {
+
+        private final CSVWriter csv;
+        private final String[] line = new String[CSV_HEADER.length];
+
+        CsvSink(Writer writer) {
+            this.csv = new CSVWriter(writer);
+            csv.writeNext(CSV_HEADER, false);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException {
+            for (int i = 0; i < line.length; i++) {
+                line[i] = rs.getString(i + 1);
+            }
+            csv.writeNext(line, false);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csv.flush();
+        }
+    }
+}
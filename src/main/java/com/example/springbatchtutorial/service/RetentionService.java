@@ -0,0 +1,238 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.RetentionPolicy;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Removes persons that belong to job executions outside the retention policy.
+ *
+ * Rows are deleted in id-range batches of {@code batch.retention.batch-size}, each in its own short transaction,
+ * so a purge never holds locks on the whole table. Execution ids grow monotonically, which lets the policy be
+ * reduced to a single cutoff id: every row tagged with a smaller execution id is eligible.
+ */
+@Service
+@Slf4j
+public class RetentionService {
+
+    private static final String JOB_NAME = "processPersonJob";
+    private static final int INSTANCE_PAGE_SIZE = 100;
+
+    private final PersonRepository personRepository;
+    private final JobExplorer jobExplorer;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer purgeTimer;
+    private final Counter rowsReclaimed;
+
+    @Value("${batch.retention.keep-last-executions:0}")
+    private int defaultKeepLastExecutions;
+    @Value("${batch.retention.keep-days:0}")
+    private int defaultKeepDays;
+    @Value("${batch.retention.archive.enabled:false}")
+    private boolean defaultArchive;
+    @Value("${batch.retention.archive.dir:output/archive}")
+    private String archiveDir;
+    @Value("${batch.retention.batch-size:1000}")
+    private int batchSize;
+
+    public RetentionService(PersonRepository personRepository,
+                            JobExplorer jobExplorer,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.personRepository = personRepository;
+        this.jobExplorer = jobExplorer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgeTimer = Timer.builder("batch.retention.purge.duration")
+                .description("Time spent purging persons outside the retention policy")
+                .register(meterRegistry);
+        this.rowsReclaimed = Counter.builder("batch.retention.rows.reclaimed")
+                .description("Persons rows deleted by retention purges")
+                .register(meterRegistry);
+    }
+
+    public RetentionPolicy defaultPolicy() {
+        return new RetentionPolicy(
+                defaultKeepLastExecutions > 0 ? defaultKeepLastExecutions : null,
+                defaultKeepDays > 0 ? defaultKeepDays : null,
+                defaultArchive);
+    }
+
+    @Scheduled(cron = "${batch.retention.cron:-}")
+    public void scheduledPurge() {
+        purge(defaultPolicy());
+    }
+
+    public Map<String, Object> purge(RetentionPolicy policy) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("policy", policy);
+        if (!policy.isEnabled()) {
+            log.info("🧹 Retention purge skipped - no retention rule configured");
+            result.put("rowsReclaimed", 0);
+            return result;
+        }
+
+        long started = System.nanoTime();
+        long cutoff = resolveCutoffExecutionId(policy);
+        log.info("🧹 Retention purge starting - policy: {}, cutoff execution id: {}", policy, cutoff);
+
+        int reclaimed = 0;
+        int batches = 0;
+        Path archiveFile = null;
+        CSVWriter archive = null;
+        try {
+            if (policy.isArchive() && cutoff > 0) {
+                archiveFile = newArchiveFile();
+                archive = new CSVWriter(new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(archiveFile), 64 * 1024), StandardCharsets.UTF_8)));
+                archive.writeNext(new String[]{"id", "firstName", "lastName", "email", "dateOfBirth", "age",
+                        "jobExecutionId", "processingStatus"}, false);
+            }
+            while (cutoff > 0) {
+                final CSVWriter out = archive;
+                Integer deleted = transactionTemplate.execute(status -> purgeBatch(cutoff, out));
+                if (deleted == null || deleted == 0) {
+                    break;
+                }
+                reclaimed += deleted;
+                batches++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed writing retention archive", e);
+        } finally {
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    log.warn("⚠️ Failed closing retention archive {}: {}", archiveFile, e.getMessage());
+                }
+            }
+            long elapsed = System.nanoTime() - started;
+            purgeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            rowsReclaimed.increment(reclaimed);
+            result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+
+        log.info("✅ Retention purge finished - rows reclaimed: {}, batches: {}, archive: {}", reclaimed, batches, archiveFile);
+        result.put("cutoffExecutionId", cutoff);
+        result.put("rowsReclaimed", reclaimed);
+        result.put("batches", batches);
+        if (archiveFile != null) {
+            result.put("archiveFile", archiveFile.toString());
+        }
+        return result;
+    }
+
+    private int purgeBatch(long cutoff, CSVWriter archive) {
+        List<Long> ids = personRepository.findIdsForPurge(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Long fromId = ids.get(0);
+        Long toId = ids.get(ids.size() - 1);
+        if (archive != null) {
+            // Quoted where needed: names may hold commas, quotes or line breaks
+            for (Person p : personRepository.findPurgeBatch(fromId, toId, cutoff)) {
+                archive.writeNext(new String[]{String.valueOf(p.getId()), p.getFirstName(), p.getLastName(), p.getEmail(),
+                        String.valueOf(p.getDateOfBirth()), p.getAge() != null ? String.valueOf(p.getAge()) : "",
+                        String.valueOf(p.getJobExecutionId()), String.valueOf(p.getProcessingStatus())}, false);
+            }
+            if (archive.checkError()) {
+                throw new UncheckedIOException(new IOException("Failed writing retention archive"));
+            }
+        }
+        int deleted = personRepository.deletePurgeBatch(fromId, toId, cutoff);
+        log.debug("🧹 Purged {} persons with ids {}..{}", deleted, fromId, toId);
+        return deleted;
+    }
+
+    /**
+     * Returns the smallest execution id that must be kept; a row survives if any configured rule keeps it.
+     * Running executions and the newest execution are always kept. Returns 0 when nothing is eligible.
+     */
+    long resolveCutoffExecutionId(RetentionPolicy policy) {
+        List<JobExecution> executions = new ArrayList<>();
+        LocalDateTime threshold = policy.getKeepDays() != null && policy.getKeepDays() > 0
+                ? LocalDateTime.now().minusDays(policy.getKeepDays())
+                : null;
+        int keepLast = policy.getKeepLastExecutions() != null ? policy.getKeepLastExecutions() : 0;
+
+        // Instances come back newest first; stop paging once both rules are satisfied
+        for (int start = 0; ; start += INSTANCE_PAGE_SIZE) {
+            List<JobInstance> page = jobExplorer.getJobInstances(JOB_NAME, start, INSTANCE_PAGE_SIZE);
+            boolean olderThanWindow = false;
+            for (JobInstance instance : page) {
+                for (JobExecution execution : jobExplorer.getJobExecutions(instance)) {
+                    executions.add(execution);
+                    if (threshold == null || (execution.getStartTime() != null && execution.getStartTime().isBefore(threshold))) {
+                        olderThanWindow = true;
+                    }
+                }
+            }
+            if (page.size() < INSTANCE_PAGE_SIZE || (olderThanWindow && executions.size() > keepLast)) {
+                break;
+            }
+        }
+        if (executions.isEmpty()) {
+            return 0;
+        }
+        executions.sort((a, b) -> Long.compare(b.getId(), a.getId()));
+
+        long cutoff = Long.MAX_VALUE;
+        if (keepLast > 0) {
+            cutoff = executions.size() >= keepLast ? executions.get(keepLast - 1).getId() : 0;
+        }
+        if (threshold != null) {
+            // An empty window still keeps the newest execution
+            long oldestInWindow = executions.get(0).getId();
+            for (JobExecution execution : executions) {
+                if (execution.getStartTime() != null && !execution.getStartTime().isBefore(threshold)) {
+                    oldestInWindow = execution.getId();
+                }
+            }
+            cutoff = Math.min(cutoff, oldestInWindow);
+        }
+        for (JobExecution execution : executions) {
+            if (execution.isRunning()) {
+                cutoff = Math.min(cutoff, execution.getId());
+            }
+        }
+        return cutoff;
+    }
+
+    private Path newArchiveFile() throws IOException {
+        Path dir = Path.of(archiveDir);
+        Files.createDirectories(dir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
+        return dir.resolve("persons_purge_" + stamp + ".csv.gz");
+    }
+}
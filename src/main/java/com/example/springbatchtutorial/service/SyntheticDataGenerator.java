@@ -0,0 +1,380 @@
+package com.example.springbatchtutorial.service;
+
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.model.DobDistribution;
+import com.example.springbatchtutorial.model.GenerationProgress;
+import com.example.springbatchtutorial.reader.ValidationRule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Deterministic person CSV generator: the same {@link DatasetSpec} always yields byte-identical files,
+ * so scale runs are comparable across builds and machines.
+ *
+ * Rows are produced in fixed-size shards, each with its own seed derived from the spec seed and the shard
+ * index, so output does not depend on the thread count. Shards are encoded straight to ASCII bytes on a worker
+ * pool and written in order with large {@link FileChannel} writes; at most {@code 2 * threads} shards are in
+ * flight. With gzip every shard is compressed on its worker as a separate gzip member, which standard readers
+ * (including {@link java.util.zip.GZIPInputStream}) treat as one stream.
+ *
+ * At most {@code batch.generator.max-concurrent} generations run at once and {@code batch.generator.max-queued}
+ * wait; further requests are rejected. Only the last {@code batch.generator.keep-finished} finished generations
+ * stay listed.
+ */
+@Service
+@Slf4j
+public class SyntheticDataGenerator {
+
+    static final String HEADER = "FirstName,LastName,Email,DateOfBirth";
+    static final int SHARD_ROWS = 65_536;
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Brown", "Taylor", "Miller", "Wilson", "Moore", "Clark"};
+    // Rules used when only invalidRatio is given
+    private static final ValidationRule[] SPREAD_RULES = {
+            ValidationRule.INVALID_EMAIL, ValidationRule.FUTURE_DATE, ValidationRule.UNREALISTIC_DATE,
+            ValidationRule.EMPTY_FIELD, ValidationRule.INVALID_DATE_FORMAT};
+
+    private final ExecutorService shardPool;
+    private final ExecutorService coordinator;
+    private final int threads;
+    private final Path outputDir;
+    private final int keepFinished;
+    private final Map<String, GenerationProgress> generations = new ConcurrentHashMap<>();
+
+    public SyntheticDataGenerator(@Value("${batch.generator.threads:0}") int threads,
+                                  @Value("${batch.generator.output-dir:input/generated}") String outputDir,
+                                  @Value("${batch.generator.max-concurrent:2}") int maxConcurrent,
+                                  @Value("${batch.generator.max-queued:8}") int maxQueued,
+                                  @Value("${batch.generator.keep-finished:100}") int keepFinished) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.outputDir = Path.of(outputDir);
+        this.keepFinished = Math.max(0, keepFinished);
+        this.coordinator = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)), r -> {
+                    Thread t = new Thread(r, "data-generator");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.shardPool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "data-generator-shard");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        shardPool.shutdownNow();
+    }
+
+    /**
+     * Starts an asynchronous generation into {@code batch.generator.output-dir}; poll {@link #progress(String)}.
+     * Throws {@link RejectedExecutionException} when the queue of waiting generations is full.
+     */
+    public GenerationProgress start(DatasetSpec spec, String fileName) {
+        String name = fileName != null && !fileName.isBlank()
+                ? Path.of(fileName).getFileName().toString()
+                : "persons_" + spec.getRows() + "_" + spec.getSeed() + ".csv";
+        if (spec.isGzip() && !name.endsWith(".gz")) {
+            name += ".gz";
+        }
+        Path target = outputDir.resolve(name);
+        GenerationProgress progress = new GenerationProgress(UUID.randomUUID().toString(), spec, target.toString());
+        generations.put(progress.getId(), progress);
+        try {
+            coordinator.submit(() -> {
+                try {
+                    generate(spec, target, progress);
+                    progress.completed();
+                } catch (Exception e) {
+                    log.error("❌ Data generation {} failed: {}", progress.getId(), e.getMessage(), e);
+                    progress.failed(e.getMessage());
+                } finally {
+                    evictFinished();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            generations.remove(progress.getId());
+            throw e;
+        }
+        return progress;
+    }
+
+    /** Drops the oldest finished generations beyond {@code keepFinished}; running ones are always kept. */
+    private void evictFinished() {
+        List<GenerationProgress> finished = generations.values().stream()
+                .filter(g -> g.getStatus() != GenerationProgress.Status.RUNNING)
+                .sorted(Comparator.comparing(GenerationProgress::getEndTime))
+                .toList();
+        for (int i = 0; i < finished.size() - keepFinished; i++) {
+            generations.remove(finished.get(i).getId());
+        }
+    }
+
+    public Optional<GenerationProgress> progress(String id) {
+        return Optional.ofNullable(generations.get(id));
+    }
+
+    public Collection<GenerationProgress> generations() {
+        return generations.values();
+    }
+
+    public Path generate(DatasetSpec spec, Path target) throws IOException {
+        return generate(spec, target, null);
+    }
+
+    Path generate(DatasetSpec spec, Path target, GenerationProgress progress) throws IOException {
+        long started = System.currentTimeMillis();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        RowEncoder encoder = new RowEncoder(spec);
+        long shards = Math.max(1, (spec.getRows() + SHARD_ROWS - 1) / SHARD_ROWS);
+        int window = threads * 2;
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>(window);
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long nextShard = 0;
+            long writtenShard = 0;
+            while (writtenShard < shards) {
+                while (nextShard < shards && inFlight.size() < window) {
+                    final long shard = nextShard++;
+                    inFlight.addLast(shardPool.submit(() -> encoder.encodeShard(shard)));
+                }
+                byte[] bytes = inFlight.removeFirst().get();
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (progress != null) {
+                    progress.shardWritten(encoder.rowsInShard(writtenShard), bytes.length);
+                }
+                writtenShard++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.forEach(f -> f.cancel(true));
+            throw new IOException("Generation interrupted", e);
+        } catch (ExecutionException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw new IOException("Shard generation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        log.info("🧪 Generated {} rows into {} in {} ms ({} shards, {} threads)",
+                spec.getRows(), target, System.currentTimeMillis() - started, shards, threads);
+        return target;
+    }
+
+    /** Stateless per-row encoding; one instance is shared by all shard tasks of a generation. */
+    static final class RowEncoder {
+
+        private final DatasetSpec spec;
+        private final ValidationRule[] rules;
+        private final double[] cumulative;
+        private final long dobFrom;
+        private final long dobTo;
+
+        RowEncoder(DatasetSpec spec) {
+            this.spec = spec;
+            List<ValidationRule> ruleList = new ArrayList<>();
+            List<Double> ratios = new ArrayList<>();
+            if (spec.getErrorRatios() != null && !spec.getErrorRatios().isEmpty()) {
+                spec.getErrorRatios().forEach((rule, ratio) -> {
+                    if (ratio != null && ratio > 0) {
+                        ruleList.add(rule);
+                        ratios.add(ratio);
+                    }
+                });
+            } else if (spec.getInvalidRatio() > 0) {
+                for (ValidationRule rule : SPREAD_RULES) {
+                    ruleList.add(rule);
+                    ratios.add(spec.getInvalidRatio() / SPREAD_RULES.length);
+                }
+            }
+            this.rules = ruleList.toArray(new ValidationRule[0]);
+            this.cumulative = new double[rules.length];
+            double sum = 0;
+            for (int i = 0; i < rules.length; i++) {
+                sum += ratios.get(i);
+                cumulative[i] = sum;
+            }
+            this.dobFrom = LocalDate.of(spec.getDobFromYear(), 1, 1).toEpochDay();
+            this.dobTo = LocalDate.of(spec.getDobToYear(), 12, 31).toEpochDay();
+        }
+
+        long rowsInShard(long shard) {
+            long first = shard * SHARD_ROWS + 1;
+            return Math.max(0, Math.min(SHARD_ROWS, spec.getRows() - first + 1));
+        }
+
+        byte[] encodeShard(long shard) throws IOException {
+            long first = shard * SHARD_ROWS + 1;
+            long last = first + rowsInShard(shard) - 1;
+            SplittableRandom random = new SplittableRandom(spec.getSeed() * 0x9E3779B97F4A7C15L + shard);
+            AsciiBuffer out = new AsciiBuffer((int) (rowsInShard(shard) * 56) + 64);
+            if (shard == 0) {
+                out.append(HEADER).append('\n');
+            }
+            for (long i = first; i <= last; i++) {
+                appendRow(out, i, random);
+            }
+            if (!spec.isGzip()) {
+                return out.toByteArray();
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(out.length() / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 64 * 1024)) {
+                gzip.write(out.array(), 0, out.length());
+            }
+            return compressed.toByteArray();
+        }
+
+        void appendRow(AsciiBuffer out, long i, SplittableRandom random) {
+            ValidationRule rule = pickRule(random.nextDouble());
+            boolean duplicate = i > 1 && random.nextDouble() < spec.getDuplicateRatio();
+            long emailId = duplicate ? 1 + random.nextLong(i - 1) : i;
+            long dob = nextDob(random);
+
+            out.append("GEN_").append(i).append(',').append(LAST_NAMES[(int) (i % LAST_NAMES.length)]).append(',');
+            if (rule == null) {
+                out.append("user").append(emailId).append("@example.com,").appendIsoDate(dob).append('\n');
+                return;
+            }
+            switch (rule) {
+                case INVALID_EMAIL -> out.append("user").append(emailId).append(".example.com,").appendIsoDate(dob);
+                case FUTURE_DATE -> out.append("user").append(emailId).append("@example.com,2999-01-01");
+                case UNREALISTIC_DATE -> out.append("user").append(emailId).append("@example.com,1800-01-01");
+                case EMPTY_FIELD -> out.append("user").append(emailId).append("@example.com,");
+                case INSUFFICIENT_COLUMNS -> out.append("user").append(emailId).append("@example.com");
+                default -> { // INVALID_DATE_FORMAT and anything unexpected: dd/MM/yyyy
+                    LocalDate date = LocalDate.ofEpochDay(dob);
+                    out.append("user").append(emailId).append("@example.com,")
+                            .appendPadded(date.getDayOfMonth(), 2).append('/')
+                            .appendPadded(date.getMonthValue(), 2).append('/')
+                            .appendPadded(date.getYear(), 4);
+                }
+            }
+            out.append('\n');
+        }
+
+        private ValidationRule pickRule(double r) {
+            for (int i = 0; i < rules.length; i++) {
+                if (r < cumulative[i]) {
+                    return rules[i];
+                }
+            }
+            return null;
+        }
+
+        private long nextDob(SplittableRandom random) {
+            long span = dobTo - dobFrom + 1;
+            if (spec.getDobDistribution() == DobDistribution.NORMAL) {
+                long day = Math.round(dobFrom + span / 2.0 + random.nextGaussian() * span / 6.0);
+                return Math.max(dobFrom, Math.min(dobTo, day));
+            }
+            return dobFrom + random.nextLong(span);
+        }
+    }
+
+    /** Growable byte buffer for ASCII-only CSV rows; avoids String and charset encoding per field. */
+    static final class AsciiBuffer {
+
+        private byte[] bytes;
+        private int length;
+
+        AsciiBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        AsciiBuffer append(char c) {
+            ensure(1);
+            bytes[length++] = (byte) c;
+            return this;
+        }
+
+        AsciiBuffer append(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        AsciiBuffer append(long value) {
+            if (value < 0) {
+                append('-');
+                value = -value;
+            }
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            return appendPadded(value, digits);
+        }
+
+        AsciiBuffer appendPadded(long value, int width) {
+            ensure(width);
+            for (int i = width - 1; i >= 0; i--) {
+                bytes[length + i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += width;
+            return this;
+        }
+
+        AsciiBuffer appendIsoDate(long epochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            return appendPadded(date.getYear(), 4).append('-')
+                    .appendPadded(date.getMonthValue(), 2).append('-')
+                    .appendPadded(date.getDayOfMonth(), 2);
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] toByteArray() {
+            return length == bytes.length ? bytes : java.util.Arrays.copyOf(bytes, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = java.util.Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.springbatchtutorial.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests a CSV request body while it is being received.
+ *
+ * The job is launched on its own thread before the body is read. The request thread then reads the body in
+ * {@code batch.upload.chunk-bytes} chunks, appends each chunk to a spool file and hands it to step 1 through a
+ * bounded pipe, so parsing, validation and DB writes overlap with the network. A full pipe blocks the upload,
+ * which throttles the client to the pace of the job. If the job stops reading (it failed or was stopped) the body
+ * is still spooled to the end: the spool, renamed to {@code <uploadId>.csv} once complete, is the job's
+ * {@code csvPath}, so a restart of the execution reads it from disk.
+ */
+@Service
+@Slf4j
+public class UploadIngestService {
+
+    private static final byte[] END = new byte[0];
+
+    private final Job processPersonJob;
+    private final TaskExecutorJobLauncher asyncLauncher;
+    private final Map<String, UploadPipe> pipes = new ConcurrentHashMap<>();
+    private final Path spoolDir;
+    private final int chunkBytes;
+    private final int pipeChunks;
+
+    public UploadIngestService(Job processPersonJob, JobRepository jobRepository,
+                               @Value("${batch.upload.spool-dir:output/uploads}") String spoolDir,
+                               @Value("${batch.upload.chunk-bytes:65536}") int chunkBytes,
+                               @Value("${batch.upload.pipe-chunks:64}") int pipeChunks) throws Exception {
+        this.processPersonJob = processPersonJob;
+        this.spoolDir = Path.of(spoolDir);
+        this.chunkBytes = chunkBytes;
+        this.pipeChunks = pipeChunks;
+        this.asyncLauncher = new TaskExecutorJobLauncher();
+        this.asyncLauncher.setJobRepository(jobRepository);
+        this.asyncLauncher.setTaskExecutor(new SimpleAsyncTaskExecutor("upload-ingest-"));
+        this.asyncLauncher.afterPropertiesSet();
+    }
+
+    /**
+     * Step 1 side: takes the live body of an upload, at most once. {@code null} when there is none (a restart, or
+     * the upload was abandoned), in which case the spool file at {@code csvPath} is read instead.
+     */
+    public InputStream attach(String uploadId) {
+        return pipes.remove(uploadId);
+    }
+
+    /** Streams {@code body} into a new job run and returns once the whole body has been received and spooled. */
+    public Map<String, Object> ingest(InputStream body, String scenario, String dedupMode) throws Exception {
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(spoolDir);
+        Path spool = spoolDir.resolve(uploadId + ".csv");
+        Path partial = spoolDir.resolve(uploadId + ".csv.part");
+
+        JobParametersBuilder params = new JobParametersBuilder()
+                .addString("time", LocalDateTime.now().toString())
+                .addString("scenario", scenario != null ? scenario : "SUCCESS")
+                .addString("csvPath", spool.toString(), true)
+                .addString("uploadId", uploadId, false);
+        if (dedupMode != null && !dedupMode.isBlank()) {
+            params.addString("dedupMode", dedupMode, true);
+        }
+        JobParameters jobParameters = params.toJobParameters();
+
+        UploadPipe pipe = new UploadPipe(pipeChunks);
+        pipes.put(uploadId, pipe);
+        JobExecution execution = asyncLauncher.run(processPersonJob, jobParameters);
+        log.info("📥 Upload {} streaming into job execution {}", uploadId, execution.getId());
+
+        long bytes = 0;
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[chunkBytes];
+            int n;
+            while ((n = body.readNBytes(buffer, 0, buffer.length)) > 0) {
+                byte[] chunk = Arrays.copyOf(buffer, n);
+                // Spool first: whatever step 1 has seen is on disk for a restart
+                out.write(ByteBuffer.wrap(chunk));
+                bytes += n;
+                if (!pipe.offer(chunk, execution)) {
+                    pipes.remove(uploadId);
+                }
+            }
+            out.force(false);
+        } catch (IOException e) {
+            pipe.fail(e);
+            pipes.remove(uploadId);
+            log.warn("⚠️ Upload {} aborted after {} bytes: {}", uploadId, bytes, e.getMessage());
+            throw e;
+        }
+        Files.move(partial, spool, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pipe.offer(END, execution);
+        log.info("📥 Upload {} received: {} bytes spooled to {}", uploadId, bytes, spool);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("uploadId", uploadId);
+        result.put("jobExecutionId", execution.getId());
+        result.put("bytes", bytes);
+        result.put("spool", spool.toString());
+        result.put("status", execution.getStatus().toString());
+        return result;
+    }
+
+    /** Bounded hand-off of body chunks from the request thread to the step 1 reader. */
+    static final class UploadPipe extends InputStream {
+
+        private final BlockingQueue<byte[]> chunks;
+        private volatile IOException failure;
+        private volatile boolean abandoned;
+        private byte[] current = new byte[0];
+        private int position;
+        private boolean ended;
+
+        UploadPipe(int capacity) {
+            this.chunks = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /** Waits for room; gives up (false) once the job is no longer running, as nobody will read any more. */
+        boolean offer(byte[] chunk, JobExecution execution) {
+            try {
+                while (!abandoned) {
+                    if (chunks.offer(chunk, 200, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                    if (!execution.isRunning()) {
+                        abandoned = true;
+                        chunks.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned = true;
+            }
+            return false;
+        }
+
+        void fail(IOException e) {
+            failure = e;
+            // The data is useless now; make room so the reader sees the end right away
+            chunks.clear();
+            chunks.offer(END);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == current.length) {
+                if (ended) {
+                    return -1;
+                }
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for upload data");
+                }
+                position = 0;
+                if (current == END) {
+                    ended = true;
+                    if (failure != null) {
+                        throw new IOException("Upload failed: " + failure.getMessage(), failure);
+                    }
+                }
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            abandoned = true;
+            chunks.clear();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.springbatchtutorial.util;
+
+/**
+ * Log-linear histogram of millisecond durations in the style of HdrHistogram.
+ *
+ * Values below 32 get a bucket each; above that every power of two is split into 16 equal sub-buckets, so a
+ * percentile is off by at most 1/16 (6.25%) of its value. Recording is a shift and an array increment, and the
+ * bucket layout is fixed, so histograms of different periods merge by adding counts. Values above ~35 years land
+ * in the last bucket. Not thread-safe.
+ */
+public class DurationHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int MAX_EXPONENT = 40;
+    // Linear region, 16 sub-buckets for each power of two from 2^5 to 2^39, and one overflow bucket
+    static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long max;
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts[indexOf(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+    }
+
+    public void add(DurationHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /** Upper bound of the bucket holding the given percentile (0-100), capped at the largest recorded value. */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+
+    /** Sparse text form, {@code max;index:count,index:count...}, for storage in a single column. */
+    public String encode() {
+        StringBuilder sb = new StringBuilder().append(max).append(';');
+        boolean first = true;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(i).append(':').append(counts[i]);
+                first = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    public static DurationHistogram decode(String encoded) {
+        DurationHistogram histogram = new DurationHistogram();
+        if (encoded == null || encoded.isEmpty()) {
+            return histogram;
+        }
+        int separator = encoded.indexOf(';');
+        histogram.max = Long.parseLong(encoded.substring(0, separator));
+        if (separator + 1 < encoded.length()) {
+            for (String entry : encoded.substring(separator + 1).split(",")) {
+                int colon = entry.indexOf(':');
+                long count = Long.parseLong(entry.substring(colon + 1));
+                histogram.counts[Integer.parseInt(entry.substring(0, colon))] = count;
+                histogram.totalCount += count;
+            }
+        }
+        return histogram;
+    }
+}
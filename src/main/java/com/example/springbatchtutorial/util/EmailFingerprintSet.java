@@ -0,0 +1,77 @@
+package com.example.springbatchtutorial.util;
+
+import java.util.function.IntFunction;
+
+/**
+ * Open-addressing set of 64-bit email fingerprints.
+ *
+ * Each slot holds a primitive {@code long} fingerprint and the {@code int} index of the row that owns it,
+ * so no String or boxed key is retained by the set itself. When two fingerprints match, the actual emails
+ * are compared through {@code emailAt} so a hash collision never merges two different addresses.
+ */
+public class EmailFingerprintSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final IntFunction<String> emailAt;
+    private long[] fingerprints;
+    private int[] owners; // row index + 1, 0 marks an empty slot
+    private int mask;
+    private int size;
+
+    public EmailFingerprintSet(int expectedSize, IntFunction<String> emailAt) {
+        this.emailAt = emailAt;
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.fingerprints = new long[capacity];
+        this.owners = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Registers {@code email} for row {@code index} unless it is already present.
+     *
+     * @return the row index that already owns the email, or -1 if it was added
+     */
+    public int putIfAbsent(String email, int index) {
+        long fp = Fingerprints.email(email);
+        int slot = (int) fp & mask;
+        while (owners[slot] != 0) {
+            if (fingerprints[slot] == fp) {
+                int owner = owners[slot] - 1;
+                if (email.equals(emailAt.apply(owner))) {
+                    return owner;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        fingerprints[slot] = fp;
+        owners[slot] = index + 1;
+        if (++size > mask * LOAD_FACTOR) {
+            grow();
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldOwners = owners;
+        int capacity = oldOwners.length << 1;
+        fingerprints = new long[capacity];
+        owners = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldOwners.length; i++) {
+            if (oldOwners[i] != 0) {
+                int slot = (int) oldFingerprints[i] & mask;
+                while (owners[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                fingerprints[slot] = oldFingerprints[i];
+                owners[slot] = oldOwners[i];
+            }
+        }
+    }
+}
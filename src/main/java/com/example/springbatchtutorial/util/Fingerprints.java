@@ -0,0 +1,66 @@
+package com.example.springbatchtutorial.util;
+
+import java.time.LocalDate;
+
+/**
+ * 64-bit fingerprints used to compare rows and emails without keeping the original values around.
+ * FNV-1a accumulates the chars and a murmur3 finalizer spreads the result across all 64 bits.
+ */
+public final class Fingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprints() {
+    }
+
+    public static long email(String email) {
+        return mix(append(FNV_OFFSET, email));
+    }
+
+    /** Content hash of the columns that an upsert would rewrite; {@code null} age is hashed distinctly from 0. */
+    public static long content(String firstName, String lastName, LocalDate dateOfBirth, Integer age) {
+        return content(firstName, lastName, dateOfBirth != null ? dateOfBirth.toEpochDay() : Long.MIN_VALUE,
+                age != null ? age : Long.MIN_VALUE);
+    }
+
+    /** Primitive variant; a negative age means "not calculated" and hashes like a {@code null} age. */
+    public static long content(String firstName, String lastName, long dateOfBirthEpochDay, long age) {
+        long h = append(FNV_OFFSET, firstName);
+        h = append(h, lastName);
+        h = appendLong(h, dateOfBirthEpochDay);
+        h = appendLong(h, age >= 0 ? age : Long.MIN_VALUE);
+        return mix(h);
+    }
+
+    private static long append(long h, String value) {
+        if (value == null) {
+            return appendLong(h, Long.MIN_VALUE);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        // field separator so ("ab","c") and ("a","bc") differ
+        h ^= 0x1f;
+        h *= FNV_PRIME;
+        return h;
+    }
+
+    private static long appendLong(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
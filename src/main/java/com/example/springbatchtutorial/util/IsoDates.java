@@ -0,0 +1,69 @@
+package com.example.springbatchtutorial.util;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Allocation-free parsing of {@code yyyy-MM-dd} dates into epoch days.
+ *
+ * The common 10-char form is decoded directly; anything else (signs, 5+ digit years, year 0, out of range
+ * fields) falls back to {@link DateTimeFormatter} so results and errors match {@code LocalDate.parse(text, "yyyy-MM-dd")},
+ * including its SMART clamping of e.g. Feb 30 to the last day of the month.
+ */
+public final class IsoDates {
+
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final int DAYS_0000_TO_1970 = (146097 * 5) - (30 * 365 + 7);
+
+    private IsoDates() {
+    }
+
+    public static long parseEpochDay(String text) throws DateTimeParseException {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                return toEpochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+            }
+        }
+        return LocalDate.parse(text, FORMATTER).toEpochDay();
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /** Same arithmetic as {@link LocalDate#toEpochDay()}. */
+    private static long toEpochDay(long year, int month, int day) {
+        long total = 365 * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!(year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springbatchtutorial.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded canonicalizing pool for repeated strings such as last names.
+ *
+ * Not thread-safe; create one per reader. Once {@code maxSize} distinct values are held, new values are
+ * returned as-is so a file of unique values cannot grow the pool without limit.
+ */
+public class StringPool {
+
+    private final Map<String, String> pool;
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+        this.pool = new HashMap<>(Math.min(maxSize, 1024) * 2);
+    }
+
+    public String canonical(String value) {
+        String existing = pool.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (pool.size() < maxSize) {
+            pool.put(value, value);
+        }
+        return value;
+    }
+}
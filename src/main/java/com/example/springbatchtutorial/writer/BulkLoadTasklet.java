@@ -0,0 +1,216 @@
+package com.example.springbatchtutorial.writer;
+
+import com.example.springbatchtutorial.jfr.DbStatementEvent;
+import com.example.springbatchtutorial.repository.BulkLoadDialect;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.function.IntSupplier;
+
+/**
+ * Step 1 in {@code loadMode=BULK}: the whole file goes through the database instead of through JPA one row at a time.
+ * <ol>
+ *   <li>the raw CSV is loaded into a per-run staging table with the database's own loader ({@link BulkLoadDialect}),</li>
+ *   <li>the {@link com.example.springbatchtutorial.reader.PersonRowValidator} rules run as one UPDATE and the rows they
+ *       reject are copied to {@code person_rejects},</li>
+ *   <li>every valid row is classified as inserted, updated or unchanged the way {@link UpsertPersonItemWriter} would
+ *       have seen it, file order and repeated emails included, and</li>
+ *   <li>one MERGE writes the last row of every email into {@code persons}.</li>
+ * </ol>
+ * The counts in the execution context and the inserted/updated/rejected counters therefore match the row path for the
+ * same file and the same table. Rejections are reported per rule, not per line: {@code person_rejects} has the rows.
+ */
+@Slf4j
+public class BulkLoadTasklet implements Tasklet, StepExecutionListener {
+
+    private final JdbcTemplate jdbc;
+    private final BulkLoadDialect dialect;
+    private final BatchMetrics metrics;
+    private final String csvPath;
+
+    private String staging;
+    private Tags tags;
+    private int insertedCount;
+    private int updatedCount;
+    private int unchangedCount;
+    private int rejectedCount;
+
+    public BulkLoadTasklet(JdbcTemplate jdbc, BulkLoadDialect dialect, BatchMetrics metrics, String csvPath) {
+        this.jdbc = jdbc;
+        this.dialect = dialect;
+        this.metrics = metrics;
+        this.csvPath = csvPath;
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        insertedCount = 0;
+        updatedCount = 0;
+        unchangedCount = 0;
+        rejectedCount = 0;
+        tags = metrics.tags(stepExecution);
+        // DDL commits implicitly on most databases, so it runs here rather than inside the step's transaction
+        staging = "person_staging_" + stepExecution.getId();
+        dialect.createStagingTable(jdbc, staging);
+    }
+
+    @Override
+    public RepeatStatus execute(@NonNull StepContribution contribution, @NonNull ChunkContext chunkContext) {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        long jobExecutionId = stepExecution.getJobExecutionId();
+        File file = new File(csvPath);
+        if (!file.isFile() || file.length() == 0) {
+            throw new RuntimeException("CSV file not found: " + csvPath);
+        }
+        log.info("📂 Bulk loading CSV file: {} ({} bytes) into {}", csvPath, file.length(), staging);
+
+        int records = timed("bulkLoadCsv", () -> dialect.loadCsv(jdbc, staging, csvPath));
+        jdbc.update("DELETE FROM " + staging + " WHERE line_number = 1");
+        // The native loader skips blank lines; step 1 reads each of them as a one-column row and rejects it
+        int blankLines = countBlankLines(file.toPath());
+
+        LocalDate today = LocalDate.now();
+        timed("bulkParseDates", () -> jdbc.update("UPDATE " + staging + " SET date_of_birth = "
+                + dialect.parseDate("date_of_birth_text") + " WHERE date_of_birth_text IS NOT NULL"));
+        // Same order as PersonRowValidator; a short row reads like one with empty trailing fields
+        timed("bulkValidate", () -> jdbc.update("UPDATE " + staging + " SET rule = CASE"
+                + " WHEN last_name IS NULL AND email IS NULL AND date_of_birth_text IS NULL THEN 'INSUFFICIENT_COLUMNS'"
+                + " WHEN first_name IS NULL OR last_name IS NULL OR email IS NULL OR date_of_birth_text IS NULL THEN 'EMPTY_FIELD'"
+                + " WHEN POSITION('@' IN email) = 0 THEN 'INVALID_EMAIL'"
+                + " WHEN date_of_birth IS NULL THEN 'INVALID_DATE_FORMAT'"
+                + " WHEN date_of_birth > ? THEN 'FUTURE_DATE'"
+                + " WHEN date_of_birth < ? THEN 'UNREALISTIC_DATE'"
+                + " END", today, today.minusYears(150)));
+        int rejectedRows = timed("bulkRejects", () -> jdbc.update("INSERT INTO person_rejects "
+                + "(job_execution_id, line_number, rule, first_name, last_name, email, date_of_birth) "
+                + "SELECT ?, line_number, rule, first_name, last_name, email, date_of_birth_text FROM " + staging
+                + " WHERE rule IS NOT NULL", jobExecutionId));
+        rejectedCount = rejectedRows + blankLines;
+        int validRows = records - 1 - rejectedRows;
+        if (validRows <= 0) {
+            log.error("❌ No valid records found in CSV file. Job will fail.");
+            throw new RuntimeException("No valid records found in CSV file. Please check the input data.");
+        }
+
+        // What the upsert writer would decide row by row: the first row of an email against the stored row, every
+        // later one against the row before it, which is what the table holds by then
+        timed("bulkHash", () -> jdbc.update("UPDATE " + staging + " SET content_hash = "
+                + dialect.contentHash("first_name", "last_name", "date_of_birth", "CAST(NULL AS INTEGER)")
+                + " WHERE rule IS NULL"));
+        timed("bulkClassify", () -> jdbc.update("MERGE INTO " + staging + " s USING ("
+                + "SELECT v.line_number, CASE"
+                + " WHEN v.previous_hash IS NOT NULL THEN CASE WHEN v.previous_hash = v.content_hash THEN 'UNCHANGED' ELSE 'UPDATED' END"
+                + " WHEN p.id IS NULL THEN 'INSERTED'"
+                + " WHEN p.content_hash IS NOT NULL AND p.processing_status <> 'REJECTED' AND p.content_hash = "
+                + dialect.contentHash("v.first_name", "v.last_name", "v.date_of_birth", "p.age") + " THEN 'UNCHANGED'"
+                + " ELSE 'UPDATED' END AS outcome"
+                + " FROM (SELECT line_number, first_name, last_name, email, date_of_birth, content_hash,"
+                + " LAG(content_hash) OVER (PARTITION BY email ORDER BY line_number) AS previous_hash"
+                + " FROM " + staging + " WHERE rule IS NULL) v"
+                + " LEFT JOIN persons p ON p.email = v.email) o"
+                + " ON s.line_number = o.line_number"
+                + " WHEN MATCHED THEN UPDATE SET outcome = o.outcome"));
+        jdbc.query("SELECT outcome, COUNT(*) FROM " + staging + " WHERE rule IS NULL GROUP BY outcome", rs -> {
+            switch (rs.getString(1)) {
+                case "INSERTED" -> insertedCount = rs.getInt(2);
+                case "UPDATED" -> updatedCount = rs.getInt(2);
+                default -> unchangedCount = rs.getInt(2);
+            }
+        });
+
+        // The last row of every email wins; an email that changed anywhere in the file is rewritten without age
+        timed("bulkMerge", () -> jdbc.update("MERGE INTO persons p USING ("
+                + "SELECT email, first_name, last_name, date_of_birth, content_hash, changed, updated FROM ("
+                + "SELECT email, first_name, last_name, date_of_birth, content_hash,"
+                + " ROW_NUMBER() OVER (PARTITION BY email ORDER BY line_number DESC) AS latest,"
+                + " MAX(CASE WHEN outcome <> 'UNCHANGED' THEN 1 ELSE 0 END) OVER (PARTITION BY email) AS changed,"
+                + " MAX(CASE WHEN outcome = 'UPDATED' THEN 1 ELSE 0 END) OVER (PARTITION BY email) AS updated"
+                + " FROM " + staging + " WHERE rule IS NULL) r WHERE latest = 1) v"
+                + " ON p.email = v.email"
+                + " WHEN MATCHED AND v.changed = 1 THEN UPDATE SET first_name = v.first_name, last_name = v.last_name,"
+                + " date_of_birth = v.date_of_birth, age = NULL, job_execution_id = ?, processing_status = 'PROCESSED',"
+                + " content_hash = v.content_hash"
+                + " WHEN MATCHED THEN UPDATE SET job_execution_id = ?"
+                + " WHEN NOT MATCHED THEN INSERT (first_name, last_name, email, date_of_birth, age, job_execution_id,"
+                + " processing_status, content_hash) VALUES (v.first_name, v.last_name, v.email, v.date_of_birth, NULL, ?,"
+                + " CASE WHEN v.updated = 1 THEN 'PROCESSED' ELSE 'IMPORTED' END, v.content_hash)",
+                jobExecutionId, jobExecutionId, jobExecutionId));
+
+        if (rejectedCount > 0) {
+            log.warn("⚠️ Rejected {} rows{}:", rejectedCount, blankLines > 0 ? " (" + blankLines + " blank lines)" : "");
+            jdbc.query("SELECT rule, COUNT(*) FROM person_rejects WHERE job_execution_id = ? GROUP BY rule ORDER BY rule",
+                    rs -> { log.warn("   - {}: {}", rs.getString(1), rs.getInt(2)); }, jobExecutionId);
+        }
+        stepExecution.setReadCount(validRows);
+        contribution.incrementWriteCount(validRows);
+        metrics.counter("batch.items.inserted", "Persons inserted by the upsert writer", tags).increment(insertedCount);
+        metrics.counter("batch.items.updated", "Persons updated by the upsert writer", tags).increment(updatedCount);
+        metrics.counter("batch.items.rejected", "Items rejected by validation or marked REJECTED", tags).increment(rejectedCount);
+        return RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        dialect.dropStagingTable(jdbc, staging);
+        stepExecution.getExecutionContext().putInt("inserted.count", insertedCount);
+        stepExecution.getExecutionContext().putInt("updated.count", updatedCount);
+        stepExecution.getExecutionContext().putInt("unchanged.count", unchangedCount);
+        stepExecution.getExecutionContext().putInt("written.count", insertedCount + updatedCount);
+        stepExecution.getExecutionContext().putInt("rejected.count", rejectedCount);
+        log.info("   📦 Bulk load summary - inserted: {}, updated: {}, unchanged: {}, rejected: {}",
+                insertedCount, updatedCount, unchangedCount, rejectedCount);
+        return stepExecution.getExitStatus();
+    }
+
+    private int timed(String operation, IntSupplier statement) {
+        DbStatementEvent event = DbStatementEvent.start(operation);
+        long started = System.nanoTime();
+        int rows = statement.getAsInt();
+        event.finish(rows);
+        log.info("   - {}: {} rows in {} ms", operation, rows, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    /** Lines holding nothing but whitespace, as opencsv would return them: one record each. */
+    static int countBlankLines(Path csv) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(csv), 1 << 16)) {
+            int blank = 0;
+            int length = 0;
+            boolean whitespaceOnly = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    if (whitespaceOnly) {
+                        blank++;
+                    }
+                    length = 0;
+                    whitespaceOnly = true;
+                } else if (b != '\r') {
+                    length++;
+                    whitespaceOnly &= b == ' ' || b == '\t';
+                }
+            }
+            return whitespaceOnly && length > 0 ? blank + 1 : blank;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.springbatchtutorial.writer;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.file.transform.LineAggregator;
+import org.springframework.lang.NonNull;
+
+/** Step 3 output line: {@code firstName,age}. */
+@Slf4j
+public class PersonLineAggregator implements LineAggregator<PersonRecord> {
+
+    @Override
+    @NonNull
+    public String aggregate(@NonNull PersonRecord item) {
+        String line = item.firstName() + "," + item.age();
+        log.debug("📝 Writing line to file: {}", line);
+        return line;
+    }
+}
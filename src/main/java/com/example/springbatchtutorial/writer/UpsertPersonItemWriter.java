@@ -1,8 +1,15 @@
 package com.example.springbatchtutorial.writer;
 
+import com.example.springbatchtutorial.jfr.DbStatementEvent;
+import com.example.springbatchtutorial.listener.SlowItemTracer;
 import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.PersonRecord;
 import com.example.springbatchtutorial.repository.PersonRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import com.example.springbatchtutorial.service.EmailLockStripes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepExecution;
@@ -10,68 +17,245 @@ import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.Chunk;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.example.springbatchtutorial.model.ProcessingStatus;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 
-@RequiredArgsConstructor
 @Slf4j
-public class UpsertPersonItemWriter implements ItemWriter<Person>, StepExecutionListener {
+public class UpsertPersonItemWriter implements ItemWriter<PersonRecord>, StepExecutionListener {
 
     private final PersonRepository personRepository;
+    private final BatchMetrics metrics;
+
+    // Live counterparts of the inserted/updated counts, bound to the step's tags in beforeStep
+    private Counter insertedCounter;
+    private Counter updatedCounter;
+    private Timer lockWait;
+
+    // Shared by the write-behind lanes, which call write() concurrently for disjoint sets of emails
+    private final AtomicInteger insertedCount = new AtomicInteger();
+    private final AtomicInteger updatedCount = new AtomicInteger();
+    private final AtomicInteger unchangedCount = new AtomicInteger();
+
+    private enum Outcome { INSERTED, UPDATED, UNCHANGED }
+
+    public UpsertPersonItemWriter(PersonRepository personRepository) {
+        this(personRepository, null);
+    }
+
+    public UpsertPersonItemWriter(PersonRepository personRepository, BatchMetrics metrics) {
+        this.personRepository = personRepository;
+        this.metrics = metrics;
+    }
+
+    // Optional: per-item write times for the items the tracer sampled
+    private SlowItemTracer tracer;
+
+    public void setTracer(SlowItemTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // Optional: serializes inserts of the same email across concurrent jobs
+    private EmailLockStripes locks;
 
-    private int insertedCount;
-    private int updatedCount;
-    private int writtenCount;
+    public void setLocks(EmailLockStripes locks) {
+        this.locks = locks;
+    }
 
     @Override
     public void beforeStep(@NonNull StepExecution stepExecution) {
-        this.insertedCount = 0;
-        this.updatedCount = 0;
-        this.writtenCount = 0;
+        this.insertedCount.set(0);
+        this.updatedCount.set(0);
+        this.unchangedCount.set(0);
         if (stepExecution.getJobExecution() != null) {
             this.currentJobExecutionId = stepExecution.getJobExecution().getId();
         }
+        if (metrics != null) {
+            Tags tags = metrics.tags(stepExecution);
+            insertedCounter = metrics.counter("batch.items.inserted", "Persons inserted by the upsert writer", tags);
+            updatedCounter = metrics.counter("batch.items.updated", "Persons updated by the upsert writer", tags);
+            lockWait = metrics.timer("batch.upsert.lock.wait", "Time a chunk waited for the lock stripes of its emails", tags);
+        }
     }
 
     @Override
     public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
-        stepExecution.getExecutionContext().putInt("inserted.count", insertedCount);
-        stepExecution.getExecutionContext().putInt("updated.count", updatedCount);
-        stepExecution.getExecutionContext().putInt("written.count", writtenCount);
-        log.info("   📦 Upsert summary - inserted: {}, updated: {}, written: {}", insertedCount, updatedCount, writtenCount);
+        int inserted = insertedCount.get();
+        int updated = updatedCount.get();
+        stepExecution.getExecutionContext().putInt("inserted.count", inserted);
+        stepExecution.getExecutionContext().putInt("updated.count", updated);
+        stepExecution.getExecutionContext().putInt("unchanged.count", unchangedCount.get());
+        stepExecution.getExecutionContext().putInt("written.count", inserted + updated);
+        log.info("   📦 Upsert summary - inserted: {}, updated: {}, unchanged: {}, written: {}", inserted, updated, unchangedCount.get(), inserted + updated);
         return ExitStatus.COMPLETED;
     }
 
     private Long currentJobExecutionId;
 
     @Override
-    public void write(@NonNull Chunk<? extends Person> chunk) {
+    public void write(@NonNull Chunk<? extends PersonRecord> chunk) {
         if (chunk.isEmpty()) {
             return;
         }
-        for (Person person : chunk) {
-            if (currentJobExecutionId != null) {
-                person.setJobExecutionId(currentJobExecutionId);
+        List<? extends PersonRecord> records = chunk.getItems();
+        Set<String> emails = new LinkedHashSet<>();
+        for (PersonRecord record : records) {
+            emails.add(record.email());
+        }
+        Map<String, Person> existing = findAllByEmail(emails);
+        if (locks == null) {
+            upsertAll(records, existing);
+            return;
+        }
+        // Updates of existing rows need no stripe, only the inserts do: two writers could both miss the same email
+        emails.removeAll(existing.keySet());
+        if (emails.isEmpty()) {
+            upsertAll(records, existing);
+            return;
+        }
+        int[] release = lockUntilCompletion(emails);
+        try {
+            // Looked up again under the stripes: a writer that held one may have inserted some of them since
+            existing.putAll(findAllByEmail(emails));
+            upsertAll(records, existing);
+        } finally {
+            if (release != null) {
+                locks.unlock(release);
+            }
+        }
+    }
+
+    /**
+     * Locks the stripes of the missing emails before anything of the chunk is written. Inside a transaction they are
+     * held until it ends, since another writer would not see the rows until then; otherwise they are returned to the
+     * caller to unlock.
+     */
+    private int[] lockUntilCompletion(Collection<String> emails) {
+        long started = System.nanoTime();
+        int[] held = locks.lock(emails);
+        if (lockWait != null) {
+            lockWait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return held;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.unlock(held);
             }
-            var existing = personRepository.findByEmail(person.getEmail());
-            if (existing.isPresent()) {
-                Person existingPerson = existing.get();
-                existingPerson.setFirstName(person.getFirstName());
-                existingPerson.setLastName(person.getLastName());
-                existingPerson.setDateOfBirth(person.getDateOfBirth());
-                existingPerson.setAge(person.getAge());
-                existingPerson.setJobExecutionId(currentJobExecutionId);
-                existingPerson.setProcessingStatus(ProcessingStatus.PROCESSED);
-                personRepository.save(existingPerson);
-                updatedCount++;
+        });
+        return null;
+    }
+
+    private void upsertAll(List<? extends PersonRecord> records, Map<String, Person> existing) {
+        int inserted = 0;
+        int updated = 0;
+        int unchanged = 0;
+        List<Long> unchangedIds = new ArrayList<>();
+        boolean tracing = tracer != null && tracer.isEnabled();
+        for (PersonRecord record : records) {
+            Outcome outcome;
+            if (tracing && tracer.isSampled(record.email())) {
+                long started = System.nanoTime();
+                outcome = upsert(record, existing, unchangedIds);
+                tracer.itemWritten(record.email(), System.nanoTime() - started);
             } else {
-                person.setProcessingStatus(ProcessingStatus.IMPORTED);
-                personRepository.save(person);
-                insertedCount++;
+                outcome = upsert(record, existing, unchangedIds);
+            }
+            switch (outcome) {
+                case INSERTED -> inserted++;
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+            }
+        }
+        if (!unchangedIds.isEmpty() && currentJobExecutionId != null) {
+            // Steps 2 and 3 select rows by job execution, so unchanged rows are claimed with one narrow update
+            DbStatementEvent claim = DbStatementEvent.start("claimForJobExecution");
+            claim.finish(personRepository.claimForJobExecution(currentJobExecutionId, unchangedIds));
+        }
+        insertedCount.addAndGet(inserted);
+        updatedCount.addAndGet(updated);
+        unchangedCount.addAndGet(unchanged);
+        if (insertedCounter != null) {
+            insertedCounter.increment(inserted);
+            updatedCounter.increment(updated);
+        }
+    }
+
+    /** One statement for the whole chunk instead of one lookup per row. */
+    private Map<String, Person> findAllByEmail(Collection<String> emails) {
+        DbStatementEvent lookup = DbStatementEvent.start("findAllByEmailIn");
+        List<Person> found = personRepository.findAllByEmailIn(emails);
+        lookup.finish(found.size());
+        Map<String, Person> byEmail = new HashMap<>(found.size() * 2);
+        for (Person person : found) {
+            byEmail.put(person.getEmail(), person);
+        }
+        return byEmail;
+    }
+
+    private Outcome upsert(PersonRecord record, Map<String, Person> existing, List<Long> unchangedIds) {
+        Person existingPerson = existing.get(record.email());
+        if (existingPerson != null) {
+            if (isUnchanged(existingPerson, record)) {
+                if (!Objects.equals(existingPerson.getJobExecutionId(), currentJobExecutionId)) {
+                    unchangedIds.add(existingPerson.getId());
+                }
+                return Outcome.UNCHANGED;
             }
-            writtenCount++;
+            existingPerson.setFirstName(record.firstName());
+            existingPerson.setLastName(record.lastName());
+            existingPerson.setDateOfBirth(record.dateOfBirth());
+            existingPerson.setAge(record.hasAge() ? record.age() : null);
+            existingPerson.setJobExecutionId(currentJobExecutionId);
+            existingPerson.setProcessingStatus(ProcessingStatus.PROCESSED);
+            // @PreUpdate only runs at flush: a later item of this chunk with the same email compares against these values
+            existingPerson.refreshContentHash();
+            DbStatementEvent save = DbStatementEvent.start("save");
+            existing.put(record.email(), personRepository.save(existingPerson));
+            save.finish(1);
+            return Outcome.UPDATED;
         }
+        DbStatementEvent save = DbStatementEvent.start("save");
+        // A later item of this chunk with the same email updates this row
+        existing.put(record.email(), personRepository.save(toEntity(record)));
+        save.finish(1);
+        return Outcome.INSERTED;
     }
-}
 
+    /** The persistence boundary: the only place where the pipeline turns a record into a JPA entity. */
+    private Person toEntity(PersonRecord record) {
+        Person person = new Person(record.firstName(), record.lastName(), record.email(), record.dateOfBirth());
+        person.setAge(record.hasAge() ? record.age() : null);
+        person.setJobExecutionId(currentJobExecutionId);
+        // Only the staged pipeline inserts rows that already have their age
+        person.setProcessingStatus(record.hasAge() ? ProcessingStatus.PROCESSED : ProcessingStatus.IMPORTED);
+        return person;
+    }
 
+    /**
+     * Compares the stored content hash with the incoming values. Step 1 rows carry no age yet, so the
+     * existing age is assumed for them; rejected rows are always rewritten so a re-ingest can revive them.
+     */
+    private boolean isUnchanged(Person existingPerson, PersonRecord incoming) {
+        if (existingPerson.getContentHash() == null || existingPerson.getProcessingStatus() == ProcessingStatus.REJECTED) {
+            return false;
+        }
+        int age = incoming.hasAge() ? incoming.age()
+                : existingPerson.getAge() != null ? existingPerson.getAge() : PersonRecord.NO_AGE;
+        return existingPerson.getContentHash() == incoming.contentHash(age);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,330 @@
+package com.example.springbatchtutorial.writer;
+
+import com.example.springbatchtutorial.service.BatchMetrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+/**
+ * Write-behind stage between a chunk-oriented step and its database writer.
+ *
+ * {@link #write} only queues the chunk's items and returns, so the step thread reads and processes the next chunk
+ * while writer threads ("lanes") do the round trips. An item goes to lane {@code laneKey % lanes}, so every email is
+ * written by one lane in read order and two lanes never upsert the same row. A lane takes up to {@code batchSize}
+ * queued items, from as many chunks as are waiting, and writes them with the delegate in one transaction of its own.
+ * Each lane holds at most {@code laneCapacity} items; when one is full, {@link #write} blocks (backpressure).
+ *
+ * Commit protocol: a chunk commits once its items are queued, but the execution context saved with it only records
+ * the durable watermark ({@link #DURABLE_COUNT_KEY}): how many items the step has read up to the end of the last
+ * chunk whose items, and every earlier chunk's, are written. The writer is also the step's read listener, which is how
+ * it knows where each chunk ends. On restart the count is carried over; the step 2 reader resumes from it, and step 1
+ * rereads its file. A lane failure is rethrown by the next {@link #write}, inside the chunk, so the step fails;
+ * {@link #update} does not throw, since a fault-tolerant step would repeat the chunk. {@link #afterStep} waits for the
+ * lanes to drain and fails the step if one failed. A lane whose batch fails writes it again one chunk per
+ * transaction, so the chunks before the failing one still become durable, and then drops what it has left.
+ *
+ * Lane transactions are not part of the chunk transaction: the items of a chunk that rolls back may still be written,
+ * and the retry or restart upserts them again, which is idempotent.
+ *
+ * With zero lanes every call goes straight to the delegate on the step thread.
+ */
+@Slf4j
+public class WriteBehindItemWriter<T> implements ItemWriter<T>, ItemStream, StepExecutionListener, ItemReadListener<Object> {
+
+    public static final String DURABLE_COUNT_KEY = "writebehind.durable.count";
+
+    private final ItemWriter<T> delegate;
+    private final ToIntFunction<T> laneKey;
+    private final PlatformTransactionManager transactionManager;
+    private final BatchMetrics metrics;
+    private final int laneCount;
+    private final int laneCapacity;
+    private final int batchSize;
+
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private List<Lane> lanes = List.of();
+    private Timer backpressure;
+    private Timer batchWrite;
+
+    // Step thread only: items read so far, the chunks not yet known to be durable, and the watermark
+    private long readCount;
+    private final Deque<Mark> pendingChunks = new ArrayDeque<>();
+    private long watermark;
+
+    /** Synchronous pass-through. */
+    public WriteBehindItemWriter(ItemWriter<T> delegate) {
+        this(delegate, null, null, null, 0, 0, 0);
+    }
+
+    public WriteBehindItemWriter(ItemWriter<T> delegate, ToIntFunction<T> laneKey, PlatformTransactionManager transactionManager,
+                                 BatchMetrics metrics, int lanes, int laneCapacity, int batchSize) {
+        this.delegate = delegate;
+        this.laneKey = laneKey;
+        this.transactionManager = transactionManager;
+        this.metrics = metrics;
+        this.laneCount = lanes;
+        this.laneCapacity = laneCapacity;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        if (delegate instanceof StepExecutionListener listener) {
+            listener.beforeStep(stepExecution);
+        }
+        if (laneCount <= 0) {
+            return;
+        }
+        // A restart carries on counting from the last commit
+        watermark = stepExecution.getExecutionContext().getLong(DURABLE_COUNT_KEY, 0L);
+        readCount = watermark;
+        pendingChunks.clear();
+        durable.set(0);
+        transactions.set(0);
+        failure.set(null);
+        if (metrics != null) {
+            Tags tags = metrics.tags(stepExecution);
+            backpressure = metrics.timer("batch.writebehind.backpressure", "Time the step thread waited for room in a full write-behind lane", tags);
+            batchWrite = metrics.histogramTimer("batch.writebehind.batch", "Write-behind transactions, each a batch of queued items", tags);
+        }
+        List<Lane> started = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(stepExecution, stepExecution.getStepName() + "-write-" + i);
+            lane.start();
+            started.add(lane);
+        }
+        lanes = started;
+        log.info("✍️ Write-behind for {}: {} lanes, {} items each, {} items per transaction",
+                stepExecution.getStepName(), laneCount, laneCapacity, batchSize);
+    }
+
+    @Override
+    public void afterRead(@NonNull Object item) {
+        readCount++;
+    }
+
+    @Override
+    public void write(@NonNull Chunk<? extends T> chunk) throws Exception {
+        if (lanes.isEmpty()) {
+            delegate.write(chunk);
+            return;
+        }
+        rethrowFailure();
+        // Every item read so far belongs to this chunk or an earlier one; a retried chunk reads nothing new
+        Mark mark = new Mark(readCount, chunk.size());
+        pendingChunks.add(mark);
+        long started = System.nanoTime();
+        boolean blocked = false;
+        for (T item : chunk) {
+            Entry<T> entry = new Entry<>(item, mark);
+            BlockingQueue<Entry<T>> queue = lanes.get(Math.floorMod(laneKey.applyAsInt(item), lanes.size())).queue;
+            if (!queue.offer(entry)) {
+                blocked = true;
+                queue.put(entry);
+            }
+        }
+        if (blocked && backpressure != null) {
+            backpressure.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void update(@NonNull ExecutionContext executionContext) throws ItemStreamException {
+        if (!lanes.isEmpty()) {
+            executionContext.putLong(DURABLE_COUNT_KEY, watermark());
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        ExitStatus exitStatus = null;
+        if (!lanes.isEmpty()) {
+            lanes.forEach(Lane::finish);
+            lanes = List.of();
+            // Saved with the step after the listeners ran, so a restart starts from what the lanes got done
+            stepExecution.getExecutionContext().putLong(DURABLE_COUNT_KEY, watermark());
+            log.info("   ✍️ Write-behind: {} items durable in {} transactions, watermark {}",
+                    durable.get(), transactions.get(), watermark);
+            Throwable error = failure.get();
+            if (error != null) {
+                if (!stepExecution.getFailureExceptions().contains(error)) {
+                    stepExecution.addFailureException(error);
+                }
+                stepExecution.setStatus(BatchStatus.FAILED);
+                exitStatus = ExitStatus.FAILED.addExitDescription(error);
+            }
+        }
+        ExitStatus delegated = delegate instanceof StepExecutionListener listener ? listener.afterStep(stepExecution) : null;
+        if (exitStatus == null) {
+            return delegated;
+        }
+        return delegated == null ? exitStatus : exitStatus.and(delegated);
+    }
+
+    /** Read count up to which every chunk is written: the end of the longest run of written chunks. */
+    private long watermark() {
+        Mark head;
+        while ((head = pendingChunks.peek()) != null && head.unwritten.get() == 0) {
+            watermark = head.end;
+            pendingChunks.poll();
+        }
+        return watermark;
+    }
+
+    private void rethrowFailure() throws Exception {
+        Throwable error = failure.get();
+        if (error instanceof Exception e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new ItemStreamException("Write-behind lane failed", error);
+        }
+    }
+
+    /** One writer thread and its queue; runs with the step's scope registered so step-scoped beans resolve. */
+    private final class Lane extends Thread {
+
+        private final BlockingQueue<Entry<T>> queue = new ArrayBlockingQueue<>(laneCapacity);
+        private final StepExecution stepExecution;
+        private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        private volatile boolean finished;
+        // Once a chunk of this lane failed, later ones must not become durable ahead of it
+        private boolean failed;
+
+        Lane(StepExecution stepExecution, String name) {
+            super(name);
+            this.stepExecution = stepExecution;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            StepSynchronizationManager.register(stepExecution);
+            try {
+                List<Entry<T>> batch = new ArrayList<>(batchSize);
+                while (!finished || !queue.isEmpty()) {
+                    Entry<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    // A failed lane keeps draining, so the step thread never blocks on it
+                    if (!failed && write(batch) != null) {
+                        writeChunkByChunk(batch);
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                StepSynchronizationManager.close();
+            }
+        }
+
+        private void writeChunkByChunk(List<Entry<T>> batch) {
+            int from = 0;
+            while (from < batch.size()) {
+                Mark mark = batch.get(from).mark;
+                int to = from + 1;
+                while (to < batch.size() && batch.get(to).mark == mark) {
+                    to++;
+                }
+                Throwable error = write(batch.subList(from, to));
+                if (error != null) {
+                    failure.compareAndSet(null, error);
+                    failed = true;
+                    return;
+                }
+                from = to;
+            }
+        }
+
+        /** Writes the entries in one transaction; returns why it rolled back, or null. */
+        private Throwable write(List<Entry<T>> entries) {
+            long started = System.nanoTime();
+            List<T> items = new ArrayList<>(entries.size());
+            entries.forEach(entry -> items.add(entry.item));
+            try {
+                transaction.executeWithoutResult(status -> {
+                    try {
+                        delegate.write(new Chunk<>(items));
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new UndeclaredException(e);
+                    }
+                });
+            } catch (UndeclaredException e) {
+                return e.getCause();
+            } catch (RuntimeException | Error e) {
+                return e;
+            }
+            entries.forEach(entry -> entry.mark.unwritten.decrementAndGet());
+            durable.addAndGet(entries.size());
+            transactions.incrementAndGet();
+            if (batchWrite != null) {
+                batchWrite.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            return null;
+        }
+
+        void finish() {
+            finished = true;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** One {@link #write} call: the read count at its end and how many of its items no lane has written yet. */
+    private static final class Mark {
+        private final long end;
+        private final AtomicInteger unwritten;
+
+        Mark(long end, int items) {
+            this.end = end;
+            this.unwritten = new AtomicInteger(items);
+        }
+    }
+
+    private record Entry<T>(T item, Mark mark) {
+    }
+
+    /** Carries a checked exception of the delegate out of a lane's transaction callback. */
+    private static final class UndeclaredException extends RuntimeException {
+        UndeclaredException(Exception cause) {
+            super(cause);
+        }
+    }
+}
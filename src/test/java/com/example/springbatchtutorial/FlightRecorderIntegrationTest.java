@@ -0,0 +1,80 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.service.FlightRecorderService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@SpringBatchTest
+@ActiveProfiles("test")
+class FlightRecorderIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Path.of("input"));
+        Files.createDirectories(Path.of("output"));
+        Files.copy(Path.of("input/samples/persons_success.csv"), Path.of("input/persons.csv"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRecorderService.stop();
+    }
+
+    @Test
+    void recording_capturesPipelineEventsTaggedWithExecutionAndStep() throws Exception {
+        flightRecorderService.start("default", 5L, 0L);
+
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        Path dump = flightRecorderService.dump();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().startsWith("com.example.springbatchtutorial."))
+                .filter(e -> e.getLong("jobExecutionId") == exec.getId())
+                .toList();
+        Files.deleteIfExists(dump);
+
+        assertTrue(has(events, "Chunk", "step1SaveToDatabase"));
+        assertTrue(has(events, "DbStatement", "step1SaveToDatabase"));
+        assertTrue(has(events, "AgeApiCall", "step2CalculateAge"));
+        assertTrue(has(events, "FileFlush", "step3WriteToFile"));
+        assertTrue(events.stream().filter(e -> e.getEventType().getName().endsWith("AgeApiCall"))
+                .allMatch(e -> e.getInt("batchSize") > 0));
+    }
+
+    private static boolean has(List<RecordedEvent> events, String type, String step) {
+        return events.stream().anyMatch(e -> e.getEventType().getName().endsWith("." + type)
+                && step.equals(e.getString("stepName")));
+    }
+}
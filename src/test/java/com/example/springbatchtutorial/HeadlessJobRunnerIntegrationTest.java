@@ -0,0 +1,52 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.listener.FirstChunkTimer;
+import com.example.springbatchtutorial.service.HeadlessJobRunner;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(args = {"csvPath=input/samples/persons_success.csv", "scenario=SUCCESS", "traceSampleRate=0", "repositoryMode=deferred"})
+@ActiveProfiles({"test", "cli"})
+class HeadlessJobRunnerIntegrationTest {
+
+    @Autowired
+    private HeadlessJobRunner runner;
+
+    @Autowired
+    private FirstChunkTimer firstChunkTimer;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void commandLineArguments_runOneJobWithoutTheWebStack() {
+        assertFalse(context instanceof WebApplicationContext);
+        assertEquals(0, runner.getExitCode());
+        assertTrue(firstChunkTimer.firstChunkMillis() > 0);
+
+        JobInstance instance = jobExplorer.getLastJobInstance("processPersonJob");
+        assertNotNull(instance);
+        List<JobExecution> executions = jobExplorer.getJobExecutions(instance);
+        JobExecution execution = executions.get(0);
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertEquals("input/samples/persons_success.csv", execution.getJobParameters().getString("csvPath"));
+        assertTrue(execution.getJobParameters().getParameters().get("csvPath").isIdentifying());
+        assertFalse(execution.getJobParameters().getParameters().get("traceSampleRate").isIdentifying());
+        assertFalse(execution.getJobParameters().getParameters().get("repositoryMode").isIdentifying());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.IngestDirectoryWatcher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "batch.watch.enabled=true",
+        "batch.watch.dir=target/watch-it/inbox",
+        "batch.watch.ledger=target/watch-it/ingested.log",
+        "batch.watch.stable-ms=300",
+        "batch.watch.coalesce-window-ms=1500"})
+@ActiveProfiles("test")
+class IngestDirectoryWatcherIntegrationTest {
+
+    private static final Path INBOX = Path.of("target/watch-it/inbox");
+    private static final Path LEDGER = Path.of("target/watch-it/ingested.log");
+
+    @Autowired
+    private IngestDirectoryWatcher watcher;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeAll
+    static void cleanInbox() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of("target/watch-it"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filesArrivingTogether_shareOneRun_andAreNeverPickedUpTwice() throws Exception {
+        List<String> rows = Files.readAllLines(Path.of("input/samples/persons_success.csv")).stream()
+                .filter(line -> !line.isBlank()).toList();
+        String header = rows.get(0);
+        int third = (rows.size() - 1) / 3;
+        Files.createDirectories(INBOX);
+        Files.write(INBOX.resolve("a.csv"), concat(header, rows.subList(1, 1 + third)));
+        Files.write(INBOX.resolve("b.csv"), concat(header, rows.subList(1 + third, 1 + 2 * third)));
+        // Complete by marker, without waiting for the size to settle
+        Files.write(INBOX.resolve("c.csv"), concat(header, rows.subList(1 + 2 * third, rows.size())));
+        Files.createFile(INBOX.resolve("c.csv.done"));
+
+        Map<String, Object> first = awaitRuns(1).get(0);
+        assertEquals("COMPLETED", first.get("status"));
+        assertEquals(3, ((List<String>) first.get("files")).size());
+        long executionId = ((Number) first.get("jobExecutionId")).longValue();
+        assertEquals(rows.size() - 1, personRepository.findAllByJobExecutionId(executionId).size());
+
+        Files.write(INBOX.resolve("d.csv"), concat(header, rows.subList(1, 3)));
+        Map<String, Object> second = awaitRuns(2).get(1);
+        assertEquals("COMPLETED", second.get("status"));
+        assertEquals(List.of(INBOX.resolve("d.csv").toString()), second.get("files"));
+
+        List<String> ledger = Files.readAllLines(LEDGER);
+        assertEquals(4, ledger.stream().filter(line -> line.startsWith("CLAIMED\t")).count());
+        assertEquals(4, ledger.stream().filter(line -> line.startsWith("COMPLETED\t")).count());
+        assertEquals(4, watcher.status().get("ingestedFiles"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> awaitRuns(int count) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            List<Map<String, Object>> runs = (List<Map<String, Object>>) watcher.status().get("recentRuns");
+            if (runs.size() >= count && runs.stream().allMatch(run -> run.containsKey("jobExecutionId"))) {
+                return runs;
+            }
+            Thread.sleep(100);
+        }
+        fail("Expected " + count + " finished ingest run(s): " + watcher.status());
+        return List.of();
+    }
+
+    private static List<String> concat(String header, List<String> rows) {
+        return Stream.concat(Stream.of(header), rows.stream()).toList();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.service.IngestDirectoryWatcher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "batch.watch.enabled=true",
+        "batch.watch.dir=target/watch-retry-it/inbox",
+        "batch.watch.ledger=target/watch-retry-it/ingested.log",
+        "batch.watch.stable-ms=300",
+        "batch.watch.coalesce-window-ms=300",
+        "batch.watch.max-attempts=2",
+        "batch.watch.retry-backoff-ms=500"})
+@ActiveProfiles("test")
+class IngestDirectoryWatcherRetryIntegrationTest {
+
+    private static final Path INBOX = Path.of("target/watch-retry-it/inbox");
+    private static final Path LEDGER = Path.of("target/watch-retry-it/ingested.log");
+
+    @Autowired
+    private IngestDirectoryWatcher watcher;
+
+    @BeforeAll
+    static void cleanInbox() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of("target/watch-retry-it"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFile_isClaimedAgainAfterBackoff_untilOutOfAttempts() throws Exception {
+        // No valid row: step 1 fails the job
+        Files.createDirectories(INBOX);
+        Files.write(INBOX.resolve("broken.csv"), List.of("FirstName,LastName,Email,DateOfBirth", "Ada,,not-an-email,tomorrow"));
+        Files.createFile(INBOX.resolve("broken.csv.done"));
+
+        List<Map<String, Object>> runs = null;
+        for (int i = 0; i < 300; i++) {
+            runs = (List<Map<String, Object>>) watcher.status().get("recentRuns");
+            if (runs.size() >= 2 && runs.stream().allMatch(run -> run.containsKey("jobExecutionId"))) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(2, runs.size(), "Expected a first run and one retry: " + watcher.status());
+        for (Map<String, Object> run : runs) {
+            assertEquals("FAILED", run.get("status"));
+            assertEquals(List.of(INBOX.resolve("broken.csv").toString()), run.get("files"));
+        }
+        assertNotEquals(runs.get(0).get("jobExecutionId"), runs.get(1).get("jobExecutionId"));
+
+        // Out of attempts: no third claim
+        Thread.sleep(2000);
+        assertEquals(2, ((List<?>) watcher.status().get("recentRuns")).size());
+        assertEquals(0, watcher.status().get("retryingFiles"));
+        List<String> ledger = Files.readAllLines(LEDGER);
+        assertEquals(2, ledger.stream().filter(line -> line.startsWith("CLAIMED\t")).count());
+        assertEquals(2, ledger.stream().filter(line -> line.startsWith("FAILED\t")).count());
+    }
+}
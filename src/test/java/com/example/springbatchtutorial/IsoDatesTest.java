@@ -0,0 +1,69 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.util.IsoDates;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsoDatesTest {
+
+    // Built here rather than taken from IsoDates, so a change to its fallback formatter shows up as a mismatch
+    private static final DateTimeFormatter REFERENCE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Test
+    void everyDayOfTwoCenturies_parsesToItsEpochDay() {
+        for (LocalDate date = LocalDate.of(1900, 1, 1); date.getYear() <= 2100; date = date.plusDays(1)) {
+            assertEquals(date.toEpochDay(), IsoDates.parseEpochDay(date.toString()), date.toString());
+        }
+    }
+
+    @Test
+    void everyMonthAndDayField_matchesLocalDateParse_includingLeapYearsAndInvalidDays() {
+        // Leap rules: divisible by 4, not by 100 unless by 400
+        for (int year : List.of(1, 4, 99, 100, 400, 1582, 1900, 1996, 1999, 2000, 2023, 2024, 2100, 9999)) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    assertSameAsLocalDate(String.format("%04d-%02d-%02d", year, month, day));
+                }
+            }
+        }
+    }
+
+    @Test
+    void februaryTailDays_matchLocalDateParse() {
+        for (String text : List.of("2024-02-29", "2023-02-29", "1900-02-29", "2000-02-29",
+                "2024-02-30", "2024-02-31", "2023-02-30", "2023-02-31", "2024-04-31", "2024-06-31", "2024-02-32")) {
+            assertSameAsLocalDate(text);
+        }
+    }
+
+    @Test
+    void malformedText_isRejectedLikeLocalDateParse() {
+        for (String text : List.of("", "2024", "2024-01", "2024-1-01", "2024-01-1", "20240101", "2024-01-011",
+                "2024/01/01", "2024-01/01", "2024-0a-01", "2024-01-0x", "x024-01-01", "2024-01-0 ", " 024-01-01",
+                "2024-:1-01", "2024-01-/1", "२०२४-01-01", "2024--1-01", "2024-01--1",
+                "+2024-01-01", "-2024-01-01", "+024-01-01", "12024-01-01", "+12024-01-01",
+                "0000-01-01", "0000-12-31", "-0001-01-01")) {
+            assertSameAsLocalDate(text);
+        }
+    }
+
+    private static void assertSameAsLocalDate(String text) {
+        Long expected;
+        try {
+            expected = LocalDate.parse(text, REFERENCE).toEpochDay();
+        } catch (DateTimeParseException e) {
+            expected = null;
+        }
+        if (expected == null) {
+            assertThrows(DateTimeParseException.class, () -> IsoDates.parseEpochDay(text), text);
+        } else {
+            assertEquals(expected, IsoDates.parseEpochDay(text), text);
+        }
+    }
+}
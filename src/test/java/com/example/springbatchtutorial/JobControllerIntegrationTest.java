@@ -0,0 +1,104 @@
+package com.example.springbatchtutorial;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@SpringBatchTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JobControllerIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Path.of("input"));
+        Files.copy(Path.of("input/samples/persons_success.csv"), Path.of("input/persons.csv"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    void executionDetail_listsJobParametersByName() throws Exception {
+        String time = UUID.randomUUID().toString();
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", time, true)
+                .addString("scenario", "SUCCESS")
+                .addString("traceSampleRate", "0", false)
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        mockMvc.perform(get("/api/jobs/executions/" + exec.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobParameters.time").value(time))
+                .andExpect(jsonPath("$.jobParameters.scenario").value("SUCCESS"))
+                .andExpect(jsonPath("$.jobParameters.traceSampleRate").value("0"));
+    }
+
+    @Test
+    void startJob_rejectsAnUnknownDedupModeBeforeLaunching() throws Exception {
+        long instances = jobExplorer.getJobInstanceCount("processPersonJob");
+
+        mockMvc.perform(post("/api/jobs/start")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dedupMode\":\"LAST_WIN\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown dedupMode: LAST_WIN"));
+        assertEquals(instances, jobExplorer.getJobInstanceCount("processPersonJob"));
+    }
+
+    @Test
+    void startJob_rejectsAnUnknownRepositoryModeBeforeLaunching() throws Exception {
+        long instances = jobExplorer.getJobInstanceCount("processPersonJob");
+
+        mockMvc.perform(post("/api/jobs/start")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"repositoryMode\":\"memory\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown repositoryMode: memory (use jdbc or deferred)"));
+        assertEquals(instances, jobExplorer.getJobInstanceCount("processPersonJob"));
+    }
+
+    @Test
+    void startJob_rejectsATraceSampleRateWhileTracingIsOff() throws Exception {
+        long instances = jobExplorer.getJobInstanceCount("processPersonJob");
+
+        mockMvc.perform(post("/api/jobs/start")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"traceSampleRate\":\"0.5\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Tracing is off: set batch.tracing.sample-rate above 0 to trace runs"));
+        assertEquals(instances, jobExplorer.getJobInstanceCount("processPersonJob"));
+    }
+}
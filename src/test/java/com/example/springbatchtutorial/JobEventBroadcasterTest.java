@@ -0,0 +1,110 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.model.JobProgressEvent;
+import com.example.springbatchtutorial.model.JobProgressEvent.Type;
+import com.example.springbatchtutorial.service.JobEventBroadcaster;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobEventBroadcasterTest {
+
+    @Test
+    void progressBetweenTwoMessages_isCoalescedToTheLatestPerStep() throws Exception {
+        // One message per second: everything published below lands in the first one
+        JobEventBroadcaster broadcaster = new JobEventBroadcaster(1, 32, 0, 5000);
+        try {
+            List<List<JobProgressEvent>> messages = new CopyOnWriteArrayList<>();
+            broadcaster.subscribe(messages::add);
+            broadcaster.publish(event(Type.JOB_STARTED, 1, null, 0));
+            for (int chunk = 1; chunk <= 50; chunk++) {
+                broadcaster.publish(event(Type.CHUNK_COMMITTED, 1, "step1", chunk * 100));
+                broadcaster.publish(event(Type.CHUNK_COMMITTED, 1, "step2", chunk * 10));
+            }
+            await(() -> !messages.isEmpty());
+
+            List<JobProgressEvent> first = messages.get(0);
+            assertEquals(List.of(Type.JOB_STARTED, Type.CHUNK_COMMITTED, Type.CHUNK_COMMITTED),
+                    first.stream().map(JobProgressEvent::type).toList());
+            assertEquals(5000, first.get(1).readCount());
+            assertEquals(500, first.get(2).readCount());
+        } finally {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void fullBuffer_dropsTheOldestEvents() throws Exception {
+        JobEventBroadcaster broadcaster = new JobEventBroadcaster(1, 4, 0, 5000);
+        try {
+            List<List<JobProgressEvent>> messages = new CopyOnWriteArrayList<>();
+            broadcaster.subscribe(messages::add);
+            for (int step = 0; step < 10; step++) {
+                broadcaster.publish(event(Type.STEP_STARTED, 1, "step" + step, 0));
+            }
+            await(() -> !messages.isEmpty());
+
+            assertEquals(List.of("step6", "step7", "step8", "step9"),
+                    messages.get(0).stream().map(JobProgressEvent::stepName).toList());
+        } finally {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void stalledSubscriber_neitherDelaysOthersNorStaysSubscribed() throws Exception {
+        JobEventBroadcaster broadcaster = new JobEventBroadcaster(20, 32, 0, 300);
+        CountDownLatch stalled = new CountDownLatch(1);
+        try {
+            List<JobProgressEvent> slow = new CopyOnWriteArrayList<>();
+            List<JobProgressEvent> fast = new CopyOnWriteArrayList<>();
+            broadcaster.subscribe(events -> {
+                slow.addAll(events);
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            broadcaster.subscribe(fast::addAll);
+
+            for (int step = 0; step < 10; step++) {
+                broadcaster.publish(event(Type.STEP_STARTED, 1, "step" + step, 0));
+                Thread.sleep(100);
+            }
+            // The fast subscriber got every event while the slow one was stuck in its first send
+            await(() -> fast.size() == 10);
+            assertTrue(slow.size() < 10);
+
+            // Past the send timeout the slow subscriber is gone: nothing more reaches it
+            stalled.countDown();
+            int seen = slow.size();
+            broadcaster.publish(event(Type.JOB_COMPLETED, 1, null, 0));
+            await(() -> fast.size() == 11);
+            Thread.sleep(200);
+            assertEquals(seen, slow.size());
+        } finally {
+            stalled.countDown();
+            broadcaster.shutdown();
+        }
+    }
+
+    private static JobProgressEvent event(Type type, long jobExecutionId, String step, long read) {
+        return new JobProgressEvent(type, jobExecutionId, step, "STARTED", read, read, 0, LocalDateTime.now());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+}
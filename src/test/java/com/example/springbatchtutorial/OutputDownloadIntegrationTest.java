@@ -0,0 +1,119 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.service.OutputFileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@SpringBatchTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OutputDownloadIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Path.of("input"));
+        Files.copy(Path.of("input/samples/persons_success.csv"), Path.of("input/persons.csv"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    void outputFile_isServedWithEtagRangesAndGzipVariant() throws Exception {
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        byte[] expected = Files.readAllBytes(Path.of("output/persons_with_age.txt"));
+        assertTrue(expected.length > 20);
+
+        MvcResult full = mockMvc.perform(get("/api/output/" + exec.getId())).andReturn();
+        assertEquals(200, full.getResponse().getStatus());
+        assertArrayEquals(expected, full.getResponse().getContentAsByteArray());
+        String etag = full.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(expected)) + "\"", etag);
+        assertEquals("bytes", full.getResponse().getHeader(HttpHeaders.ACCEPT_RANGES));
+
+        MvcResult latest = mockMvc.perform(get("/api/output")).andReturn();
+        assertEquals(etag, latest.getResponse().getHeader(HttpHeaders.ETAG));
+
+        MvcResult partial = mockMvc.perform(get("/api/output/" + exec.getId()).header(HttpHeaders.RANGE, "bytes=5-14")).andReturn();
+        assertEquals(206, partial.getResponse().getStatus());
+        assertEquals("bytes 5-14/" + expected.length, partial.getResponse().getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(expected, 5, 15), partial.getResponse().getContentAsByteArray());
+
+        MvcResult suffix = mockMvc.perform(get("/api/output/" + exec.getId()).header(HttpHeaders.RANGE, "bytes=-4")).andReturn();
+        assertArrayEquals(Arrays.copyOfRange(expected, expected.length - 4, expected.length), suffix.getResponse().getContentAsByteArray());
+
+        // A stale If-Range gets the whole file; an unsatisfiable range gets 416
+        MvcResult staleIfRange = mockMvc.perform(get("/api/output/" + exec.getId())
+                .header(HttpHeaders.RANGE, "bytes=5-14").header(HttpHeaders.IF_RANGE, "\"0-0\"")).andReturn();
+        assertEquals(200, staleIfRange.getResponse().getStatus());
+        MvcResult beyond = mockMvc.perform(get("/api/output/" + exec.getId()).header(HttpHeaders.RANGE, "bytes=" + expected.length + "-")).andReturn();
+        assertEquals(416, beyond.getResponse().getStatus());
+
+        MvcResult notModified = mockMvc.perform(get("/api/output/" + exec.getId()).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(304, notModified.getResponse().getStatus());
+
+        MvcResult gzip = mockMvc.perform(get("/api/output/" + exec.getId()).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")).andReturn();
+        assertEquals("gzip", gzip.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzip.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-gz\""));
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+
+        assertEquals(404, mockMvc.perform(get("/api/output/999999")).andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void snapshotHash_followsContentNotLength(@TempDir Path dir) throws Exception {
+        Path source = dir.resolve("persons_with_age.txt");
+        OutputFileService service = new OutputFileService(source.toString(), dir.resolve("executions").toString(), 10);
+
+        Files.writeString(source, "Ada,36\n");
+        service.publish(1);
+        String first = service.find(1).orElseThrow().sha256();
+        // Same execution id and length, other content (an in-memory job repository numbers executions from 1 again)
+        Files.delete(source);
+        Files.writeString(source, "Bob,52\n");
+        service.publish(1);
+        String second = service.find(1).orElseThrow().sha256();
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest("Ada,36\n".getBytes())), first);
+        assertNotEquals(first, second);
+        assertEquals("Bob,52\n", Files.readString(service.find(1).orElseThrow().file()));
+    }
+}
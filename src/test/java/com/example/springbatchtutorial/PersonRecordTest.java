@@ -0,0 +1,67 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.util.Fingerprints;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonRecordTest {
+
+    @Test
+    void parsedRow_roundTripsItsDateOfBirth_andHasNoAgeOrId() {
+        for (LocalDate dob : new LocalDate[] {LocalDate.of(1, 1, 1), LocalDate.of(1969, 12, 31), LocalDate.of(1970, 1, 1),
+                LocalDate.of(2024, 2, 29), LocalDate.of(9999, 12, 31)}) {
+            PersonRecord record = new PersonRecord("Ada", "Lovelace", "ada@example.com", dob);
+            assertEquals(dob, record.dateOfBirth());
+            assertEquals(dob.toEpochDay(), record.dateOfBirthEpochDay());
+            assertEquals(0L, record.id());
+            assertFalse(record.hasAge());
+            assertEquals(PersonRecord.NO_AGE, record.age());
+        }
+    }
+
+    @Test
+    void projection_mapsNullIdAndAge_andKeepsTheRest() {
+        LocalDate dob = LocalDate.of(1815, 12, 10);
+        PersonRecord empty = new PersonRecord(null, "Ada", "Lovelace", "ada@example.com", dob, null);
+        assertEquals(0L, empty.id());
+        assertFalse(empty.hasAge());
+
+        PersonRecord stored = new PersonRecord(42L, "Ada", "Lovelace", "ada@example.com", dob, 36);
+        assertEquals(42L, stored.id());
+        assertTrue(stored.hasAge());
+        assertEquals(36, stored.age());
+        assertEquals(dob, stored.dateOfBirth());
+        // Age 0 is a real age, not "not calculated"
+        assertTrue(new PersonRecord(1L, "A", "B", "c@example.com", dob, 0).hasAge());
+    }
+
+    @Test
+    void withAge_changesOnlyTheAge() {
+        PersonRecord record = new PersonRecord(7L, "Ada", "Lovelace", "ada@example.com", LocalDate.of(1815, 12, 10), null);
+        PersonRecord aged = record.withAge(36);
+        assertEquals(new PersonRecord(7L, "Ada", "Lovelace", "ada@example.com", record.dateOfBirthEpochDay(), 36), aged);
+        assertFalse(record.hasAge());
+    }
+
+    @Test
+    void contentHash_matchesTheEntityHash_andTellsFieldsApart() {
+        LocalDate dob = LocalDate.of(1815, 12, 10);
+        PersonRecord record = new PersonRecord("Ada", "Lovelace", "ada@example.com", dob);
+        // Person#refreshContentHash hashes the entity's fields with a null age when none is set
+        assertEquals(Fingerprints.content("Ada", "Lovelace", dob, null), record.contentHash(PersonRecord.NO_AGE));
+        assertEquals(Fingerprints.content("Ada", "Lovelace", dob, 36), record.contentHash(36));
+        assertEquals(Fingerprints.content("Ada", "Lovelace", dob, 0), record.contentHash(0));
+
+        assertNotEquals(record.contentHash(0), record.contentHash(PersonRecord.NO_AGE));
+        assertNotEquals(record.contentHash(36), record.contentHash(37));
+        assertNotEquals(record.contentHash(36),
+                new PersonRecord("Ada", "Lovelace", "ada@example.com", dob.plusDays(1)).contentHash(36));
+        assertNotEquals(record.contentHash(36), new PersonRecord("AdaL", "ovelace", "ada@example.com", dob).contentHash(36));
+        // The email is the key, not content
+        assertEquals(record.contentHash(36), new PersonRecord("Ada", "Lovelace", "other@example.com", dob).contentHash(36));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.model.RetentionPolicy;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.service.RetentionService;
+import com.opencsv.CSVReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@SpringBatchTest
+@ActiveProfiles("test")
+class RetentionPurgeIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    @Qualifier("batchDataSource")
+    private DataSource batchDataSource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Path.of("input"));
+        Files.createDirectories(Path.of("output"));
+        personRepository.deleteAll();
+    }
+
+    @Test
+    void keepLastExecution_purgesRowsOfOlderExecutionsOnly() throws Exception {
+        Long older = runJob("input/samples/persons_success.csv");
+        Long newer = runJob("input/samples/persons_duplicates.csv");
+        long olderRows = personRepository.findAllByJobExecutionId(older).size();
+        long newerRows = personRepository.findAllByJobExecutionId(newer).size();
+        assertTrue(olderRows > 0);
+
+        Map<String, Object> result = retentionService.purge(new RetentionPolicy(1, null, false));
+
+        assertEquals((int) olderRows, result.get("rowsReclaimed"));
+        assertEquals(newer, result.get("cutoffExecutionId"));
+        assertEquals(newerRows, personRepository.count());
+        assertTrue(personRepository.findAllByJobExecutionId(older).isEmpty());
+    }
+
+    @Test
+    void keepDaysWithNoExecutionInWindow_keepsNewestAndArchivesQuotedFields() throws Exception {
+        Path csv = Path.of("target/retention/persons_quoted.csv");
+        Files.createDirectories(csv.getParent());
+        Files.write(csv, List.of("FirstName,LastName,Email,DateOfBirth",
+                "\"Anne, Marie\",\"O\"\"Neil\",retention.quoted@example.com,1980-01-01"));
+        runJob(csv.toString());
+        Long newer = runJob("input/samples/persons_duplicates.csv");
+        long newerRows = personRepository.findAllByJobExecutionId(newer).size();
+        // Every execution so far, also those of other tests, now lies outside a one-day window
+        new JdbcTemplate(batchDataSource).update("UPDATE BATCH_JOB_EXECUTION SET START_TIME = ? WHERE JOB_EXECUTION_ID <= ?",
+                LocalDateTime.now().minusDays(10), newer);
+
+        Map<String, Object> result = retentionService.purge(new RetentionPolicy(null, 1, true));
+
+        assertEquals(newer, result.get("cutoffExecutionId"));
+        assertEquals(newerRows, personRepository.count());
+        try (CSVReader archive = new CSVReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(Path.of(result.get("archiveFile").toString()))), StandardCharsets.UTF_8))) {
+            List<String[]> rows = archive.readAll();
+            assertEquals(2, rows.size());
+            assertEquals("Anne, Marie", rows.get(1)[1]);
+            assertEquals("O\"Neil", rows.get(1)[2]);
+            assertEquals("retention.quoted@example.com", rows.get(1)[3]);
+        }
+    }
+
+    private Long runJob(String sample) throws Exception {
+        Files.copy(Path.of(sample), Path.of("input/persons.csv"), StandardCopyOption.REPLACE_EXISTING);
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        return exec.getId();
+    }
+}
@@ -1,22 +1,79 @@
 package com.example.springbatchtutorial;
 
+import com.example.springbatchtutorial.listener.BatchMetricsListener;
+import com.example.springbatchtutorial.model.CsvValidationReport;
+import com.example.springbatchtutorial.model.JobProgressEvent;
+import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.model.PersonRecord;
+import com.example.springbatchtutorial.reader.ValidationRule;
+import com.example.springbatchtutorial.repository.DeferredJobRepository;
+import com.example.springbatchtutorial.repository.JobExecutionSummaryRepository;
+import com.example.springbatchtutorial.service.BatchMetrics;
+import com.example.springbatchtutorial.service.CsvValidationService;
+import com.example.springbatchtutorial.service.EmailLockStripes;
+import com.example.springbatchtutorial.service.ExecutionSummaryService;
+import com.example.springbatchtutorial.service.JobEventBroadcaster;
+import com.example.springbatchtutorial.service.JobMetricsAggregator;
+import com.example.springbatchtutorial.service.OutputFileService;
+import com.example.springbatchtutorial.service.PersonExportService;
+import com.example.springbatchtutorial.service.UploadIngestService;
+import com.example.springbatchtutorial.util.DurationHistogram;
+import com.example.springbatchtutorial.writer.UpsertPersonItemWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.Chunk;
 import org.springframework.batch.test.JobLauncherTestUtils;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +88,71 @@ class ScenarioIntegrationTests {
     @Autowired
     private com.example.springbatchtutorial.repository.PersonRepository personRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BatchMetrics batchMetrics;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JobEventBroadcaster jobEventBroadcaster;
+
+    @Autowired
+    private ExecutionSummaryService executionSummaryService;
+
+    @Autowired
+    private JobExecutionSummaryRepository jobExecutionSummaryRepository;
+
+    @Autowired
+    private JobMetricsAggregator jobMetricsAggregator;
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private UploadIngestService uploadIngestService;
+
+    @Autowired
+    private CsvValidationService csvValidationService;
+
+    @Autowired
+    private OutputFileService outputFileService;
+
+    @Autowired
+    private EmailLockStripes emailLockStripes;
+
+    @Autowired
+    @Qualifier("batchDataSource")
+    private DataSource batchDataSource;
+
+    @Autowired
+    @Qualifier("writeDataSource")
+    private HikariDataSource writeDataSource;
+
+    @Autowired
+    @Qualifier("readDataSource")
+    private DataSource readDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier("step1SaveToDatabase")
+    private Step step1SaveToDatabase;
+
+    @Autowired
+    @Qualifier("step2CalculateAge")
+    private Step step2CalculateAge;
+
     @BeforeEach
     void setup() throws IOException {
         Files.createDirectories(Path.of("input"));
@@ -66,6 +188,100 @@ class ScenarioIntegrationTests {
         assertTrue(exec.getStepExecutions().stream().anyMatch(se -> se.getSkipCount() > 0));
     }
 
+    @Test
+    void partialScenario_recordsChunkMetricsTaggedByStepAndScenario() throws Exception {
+        copy("input/samples/persons_partial.csv", "input/persons.csv");
+        double skippedBefore = counter("batch.items.skipped", "step2CalculateAge");
+        double rejectedBefore = counter("batch.items.rejected", "step1SaveToDatabase");
+        long commitsBefore = timerCount("batch.chunk.commit", "step1SaveToDatabase");
+        long apiCallsBefore = timerCount("batch.age.api.call", "step2CalculateAge");
+
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "PARTIAL")
+                .addString("skipEvery", "2")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        var step2 = exec.getStepExecutions().stream()
+                .filter(se -> se.getStepName().equals("step2CalculateAge"))
+                .findFirst().orElseThrow();
+        assertEquals(step2.getProcessSkipCount(), counter("batch.items.skipped", "step2CalculateAge") - skippedBefore);
+        assertTrue(counter("batch.items.rejected", "step1SaveToDatabase") > rejectedBefore);
+        assertTrue(timerCount("batch.chunk.commit", "step1SaveToDatabase") > commitsBefore);
+        assertTrue(timerCount("batch.age.api.call", "step2CalculateAge") > apiCallsBefore);
+        // Lag gauges only exist while a step runs
+        assertNull(meterRegistry.find("batch.step.lag.items").tag("scenario", "PARTIAL").gauge());
+    }
+
+    @Test
+    void lagGauges_ofConcurrentRunsOfOneStep_areKeptApart() {
+        JobInstance instance = new JobInstance(-1L, "processPersonJob");
+        JobParameters parameters = new JobParametersBuilder().addString("scenario", "LAG").toJobParameters();
+        StepExecution first = new StepExecution("step2CalculateAge", new JobExecution(instance, -11L, parameters), -11L);
+        StepExecution second = new StepExecution("step2CalculateAge", new JobExecution(instance, -12L, parameters), -12L);
+        BatchMetricsListener firstListener = new BatchMetricsListener(batchMetrics);
+        BatchMetricsListener secondListener = new BatchMetricsListener(batchMetrics);
+        firstListener.beforeStep(first);
+        secondListener.beforeStep(second);
+        second.setReadCount(7);
+
+        assertEquals(2, meterRegistry.find("batch.step.lag.items").tag("scenario", "LAG").gauges().size());
+        firstListener.afterStep(first);
+        var remaining = meterRegistry.find("batch.step.lag.items").tag("scenario", "LAG").gauge();
+        assertNotNull(remaining);
+        assertEquals("-12", remaining.getId().getTag("jobExecutionId"));
+        assertEquals(7, remaining.value());
+        secondListener.afterStep(second);
+        assertNull(meterRegistry.find("batch.step.lag.items").tag("scenario", "LAG").gauge());
+    }
+
+    @Test
+    void subscriber_receivesTransitionsAndCoalescedProgressInOrder() throws Exception {
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        List<JobProgressEvent> received = new CopyOnWriteArrayList<>();
+        List<List<JobProgressEvent>> messages = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = jobEventBroadcaster.subscribe(events -> {
+            messages.add(events);
+            received.addAll(events);
+        });
+        try {
+            JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                    .addString("time", UUID.randomUUID().toString(), true)
+                    .addString("scenario", "SUCCESS")
+                    .addString("csvPath", "input/persons.csv")
+                    .toJobParameters());
+            assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (received.stream().noneMatch(e -> e.type() == JobProgressEvent.Type.JOB_COMPLETED)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            List<JobProgressEvent> events = received.stream().filter(e -> e.jobExecutionId() == exec.getId()).toList();
+            assertEquals(JobProgressEvent.Type.JOB_STARTED, events.get(0).type());
+            assertEquals(JobProgressEvent.Type.JOB_COMPLETED, events.get(events.size() - 1).type());
+            assertEquals("COMPLETED", events.get(events.size() - 1).status());
+            assertEquals(3, events.stream().filter(e -> e.type() == JobProgressEvent.Type.STEP_STARTED).count());
+            assertEquals(3, events.stream().filter(e -> e.type() == JobProgressEvent.Type.STEP_COMPLETED).count());
+            // Coalesced: a message holds at most one progress event per step, and progress never goes back
+            for (List<JobProgressEvent> message : messages) {
+                var progress = message.stream().filter(e -> e.type() == JobProgressEvent.Type.CHUNK_COMMITTED).toList();
+                assertEquals(progress.size(), progress.stream().map(e -> e.jobExecutionId() + "/" + e.stepName()).distinct().count());
+            }
+            Map<String, Long> lastRead = new HashMap<>();
+            for (JobProgressEvent e : events) {
+                if (e.type() == JobProgressEvent.Type.CHUNK_COMMITTED) {
+                    assertTrue(e.readCount() >= lastRead.getOrDefault(e.stepName(), 0L), e.toString());
+                    lastRead.put(e.stepName(), e.readCount());
+                }
+            }
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
     @Test
     void failScenario_failsImmediately() throws Exception {
         copy("input/samples/persons_fail.csv", "input/persons.csv");
@@ -79,6 +295,276 @@ class ScenarioIntegrationTests {
         assertEquals(BatchStatus.FAILED, exec.getStatus());
     }
 
+    @Test
+    void executionSummaryBackfill_findsRestartsOfOldInstancesPastTheFirstPage() throws Exception {
+        // Restarts move execution ids ahead of instance ids
+        var restarted = new JobParametersBuilder().addString("time", UUID.randomUUID().toString(), true).toJobParameters();
+        for (int i = 0; i < 150; i++) {
+            finishedExecution(restarted, BatchStatus.FAILED);
+        }
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+
+        // Executions written straight to the job repository, as another process would, so none is indexed yet
+        var oldParams = new JobParametersBuilder().addString("time", UUID.randomUUID().toString(), true).toJobParameters();
+        List<Long> created = new ArrayList<>(List.of(finishedExecution(oldParams, BatchStatus.FAILED)));
+        for (int i = 0; i < 120; i++) {
+            created.add(finishedExecution(new JobParametersBuilder()
+                    .addString("time", UUID.randomUUID().toString(), true).toJobParameters(), BatchStatus.COMPLETED));
+        }
+        // The restart has the highest execution id, on the oldest of the new instances: the second page
+        created.add(finishedExecution(oldParams, BatchStatus.COMPLETED));
+
+        executionSummaryService.indexMissingExecutions();
+
+        for (Long id : created) {
+            assertTrue(jobExecutionSummaryRepository.existsById(id), "execution " + id);
+        }
+    }
+
+    private Long finishedExecution(JobParameters params, BatchStatus status) throws Exception {
+        JobExecution execution = jobRepository.createJobExecution("processPersonJob", params);
+        execution.setStartTime(LocalDateTime.now());
+        execution.setStatus(status);
+        execution.setEndTime(LocalDateTime.now());
+        jobRepository.update(execution);
+        return execution.getId();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void executionSummaries_pageByKeysetAndFilterByStatusAndTime() throws Exception {
+        copy("input/samples/persons_partial.csv", "input/persons.csv");
+        JobExecution partial = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "PARTIAL")
+                .addString("skipEvery", "2")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        copy("input/samples/persons_fail.csv", "input/persons.csv");
+        JobExecution failed = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "FAIL")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+
+        var first = executionSummaryService.page(null, null, null, null, 1);
+        assertEquals(1, first.size());
+        assertEquals(failed.getId(), first.get(0).get("id"));
+        assertEquals("FAILED", first.get(0).get("status"));
+        var next = executionSummaryService.page(failed.getId(), null, null, null, 1);
+        assertEquals(partial.getId(), next.get(0).get("id"));
+
+        assertTrue(executionSummaryService.page(null, "failed", null, null, 100).stream()
+                .allMatch(e -> e.get("status").equals("FAILED")));
+        var sinceFailed = executionSummaryService.page(null, null, failed.getStartTime(), null, 100);
+        assertEquals(List.of(failed.getId()), sinceFailed.stream().map(e -> e.get("id")).toList());
+
+        // Step rows match the job repository, including the writer counts and skip summary from the contexts
+        var summary = executionSummaryService.page(partial.getId() + 1, null, null, null, 1).get(0);
+        assertEquals(partial.getId(), summary.get("id"));
+        assertEquals("COMPLETED", summary.get("status"));
+        assertNotNull(summary.get("duration"));
+        var steps = (List<Map<String, Object>>) summary.get("stepExecutions");
+        var reloaded = jobExplorer.getJobExecution(partial.getId());
+        assertEquals(reloaded.getStepExecutions().size(), steps.size());
+        for (var se : reloaded.getStepExecutions()) {
+            var step = steps.stream().filter(s -> s.get("stepName").equals(se.getStepName())).findFirst().orElseThrow();
+            assertEquals(se.getStatus().toString(), step.get("status"));
+            assertEquals(se.getReadCount(), step.get("readCount"));
+            assertEquals(se.getWriteCount(), step.get("writeCount"));
+            assertEquals(se.getSkipCount(), step.get("skipCount"));
+            assertEquals(se.getExecutionContext().getInt("inserted.count", 0), step.get("inserted"));
+            assertEquals(se.getExecutionContext().containsKey("skip.summary"), step.containsKey("skipSummary"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void jobMetrics_aggregateCountsAndPercentilesPerJobAndStep() throws Exception {
+        Map<String, Object> before = jobMetricsAggregator.rollup(null);
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        for (String window : List.of("all", "1h")) {
+            Map<String, Object> metrics = jobMetricsAggregator.rollup(window);
+            if (window.equals("all")) {
+                assertEquals((long) before.get("totalExecutions") + 1, metrics.get("totalExecutions"));
+                assertEquals((long) before.get("successfulExecutions") + 1, metrics.get("successfulExecutions"));
+            }
+            var steps = (Map<String, Map<String, Object>>) metrics.get("steps");
+            for (var se : exec.getStepExecutions()) {
+                var step = steps.get(se.getStepName());
+                assertNotNull(step, window + " " + se.getStepName());
+                long p50 = (long) step.get("p50Ms"), p95 = (long) step.get("p95Ms"), p99 = (long) step.get("p99Ms");
+                assertTrue(p50 <= p95 && p95 <= p99 && p99 <= (long) step.get("maxMs"));
+                assertTrue((long) step.get("rowsWritten") >= se.getWriteCount());
+            }
+            assertTrue(((Map<String, Object>) metrics.get("jobs")).containsKey("processPersonJob"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> jobMetricsAggregator.rollup("yesterday"));
+
+        // Log-linear buckets: within 1/16 of the exact percentile, and merged histograms add up
+        DurationHistogram histogram = new DurationHistogram();
+        for (int ms = 1; ms <= 10_000; ms++) {
+            histogram.record(ms);
+        }
+        assertEquals(5_000, histogram.valueAtPercentile(50), 5_000 / 16.0);
+        assertEquals(9_900, histogram.valueAtPercentile(99), 9_900 / 16.0);
+        DurationHistogram merged = DurationHistogram.decode(histogram.encode());
+        merged.add(histogram);
+        assertEquals(20_000, merged.totalCount());
+        assertEquals(histogram.valueAtPercentile(95), merged.valueAtPercentile(95));
+    }
+
+    @Test
+    void persons_pageByKeysetAndStreamAsNdjsonAndCsv() throws Exception {
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        var expected = personRepository.findAllByJobExecutionId(exec.getId()).stream()
+                .map(Person::getId).sorted().toList();
+        assertFalse(expected.isEmpty());
+
+        List<Long> paged = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            var page = personRepository.findPage(afterId, exec.getId(), null, PageRequest.of(0, 3));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(p -> paged.add(p.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+        assertEquals(expected, paged);
+
+        var ndjson = new ByteArrayOutputStream();
+        long rows = personExportService.export(PersonExportService.Format.NDJSON, exec.getId(), null, ndjson);
+        var lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(expected.size(), rows);
+        assertEquals(expected.size(), lines.size());
+        var mapper = new ObjectMapper();
+        for (int i = 0; i < lines.size(); i++) {
+            var node = mapper.readTree(lines.get(i));
+            assertEquals(expected.get(i).longValue(), node.get("id").asLong());
+            assertEquals(exec.getId().longValue(), node.get("jobExecutionId").asLong());
+            assertTrue(node.get("email").asText().contains("@"));
+        }
+
+        var csv = new ByteArrayOutputStream();
+        personExportService.export(PersonExportService.Format.CSV, exec.getId(), null, csv);
+        var csvLines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,firstName,lastName,email,dateOfBirth,age,jobExecutionId,processingStatus", csvLines.get(0));
+        assertEquals(expected.size() + 1, csvLines.size());
+    }
+
+    @Test
+    void upload_isImportedWhileStreamingAndSpooledForRestart() throws Exception {
+        byte[] csv = Files.readAllBytes(Path.of("input/samples/persons_success.csv"));
+        // Hands the body out a few bytes at a time, like a slow client
+        var body = new FilterInputStream(new ByteArrayInputStream(csv)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 17));
+            }
+        };
+
+        Map<String, Object> result = uploadIngestService.ingest(body, "SUCCESS", null);
+        assertEquals((long) csv.length, result.get("bytes"));
+        long executionId = (Long) result.get("jobExecutionId");
+        JobExecution exec = jobExplorer.getJobExecution(executionId);
+        for (int i = 0; i < 300 && exec.isRunning(); i++) {
+            Thread.sleep(100);
+            exec = jobExplorer.getJobExecution(executionId);
+        }
+
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        long validRows = new String(csv, StandardCharsets.UTF_8).lines().skip(1)
+                .filter(line -> !line.isBlank()).count();
+        var step1 = exec.getStepExecutions().stream()
+                .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+        assertTrue(step1.getReadCount() > 0 && step1.getReadCount() <= validRows);
+        assertEquals(step1.getWriteCount(), personRepository.findAllByJobExecutionId(executionId).size());
+        Path spool = Path.of(result.get("spool").toString());
+        assertArrayEquals(csv, Files.readAllBytes(spool));
+        assertEquals(spool.toString(), exec.getJobParameters().getString("csvPath"));
+        Files.deleteIfExists(spool);
+    }
+
+    @Test
+    void deferredRepositoryMode_writesStepsOnceAndMatchesTheJdbcView() throws Exception {
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        JobExecution jdbc = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        JobExecution deferred = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .addString(DeferredJobRepository.MODE_PARAMETER, "deferred", false)
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, deferred.getStatus());
+
+        var jdbcSteps = jobExplorer.getJobExecution(jdbc.getId()).getStepExecutions();
+        var deferredSteps = jobExplorer.getJobExecution(deferred.getId()).getStepExecutions();
+        assertEquals(jdbcSteps.size(), deferredSteps.size());
+        for (var stored : deferredSteps) {
+            var reference = jdbcSteps.stream().filter(se -> se.getStepName().equals(stored.getStepName())).findFirst().orElseThrow();
+            assertEquals(BatchStatus.COMPLETED, stored.getStatus());
+            assertNotNull(stored.getEndTime());
+            assertEquals(reference.getReadCount(), stored.getReadCount());
+            assertEquals(reference.getWriteCount(), stored.getWriteCount());
+            assertEquals(reference.getCommitCount(), stored.getCommitCount());
+            assertEquals(reference.getExecutionContext().entrySet().stream().map(Map.Entry::getKey).sorted().toList(),
+                    stored.getExecutionContext().entrySet().stream().map(Map.Entry::getKey).sorted().toList());
+            // Written when the step started and when it ended, not once per chunk
+            assertEquals(2, stored.getVersion());
+            assertTrue(reference.getVersion() > stored.getVersion() || reference.getCommitCount() <= 1);
+        }
+    }
+
+    @Test
+    void batchMetadataAndReads_useTheirOwnPools() throws Exception {
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        // BATCH_ tables live in the metadata database only
+        assertEquals(1, new JdbcTemplate(batchDataSource).queryForObject(
+                "select count(*) from BATCH_JOB_EXECUTION where JOB_EXECUTION_ID = ?", Integer.class, exec.getId()));
+        assertEquals(0, new JdbcTemplate(writeDataSource).queryForObject(
+                "select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_NAME = 'BATCH_JOB_EXECUTION'", Integer.class));
+
+        // A read-only business transaction borrows from the read pool, not the write pool
+        HikariDataSource read = (HikariDataSource) readDataSource;
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(tx -> {
+            assertEquals(25, personRepository.findAllByJobExecutionId(exec.getId()).size());
+            assertEquals(1, read.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, writeDataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+    }
+
     @Test
     void retryableScenario_retriesThenSucceeds() throws Exception {
         copy("input/samples/persons_retryable.csv", "input/persons.csv");
@@ -95,6 +581,56 @@ class ScenarioIntegrationTests {
 
 
 
+    @Test
+    void dedupLastWins_collapsesDuplicateEmailsBeforeWrite() throws Exception {
+        copy("input/samples/persons_duplicates.csv", "input/persons.csv");
+
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("dedupMode", "LAST_WINS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        var step1 = exec.getStepExecutions().stream()
+                .filter(se -> se.getStepName().equals("step1SaveToDatabase"))
+                .findFirst().orElseThrow();
+        assertEquals(3, step1.getWriteCount());
+        assertEquals(3, step1.getExecutionContext().getInt("dedup.collapsed.count"));
+        assertEquals("DUP_LAST", personRepository.findByEmail("dup.one@example.com").orElseThrow().getFirstName());
+        assertEquals("DUP_TWO_B", personRepository.findByEmail("dup.two@example.com").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void reingestSameFile_countsUnchangedRowsAndStillWritesOutput() throws Exception {
+        copy("input/samples/persons_success.csv", "input/persons.csv");
+
+        JobExecution first = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, first.getStatus());
+
+        JobExecution second = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", "input/persons.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, second.getStatus());
+
+        for (var se : second.getStepExecutions()) {
+            if (se.getStepName().equals("step1SaveToDatabase") || se.getStepName().equals("step2CalculateAge")) {
+                assertEquals(se.getReadCount(), se.getExecutionContext().getInt("unchanged.count"), se.getStepName());
+                assertEquals(0, se.getExecutionContext().getInt("written.count"), se.getStepName());
+            }
+        }
+        long outputLines = Files.readAllLines(Path.of("output/persons_with_age.txt")).size();
+        assertEquals(personRepository.findAllByJobExecutionId(second.getId()).size(), outputLines);
+        assertTrue(outputLines > 0);
+    }
+
     @Test
     void editableCsv_fixThenRerun_upsertsFixedPersons() throws Exception {
         // 1) First run with invalid entries present
@@ -170,6 +706,273 @@ class ScenarioIntegrationTests {
         assertTrue(personRepository.findByEmail("partial.toolold2@example.com").isPresent());
     }
 
+    @Test
+    void bulkLoadMode_matchesRowByRowCountsAndRows() throws Exception {
+        List<String> base = new ArrayList<>(Files.readAllLines(Path.of("input/samples/persons_partial.csv")));
+        base.addAll(List.of("\"Quoted, First\",Demo,bulk.quoted@example.com,1970-01-01",
+                "TWICE_SAME,Demo,bulk.same@example.com,1971-02-28",
+                "TWICE_SAME,Demo,bulk.same@example.com,1971-02-28",
+                "TWICE_CHANGED,Demo,bulk.changed@example.com,1972-03-03",
+                "SHORT,Demo,bulk.short@example.com",
+                "   ",
+                "TWICE_CHANGED,Later,bulk.changed@example.com,1972-03-03",
+                "LEAP_CLAMPED,Demo,bulk.leap@example.com,2001-02-30",
+                "BAD_DATE,Demo,bulk.baddate@example.com,01/02/2003",
+                ""));
+        List<String> edited = base.stream()
+                .map(line -> line.replace("PARTIAL_VALID_03", "PARTIAL_EDITED_03").replace("2999-05-05", "1990-05-05"))
+                .toList();
+
+        for (List<String> lines : List.of(base, edited)) {
+            var row = stepsOfRun(lines, "row").stream()
+                    .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+            var bulk = stepsOfRun(lines, "bulk").stream()
+                    .filter(se -> se.getStepName().equals("step1BulkLoad")).findFirst().orElseThrow();
+            for (String key : List.of("inserted.count", "updated.count", "unchanged.count", "written.count", "rejected.count")) {
+                assertEquals(row.getExecutionContext().getInt(key), bulk.getExecutionContext().getInt(key), key);
+            }
+            assertEquals(row.getReadCount(), bulk.getReadCount());
+            assertEquals(row.getWriteCount(), bulk.getWriteCount());
+        }
+
+        List<Person> rowPersons = personRepository.findAll().stream()
+                .filter(p -> p.getEmail().endsWith("@row.parity.example.com")).toList();
+        assertFalse(rowPersons.isEmpty());
+        for (Person expected : rowPersons) {
+            Person actual = personRepository.findByEmail(expected.getEmail().replace("@row.", "@bulk.")).orElseThrow();
+            assertEquals(expected.getFirstName(), actual.getFirstName(), expected.getEmail());
+            assertEquals(expected.getLastName(), actual.getLastName(), expected.getEmail());
+            assertEquals(expected.getDateOfBirth(), actual.getDateOfBirth(), expected.getEmail());
+            assertEquals(expected.getProcessingStatus(), actual.getProcessingStatus(), expected.getEmail());
+            assertEquals(expected.getContentHash(), actual.getContentHash(), expected.getEmail());
+        }
+    }
+
+    @Test
+    void pipelineLoadMode_storesWhatTheStepsStoreAndReportsEveryStage() throws Exception {
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of("input/samples/persons_partial.csv")));
+        lines.addAll(List.of("TWICE_CHANGED,Demo,pipe.changed@example.com,1972-03-03",
+                "TWICE_CHANGED,Later,pipe.changed@example.com,1972-03-03"));
+
+        var row = stepsOfRun(lines, "row").stream()
+                .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+        var staged = stepsOfRun(lines, "pipeline").stream()
+                .filter(se -> se.getStepName().equals("stagedPipelineStep")).findFirst().orElseThrow();
+        var counts = staged.getExecutionContext();
+        assertEquals(row.getReadCount(), staged.getReadCount());
+        assertEquals(row.getExecutionContext().getInt("rejected.count"), counts.getInt("rejected.count"));
+        for (String stage : List.of("parse", "validate", "age", "persist", "export")) {
+            assertTrue(counts.containsKey("pipeline." + stage + ".utilization"), stage);
+        }
+        assertEquals(staged.getReadCount(), counts.getLong("pipeline.persist.items"));
+
+        List<Person> rowPersons = personRepository.findAllByJobExecutionId(row.getJobExecutionId());
+        List<Person> stagedPersons = personRepository.findAllByJobExecutionId(staged.getJobExecutionId());
+        assertEquals(rowPersons.size(), stagedPersons.size());
+        for (Person expected : rowPersons) {
+            Person actual = personRepository.findByEmail(expected.getEmail().replace("@row.", "@pipeline.")).orElseThrow();
+            assertEquals(expected.getFirstName(), actual.getFirstName(), expected.getEmail());
+            assertEquals(expected.getDateOfBirth(), actual.getDateOfBirth(), expected.getEmail());
+            assertEquals(expected.getAge(), actual.getAge(), expected.getEmail());
+            assertEquals(expected.getProcessingStatus(), actual.getProcessingStatus(), expected.getEmail());
+        }
+        // The repeated email makes the pipeline rewrite the file from the table: one line per person
+        List<String> output = Files.readAllLines(Path.of("output/persons_with_age.txt"));
+        assertEquals(stagedPersons.size(), output.size());
+        assertTrue(output.stream().anyMatch(line -> line.startsWith("TWICE_CHANGED,")));
+    }
+
+    @Test
+    void pipelineLoadMode_replacesTheOutputFile_andLeavesPublishedSnapshotsAlone() throws Exception {
+        List<String> lines = Files.readAllLines(Path.of("input/samples/persons_success.csv"));
+        long first = stepsOfRun(lines, "pipeline", "snapshot-first").iterator().next().getJobExecutionId();
+        OutputFileService.Snapshot snapshot = outputFileService.find(first).orElseThrow();
+        byte[] published = Files.readAllBytes(snapshot.file());
+        assertTrue(published.length > 0);
+
+        // Half the rows: a file written in place would shrink the first run's hard-linked snapshot with it
+        stepsOfRun(lines.subList(0, lines.size() / 2), "pipeline", "snapshot-second");
+        assertTrue(Files.size(Path.of("output/persons_with_age.txt")) < published.length);
+
+        assertArrayEquals(published, Files.readAllBytes(snapshot.file()));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(published)),
+                outputFileService.find(first).orElseThrow().sha256());
+        try (var gzip = new GZIPInputStream(Files.newInputStream(snapshot.gzip()))) {
+            assertArrayEquals(published, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void concurrentImports_withOverlappingEmails_neverCollideOnInsert() throws Exception {
+        // Steps 1 and 2 only: step 3 rewrites one shared output file
+        Job job = new JobBuilder("overlappingImportJob", jobRepository).start(step1SaveToDatabase).next(step2CalculateAge).build();
+        List<Path> files = new ArrayList<>();
+        for (String name : List.of("FIRST", "SECOND")) {
+            List<String> lines = new ArrayList<>(List.of("firstName,lastName,email,dateOfBirth"));
+            for (int i = 0; i < 600; i++) {
+                lines.add(name + ",Overlap,overlap" + i + "@example.com,1980-01-01");
+            }
+            Path csv = Path.of("target/overlap/persons_" + name + ".csv");
+            Files.createDirectories(csv.getParent());
+            files.add(Files.write(csv, lines));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(files.size());
+        List<Future<Long>> runs = new ArrayList<>();
+        for (Path csv : files) {
+            runs.add(pool.submit(() -> jobLauncher.run(job, new JobParametersBuilder()
+                    .addString("time", UUID.randomUUID().toString(), true)
+                    .addString("scenario", "SUCCESS")
+                    .addString("csvPath", csv.toString())
+                    .toJobParameters()).getId()));
+        }
+        int inserted = 0;
+        for (Future<Long> run : runs) {
+            JobExecution exec = jobExplorer.getJobExecution(run.get(2, TimeUnit.MINUTES));
+            assertEquals(BatchStatus.COMPLETED, exec.getStatus(), exec.getAllFailureExceptions().toString());
+            StepExecution step1 = exec.getStepExecutions().stream()
+                    .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+            assertEquals(600, step1.getReadCount());
+            assertEquals(0, step1.getRollbackCount());
+            inserted += step1.getExecutionContext().getInt("inserted.count");
+        }
+        pool.shutdown();
+        assertEquals(600, inserted);
+        for (int i = 0; i < 600; i += 50) {
+            assertNotNull(personRepository.findByEmail("overlap" + i + "@example.com").orElseThrow().getAge());
+        }
+    }
+
+    @Test
+    void upsertWriter_locksStripesOnlyForEmailsItInserts() throws Exception {
+        String existing = "stripe.existing@example.com";
+        personRepository.save(new Person("Stripe", "Existing", existing, LocalDate.of(1980, 1, 1)));
+        String missing = null;
+        for (int i = 0; missing == null; i++) {
+            if (emailLockStripes.stripeOf("stripe.missing" + i + "@example.com") == emailLockStripes.stripeOf(existing)) {
+                missing = "stripe.missing" + i + "@example.com";
+            }
+        }
+        UpsertPersonItemWriter writer = new UpsertPersonItemWriter(personRepository);
+        writer.setLocks(emailLockStripes);
+
+        // Another writer holds the stripe both emails hash to
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            pool.submit(() -> {
+                int[] stripes = emailLockStripes.lock(List.of(existing));
+                held.countDown();
+                try {
+                    release.await();
+                } finally {
+                    emailLockStripes.unlock(stripes);
+                }
+                return null;
+            });
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            pool.submit(() -> writer.write(Chunk.of(new PersonRecord("Updated", "Existing", existing, LocalDate.of(1980, 1, 1)))))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals("Updated", personRepository.findByEmail(existing).orElseThrow().getFirstName());
+
+            String inserted = missing;
+            Future<?> insert = pool.submit(() -> writer.write(Chunk.of(new PersonRecord("Stripe", "Missing", inserted, LocalDate.of(1980, 1, 1)))));
+            Thread.sleep(300);
+            assertFalse(insert.isDone());
+            release.countDown();
+            insert.get(5, TimeUnit.SECONDS);
+            assertTrue(personRepository.findByEmail(missing).isPresent());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void upsertWriter_comparesALaterCopyOfAnEmailInTheSameChunkAgainstTheEarlierOne() {
+        String email = "same.chunk@example.com";
+        personRepository.save(new Person("Second", "Copy", email, LocalDate.of(1980, 1, 1)));
+        UpsertPersonItemWriter writer = new UpsertPersonItemWriter(personRepository);
+        StepExecution stepExecution = new StepExecution("step1SaveToDatabase", new JobExecution(-1L));
+        writer.beforeStep(stepExecution);
+
+        // A re-ingest of a file with two copies of one email, stored as the second: both copies are rewritten
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.write(Chunk.of(
+                new PersonRecord("First", "Copy", email, LocalDate.of(1980, 1, 1)),
+                new PersonRecord("Second", "Copy", email, LocalDate.of(1980, 1, 1)))));
+        writer.afterStep(stepExecution);
+
+        assertEquals("Second", personRepository.findByEmail(email).orElseThrow().getFirstName());
+        assertEquals(2, stepExecution.getExecutionContext().getInt("updated.count"));
+        assertEquals(0, stepExecution.getExecutionContext().getInt("unchanged.count"));
+    }
+
+    @Test
+    void dryRunValidation_reportsWhatStepOneRejectsWhateverTheSegments() throws Exception {
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of("input/samples/persons_partial.csv")));
+        lines.addAll(List.of("\"Quoted, First\",Demo,dry.quoted@example.com,1970-01-01",
+                "SHORT,Demo,dry.short@example.com",
+                "   ",
+                "BAD_DATE,Demo,dry.baddate@example.com,01/02/2003",
+                "NO_AT,Demo,dry.example.com,1980-01-01",
+                ""));
+        var step1 = stepsOfRun(lines, "row", "dryrun").stream()
+                .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+        Path csv = Path.of("target/bulk-parity/persons_dryrun.csv");
+        long persons = personRepository.count();
+
+        CsvValidationReport whole = csvValidationService.validate(csv, 1);
+        assertEquals(lines.size() - 1, whole.rows());
+        assertEquals(step1.getReadCount(), whole.valid());
+        assertEquals(step1.getExecutionContext().getInt("rejected.count"), whole.rejected());
+        assertEquals(whole.rejected(), whole.rejectedByRule().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(ValidationRule.values().length, whole.rejectedByRule().size());
+        String badDate = whole.samples().get(ValidationRule.INVALID_DATE_FORMAT).stream()
+                .filter(message -> message.contains("01/02/2003")).findFirst().orElseThrow();
+        assertTrue(badDate.startsWith("Line " + (lines.indexOf("BAD_DATE,Demo,dry.baddate@example.com,01/02/2003") + 1) + ":"), badDate);
+
+        // Segment boundaries fall on different rows each time; the report must not change
+        for (int segments : List.of(2, 3, 7, 64)) {
+            CsvValidationReport split = csvValidationService.validate(csv, segments);
+            assertEquals(whole.rows(), split.rows(), "segments " + segments);
+            assertEquals(whole.valid(), split.valid(), "segments " + segments);
+            assertEquals(whole.rejectedByRule(), split.rejectedByRule(), "segments " + segments);
+            assertEquals(whole.samples(), split.samples(), "segments " + segments);
+        }
+        assertEquals(persons, personRepository.count());
+    }
+
+    private Collection<StepExecution> stepsOfRun(List<String> lines, String loadMode) throws Exception {
+        return stepsOfRun(lines, loadMode, loadMode);
+    }
+
+    /** Runs the lines as {@code target/bulk-parity/persons_<label>.csv}, every e-mail moved to {@code <label>.parity}. */
+    private Collection<StepExecution> stepsOfRun(List<String> lines, String loadMode, String label) throws Exception {
+        Path csv = Path.of("target/bulk-parity/persons_" + label + ".csv");
+        Files.createDirectories(csv.getParent());
+        Files.write(csv, lines.stream().map(line -> line.replace("@example.com", "@" + label + ".parity.example.com")).toList());
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", csv.toString())
+                .addString("loadMode", loadMode)
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+        return exec.getStepExecutions();
+    }
+
+    private double counter(String name, String step) {
+        var counter = meterRegistry.find(name).tag("step", step).tag("scenario", "PARTIAL").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private long timerCount(String name, String step) {
+        var timer = meterRegistry.find(name).tag("step", step).tag("scenario", "PARTIAL").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
     private static void copy(String src, String dest) throws IOException {
         Files.copy(Path.of(src), Path.of(dest), StandardCopyOption.REPLACE_EXISTING);
     }
@@ -0,0 +1,79 @@
+package com.example.springbatchtutorial;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The tracer is only registered on the steps with a configured rate above 0; runs choose their own rate
+@SpringBootTest(properties = "batch.tracing.sample-rate=0.01")
+@SpringBatchTest
+@ActiveProfiles("test")
+class SlowItemTracingIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retryableScenario_withTracing_storesSlowestItemsOfStepsOneAndTwo() throws Exception {
+        JobExecution exec = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "RETRYABLE")
+                .addString("retryAttempts", "2")
+                .addString("traceSampleRate", "1.0", false)
+                .addString("csvPath", "input/samples/persons_retryable.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        // Read back from the job repository, as the executions API does
+        var reloaded = jobExplorer.getJobExecution(exec.getId());
+        for (var se : reloaded.getStepExecutions()) {
+            var slowest = (List<Map<String, Object>>) se.getExecutionContext().get("trace.slowest");
+            if (se.getStepName().equals("step3WriteToFile")) {
+                // Step 3 has no item listeners
+                assertNull(slowest);
+                continue;
+            }
+            assertNotNull(slowest, se.getStepName());
+            assertFalse(slowest.isEmpty(), se.getStepName());
+            assertTrue(slowest.size() <= 10, se.getStepName());
+            long previous = Long.MAX_VALUE;
+            for (var item : slowest) {
+                long total = ((Number) item.get("totalMicros")).longValue();
+                assertTrue(total <= previous, "slowest first");
+                previous = total;
+            }
+            if (se.getStepName().equals("step2CalculateAge")) {
+                assertTrue(slowest.stream().allMatch(i -> ((Number) i.get("processAttempts")).intValue() > 1));
+            }
+        }
+
+        // The tracer is shared by all steps; sampling is decided per run
+        JobExecution untraced = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("traceSampleRate", "0", false)
+                .addString("csvPath", "input/samples/persons_retryable.csv")
+                .toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, untraced.getStatus());
+        for (var se : jobExplorer.getJobExecution(untraced.getId()).getStepExecutions()) {
+            assertFalse(se.getExecutionContext().containsKey("trace.slowest"), se.getStepName());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.model.DatasetSpec;
+import com.example.springbatchtutorial.model.GenerationProgress;
+import com.example.springbatchtutorial.service.SyntheticDataGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticDataGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameSpec_givesIdenticalFilesForAnyThreadCount() throws Exception {
+        // Three shards, so shard order and seeds both matter
+        DatasetSpec spec = new DatasetSpec(150_000, 7, 0.05, 0.02);
+        Path single = new SyntheticDataGenerator(1, dir.toString(), 1, 1, 1).generate(spec, dir.resolve("single.csv"));
+        Path parallel = new SyntheticDataGenerator(4, dir.toString(), 1, 1, 1).generate(spec, dir.resolve("parallel.csv"));
+        assertEquals(-1, Files.mismatch(single, parallel));
+        assertEquals(150_001, Files.readAllLines(single).size());
+
+        spec.setGzip(true);
+        Path gzipA = new SyntheticDataGenerator(1, dir.toString(), 1, 1, 1).generate(spec, dir.resolve("a.csv.gz"));
+        Path gzipB = new SyntheticDataGenerator(3, dir.toString(), 1, 1, 1).generate(spec, dir.resolve("b.csv.gz"));
+        assertEquals(-1, Files.mismatch(gzipA, gzipB));
+
+        Path otherSeed = new SyntheticDataGenerator(1, dir.toString(), 1, 1, 1)
+                .generate(new DatasetSpec(150_000, 8, 0.05, 0.02), dir.resolve("other.csv"));
+        assertNotEquals(-1, Files.mismatch(single, otherSeed));
+    }
+
+    @Test
+    void concurrentGenerations_eachMatchASequentialRunAndOnlyTheNewestFinishedStayListed() throws Exception {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(2, dir.toString(), 2, 4, 2);
+        try {
+            List<GenerationProgress> started = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                started.add(generator.start(new DatasetSpec(70_000 + i, i, 0.05, 0.02), "concurrent_" + i + ".csv"));
+            }
+            for (GenerationProgress progress : started) {
+                long deadline = System.currentTimeMillis() + 60_000;
+                while (progress.getStatus() == GenerationProgress.Status.RUNNING) {
+                    assertTrue(System.currentTimeMillis() < deadline, "generation did not finish");
+                    Thread.sleep(20);
+                }
+                assertEquals(GenerationProgress.Status.COMPLETED, progress.getStatus(), progress.getError());
+            }
+            for (int i = 0; i < started.size(); i++) {
+                Path sequential = generator.generate(new DatasetSpec(70_000 + i, i, 0.05, 0.02), dir.resolve("sequential_" + i + ".csv"));
+                assertEquals(-1, Files.mismatch(sequential, Path.of(started.get(i).getPath())), "generation " + i);
+                assertEquals(70_000 + i, started.get(i).getRowsWritten().get());
+            }
+            assertEquals(2, generator.generations().size());
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueue_rejectsNewGenerations() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(1, dir.toString(), 1, 1, 10);
+        try {
+            generator.start(new DatasetSpec(2_000_000, 1, 0, 0), "running.csv");
+            generator.start(new DatasetSpec(10, 1, 0, 0), "queued.csv");
+            assertThrows(RejectedExecutionException.class,
+                    () -> generator.start(new DatasetSpec(10, 1, 0, 0), "rejected.csv"));
+            assertEquals(2, generator.generations().size());
+        } finally {
+            generator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.springbatchtutorial;
+
+import com.example.springbatchtutorial.model.Person;
+import com.example.springbatchtutorial.repository.PersonRepository;
+import com.example.springbatchtutorial.writer.WriteBehindItemWriter;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "batch.write-behind.enabled=true",
+        "batch.write-behind.lanes=2",
+        "batch.write-behind.queue-capacity=50",
+        "batch.write-behind.batch-size=40"})
+@SpringBatchTest
+@ActiveProfiles("test")
+class WriteBehindIntegrationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void writeBehind_keepsLastRowPerEmailAndCountsEveryRowDurable() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("firstName,lastName,email,dateOfBirth"));
+        for (int i = 0; i < 400; i++) {
+            // Every tenth email comes back 200 rows later, possibly in another chunk
+            lines.add("WB_" + i + ",Demo,wb" + (i >= 200 && i % 10 == 0 ? i - 200 : i) + "@behind.example.com,1980-01-01");
+        }
+        Path csv = write("persons_duplicates.csv", lines);
+
+        JobExecution exec = jobLauncherTestUtils.launchJob(parameters(csv));
+        assertEquals(BatchStatus.COMPLETED, exec.getStatus());
+
+        for (StepExecution se : exec.getStepExecutions()) {
+            if (se.getStepName().equals("step1SaveToDatabase") || se.getStepName().equals("step2CalculateAge")) {
+                var counts = se.getExecutionContext();
+                assertEquals(se.getReadCount(), counts.getLong(WriteBehindItemWriter.DURABLE_COUNT_KEY), se.getStepName());
+                assertEquals(se.getReadCount(), counts.getInt("inserted.count") + counts.getInt("updated.count")
+                        + counts.getInt("unchanged.count"), se.getStepName());
+            }
+        }
+        StepExecution step1 = exec.getStepExecutions().stream()
+                .filter(se -> se.getStepName().equals("step1SaveToDatabase")).findFirst().orElseThrow();
+        assertEquals(400, step1.getReadCount());
+        assertEquals(380, step1.getExecutionContext().getInt("inserted.count"));
+        assertEquals(20, step1.getExecutionContext().getInt("updated.count"));
+        assertEquals("WB_200", personRepository.findByEmail("wb0@behind.example.com").orElseThrow().getFirstName());
+        assertEquals("WB_1", personRepository.findByEmail("wb1@behind.example.com").orElseThrow().getFirstName());
+        assertEquals(380, personRepository.findAllByJobExecutionId(exec.getId()).stream().filter(p -> p.getAge() != null).count());
+        assertEquals(380, Files.readAllLines(Path.of("output/persons_with_age.txt")).size());
+    }
+
+    @Test
+    void laneFailure_failsTheStep_andRestartWritesEveryRow() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("firstName,lastName,email,dateOfBirth"));
+        for (int i = 0; i < 250; i++) {
+            lines.add("WBR_" + i + ",Demo,wbr" + i + "@behind.example.com,1985-06-15");
+        }
+        // Longer than the column: passes validation, fails in a lane's transaction
+        lines.set(151, "X".repeat(300) + ",Demo,wbr150@behind.example.com,1985-06-15");
+        Path csv = write("persons_restart.csv", lines);
+        JobParameters parameters = parameters(csv);
+
+        JobExecution failed = jobLauncherTestUtils.launchJob(parameters);
+        assertEquals(BatchStatus.FAILED, failed.getStatus());
+        assertTrue(personRepository.findByEmail("wbr150@behind.example.com").isEmpty());
+        // The watermark stops at the chunk of the failed row; the chunk before it is in the database, row for row
+        StepExecution step1 = stepOf(failed.getId(), "step1SaveToDatabase").orElseThrow();
+        assertEquals(BatchStatus.FAILED, step1.getStatus());
+        assertEquals(100, step1.getExecutionContext().getLong(WriteBehindItemWriter.DURABLE_COUNT_KEY));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(personRepository.findByEmail("wbr" + i + "@behind.example.com").isPresent(), "row " + i);
+        }
+
+        lines.set(151, "WBR_150,Demo,wbr150@behind.example.com,1985-06-15");
+        Files.write(csv, lines);
+        JobExecution restarted = jobLauncherTestUtils.launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, restarted.getStatus());
+        assertEquals(failed.getJobInstance().getId(), restarted.getJobInstance().getId());
+
+        for (int i = 0; i < 250; i++) {
+            Person person = personRepository.findByEmail("wbr" + i + "@behind.example.com").orElseThrow();
+            assertEquals("WBR_" + i, person.getFirstName());
+            assertNotNull(person.getAge(), person.getEmail());
+        }
+    }
+
+    @Test
+    void laneFailureInStep2_commitsOnlyDurableChunks_andRestartResumesFromTheDurableCount() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("firstName,lastName,email,dateOfBirth"));
+        for (int i = 0; i < 1200; i++) {
+            lines.add("WBS_" + i + ",Demo,wbs" + i + "@behind.example.com,1990-03-01");
+        }
+        Path csv = write("persons_step2_restart.csv", lines);
+        JobParameters parameters = parameters(csv);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        // Lanes insert in parallel, so the row step 2 reads 1001st, first of its third chunk, is only known then
+        FailingUpdate.nth = 1000;
+        FailingUpdate.email = null;
+        jdbc.execute("CREATE TRIGGER WB_FAIL_STEP2 BEFORE UPDATE ON persons FOR EACH ROW CALL '" + FailingUpdate.class.getName() + "'");
+        JobExecution failed;
+        try {
+            failed = jobLauncherTestUtils.launchJob(parameters);
+        } finally {
+            jdbc.execute("DROP TRIGGER WB_FAIL_STEP2");
+        }
+        assertEquals(BatchStatus.FAILED, failed.getStatus());
+        StepExecution step2 = stepOf(failed.getId(), "step2CalculateAge").orElseThrow();
+        assertEquals(BatchStatus.FAILED, step2.getStatus());
+        assertEquals(1000, step2.getExecutionContext().getLong(WriteBehindItemWriter.DURABLE_COUNT_KEY));
+        // Every item below the watermark has its age; beyond it only rows of the third chunk that another lane wrote
+        List<Person> persons = personRepository.findAllByJobExecutionId(failed.getId()).stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList();
+        assertEquals(1200, persons.size());
+        assertTrue(persons.subList(0, 1000).stream().allMatch(p -> p.getAge() != null));
+        assertNull(persons.get(1000).getAge());
+        assertEquals(FailingUpdate.email, persons.get(1000).getEmail());
+
+        JobExecution restarted = jobLauncherTestUtils.launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, restarted.getStatus());
+        assertEquals(failed.getJobInstance().getId(), restarted.getJobInstance().getId());
+        StepExecution resumed = stepOf(restarted.getId(), "step2CalculateAge").orElseThrow();
+        assertEquals(200, resumed.getReadCount());
+        assertEquals(1200, resumed.getExecutionContext().getLong(WriteBehindItemWriter.DURABLE_COUNT_KEY));
+        List<Person> after = personRepository.findAllByJobExecutionId(restarted.getId());
+        assertEquals(1200, after.size());
+        assertTrue(after.stream().allMatch(p -> p.getAge() != null));
+        assertEquals(1200, Files.readAllLines(Path.of("output/persons_with_age.txt")).size());
+    }
+
+    /**
+     * Fails the update of the test's row with the {@code nth} id, as a constraint or a lost connection would. The row
+     * is looked up on the first update, once step 1 inserted them all.
+     */
+    public static class FailingUpdate implements Trigger {
+
+        static volatile int nth;
+        static volatile String email;
+
+        @Override
+        public void fire(java.sql.Connection conn, Object[] oldRow, Object[] newRow) throws java.sql.SQLException {
+            if (email == null) {
+                try (var statement = conn.prepareStatement(
+                        "SELECT email FROM persons WHERE email LIKE 'wbs%@behind.example.com' ORDER BY id LIMIT 1 OFFSET ?")) {
+                    statement.setInt(1, nth);
+                    try (var rows = statement.executeQuery()) {
+                        rows.next();
+                        email = rows.getString(1);
+                    }
+                }
+            }
+            if (Arrays.asList(newRow).contains(email)) {
+                throw new java.sql.SQLException("Update of " + email + " refused");
+            }
+        }
+    }
+
+    private Optional<StepExecution> stepOf(long jobExecutionId, String stepName) {
+        return jobExplorer.getJobExecution(jobExecutionId).getStepExecutions().stream()
+                .filter(se -> se.getStepName().equals(stepName)).findFirst();
+    }
+
+    private static JobParameters parameters(Path csv) {
+        return new JobParametersBuilder()
+                .addString("time", UUID.randomUUID().toString(), true)
+                .addString("scenario", "SUCCESS")
+                .addString("csvPath", csv.toString())
+                .toJobParameters();
+    }
+
+    private static Path write(String name, List<String> lines) throws Exception {
+        Path csv = Path.of("target/write-behind", name);
+        Files.createDirectories(csv.getParent());
+        Files.createDirectories(Path.of("output"));
+        return Files.write(csv, lines);
+    }
+}